@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a GET handler whose serialized responses are
+ * kept in the ResponseCache (see ResponseCacheAspect). The handler must
+ * also be annotated with {@code @CollectionEtag}: the version of that
+ * collection decides when a cached response is stale.
+ */
+
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedResponse {
+}
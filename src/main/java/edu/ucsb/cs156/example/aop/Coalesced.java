@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a GET handler whose concurrent identical
+ * requests share one run of the handler and one serialized result (see
+ * RequestCoalescingAspect). Requests are identical when they have the
+ * same route, parameters and roles.
+ */
+
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+  /**
+   * Whether the response depends on who the user is, not just on their
+   * roles, so only requests of the same user may share it.
+   * @return true to coalesce per user
+   */
+  boolean perPrincipal() default false;
+}
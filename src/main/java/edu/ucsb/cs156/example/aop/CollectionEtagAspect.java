@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.services.SecondLevelCacheInvalidator;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * This class is an Aspect that answers conditional GETs of whole
+ * collections. For a handler annotated with {@code @CollectionEtag}, it
+ * reads the version of the collection (one row of COLLECTIONVERSIONS),
+ * sets the ETag of the response to e.g. {@code "ucsbdiningcommons-12"},
+ * and when the request's If-None-Match has that ETag it answers 304 Not
+ * Modified without calling the handler, so the collection itself is not
+ * read.
+ *
+ * The aspect runs inside method security, so {@code @PreAuthorize} on the
+ * handler is checked first: a caller who may not read the collection gets
+ * 403, not a 304 or the ETag. It runs outside the other handler aspects,
+ * and leaves the version in the request attribute {@link #VERSION_ATTRIBUTE}
+ * so that they (see ResponseCacheAspect and RequestCoalescingAspect) can
+ * use it without reading it again. The version is also handed to
+ * SecondLevelCacheInvalidator, so the handler does not read rows that
+ * another node has changed from this node's second-level cache. The
+ * handler's declared return type must be Object, so Spring MVC writes the
+ * returned 304 ResponseEntity rather than serializing it.
+ *
+ * A {@code @CachedResponse} handler sends gzipped bytes to clients that
+ * accept gzip, and those responses have their own ETag, e.g.
+ * {@code "ucsbdiningcommons-12-gzip"}, since two different bodies must not
+ * share a strong ETag.
+ *
+ * The version is read before the handler runs. If a write commits in
+ * between, the response carries the old ETag with the new rows, and the
+ * client just downloads the collection again next time.
+ */
+
+@Component
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class CollectionEtagAspect {
+
+  public static final String VERSION_ATTRIBUTE = CollectionEtagAspect.class.getName() + ".version";
+
+  @Autowired
+  CollectionVersionRepository collectionVersionRepository;
+
+  @Autowired
+  SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+
+  /**
+   * This method returns the ETag of a version of a collection.
+   * @param collection the name of the collection
+   * @param version the version of the collection
+   * @return e.g. {@code "ucsbdiningcommons-12"}
+   */
+  public static String etag(String collection, long version) {
+    return etag(collection, version, false);
+  }
+
+  /**
+   * This method returns the ETag of a version of a collection, as sent
+   * with or without gzip.
+   * @param collection the name of the collection
+   * @param version the version of the collection
+   * @param gzip whether the body is gzipped
+   * @return e.g. {@code "ucsbdiningcommons-12"} or {@code "ucsbdiningcommons-12-gzip"}
+   */
+  public static String etag(String collection, long version, boolean gzip) {
+    return "\"" + collection + "-" + version + (gzip ? "-gzip" : "") + "\"";
+  }
+
+  /**
+   * This method sets the ETag of a collection GET, and answers 304 without
+   * running the handler when the client already has that version.
+   * @param joinPoint the handler call
+   * @param collectionEtag the annotation of the handler
+   * @return a 304 ResponseEntity, or whatever the handler returns
+   * @throws Throwable whatever the handler throws
+   */
+  @Around("@annotation(collectionEtag)")
+  public Object conditionalGet(ProceedingJoinPoint joinPoint, CollectionEtag collectionEtag) throws Throwable {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)
+        || attributes.getResponse() == null) {
+      return joinPoint.proceed();
+    }
+    HttpServletRequest request = attributes.getRequest();
+    String collection = CollectionVersion.nameOf(collectionEtag.value()).orElse(null);
+    if (collection == null || !"GET".equals(request.getMethod())) {
+      return joinPoint.proceed();
+    }
+    long version = collectionVersionRepository.findVersionByName(collection).orElse(0L);
+    request.setAttribute(VERSION_ATTRIBUTE, version);
+    secondLevelCacheInvalidator.versionSeen(collection, version);
+    boolean gzip = ((MethodSignature) joinPoint.getSignature()).getMethod().isAnnotationPresent(CachedResponse.class)
+        && ResponseCacheAspect.acceptsGzip(request);
+    String etag = etag(collection, version, gzip);
+    if (new ServletWebRequest(request, attributes.getResponse()).checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    return joinPoint.proceed();
+  }
+}
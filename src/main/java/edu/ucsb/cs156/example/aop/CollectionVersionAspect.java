@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is an Aspect that bumps the CollectionVersion of a
+ * collection after every write through its repository: the save and
+ * delete methods, and every {@code @Modifying} query (patches and bulk
+ * deletes).
+ *
+ * Only collections of Versioned entities are counted. When the write is
+ * part of a transaction, the bump is deferred to just before it commits,
+ * once per collection however many writes it made, so the two commit
+ * together and the counter never lags behind a committed change. The
+ * counter row is then the last lock the transaction takes, after the
+ * pending changes are flushed, and it is held only for the commit: two
+ * transactions that lock other rows (e.g. rating rollups) in different
+ * orders cannot deadlock on it, and writes to one collection are not
+ * serialized behind each other for their whole length.
+ *
+ * A write done by a bare repository call has already committed by the
+ * time the bump runs, so readers may see the new rows with the old ETag
+ * for a moment, but never an old response with the new ETag.
+ *
+ * The cached responses of the collection on this node are evicted once
+ * the bump has committed (see ResponseCache).
+ */
+
+@Component
+@Aspect
+public class CollectionVersionAspect {
+  // language=PointcutExpression
+  private static final String pointcut = """
+      target(org.springframework.data.repository.Repository) && (
+        execution(* save*(..)) ||
+        execution(* delete*(..)) ||
+        @annotation(org.springframework.data.jpa.repository.Modifying))
+      """;
+
+  @Autowired
+  CollectionVersionRepository collectionVersionRepository;
+
+  @Autowired
+  ResponseCache responseCache;
+
+  private final Map<Class<?>, Optional<String>> collections = new ConcurrentHashMap<>();
+
+  private Optional<String> collectionOfRepository(Class<?> repositoryClass) {
+    return collections.computeIfAbsent(repositoryClass, type -> {
+      for (Class<?> repositoryInterface : type.getInterfaces()) {
+        Class<?> entityType = ResolvableType.forClass(repositoryInterface).as(Repository.class).resolveGeneric(0);
+        Optional<String> collection = CollectionVersion.nameOf(entityType);
+        if (collection.isPresent()) {
+          return collection;
+        }
+      }
+      return Optional.empty();
+    });
+  }
+
+  /**
+   * This method bumps the version of the collection that was written to,
+   * and evicts its cached responses, before the current transaction
+   * commits or, if there is none, at once.
+   * @param joinPoint the repository write that returned
+   */
+  @AfterReturning(pointcut)
+  public void bumpCollectionVersion(JoinPoint joinPoint) {
+    collectionOfRepository(joinPoint.getTarget().getClass()).ifPresent(collection -> {
+      if (TransactionSynchronizationManager.isSynchronizationActive()
+          && TransactionSynchronizationManager.isActualTransactionActive()) {
+        pendingBumps().add(collection);
+      } else {
+        collectionVersionRepository.increment(collection);
+        responseCache.evict(collection);
+      }
+    });
+  }
+
+  /**
+   * This method returns the collections to bump when the current
+   * transaction commits, registering the bump on the first write.
+   * They are bumped in name order, so two transactions that wrote to the
+   * same collections lock their counters in the same order.
+   * @return the collections written to in the current transaction
+   */
+  @SuppressWarnings("unchecked")
+  private Set<String> pendingBumps() {
+    Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+    if (pending != null) {
+      return pending;
+    }
+    Set<String> collections = new TreeSet<>();
+    TransactionSynchronizationManager.bindResource(this, collections);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        collections.forEach(collectionVersionRepository::increment);
+      }
+
+      @Override
+      public void afterCommit() {
+        collections.forEach(responseCache::evict);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(CollectionVersionAspect.this);
+      }
+    });
+    return collections;
+  }
+}
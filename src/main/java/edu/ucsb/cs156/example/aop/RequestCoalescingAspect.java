@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * This class is an Aspect that coalesces concurrent identical requests
+ * to handlers annotated with {@code @Coalesced} (see RequestCoalescer).
+ *
+ * The key of a request is its route, its parameters sorted by name, the
+ * version of its collection when the handler is also annotated with
+ * {@code @CollectionEtag}, and the sorted roles of the user, plus the
+ * user's name when the handler is {@code @Coalesced(perPrincipal = true)}.
+ * The version is the one CollectionEtagAspect read and put in the ETag of
+ * the response, so a request that read version N+1 never shares the body
+ * of a leader that read version N, which would pair the new ETag with the
+ * old rows. The aspect runs inside method
+ * security, so {@code @PreAuthorize} is checked for every request, leader
+ * or follower. The handler's declared return type must be Object, so
+ * Spring MVC writes the returned ResponseEntity rather than serializing
+ * it.
+ */
+
+@Component
+@Aspect
+public class RequestCoalescingAspect {
+
+  @Autowired
+  RequestCoalescer requestCoalescer;
+
+  /**
+   * This method runs the handler, or shares the result of an identical
+   * request that is already running it.
+   * @param joinPoint the handler call
+   * @param coalesced the annotation of the handler
+   * @return a ResponseEntity with the JSON of the result
+   * @throws Throwable whatever the handler throws
+   */
+  @Around("@annotation(coalesced)")
+  public Object coalesce(ProceedingJoinPoint joinPoint, Coalesced coalesced) throws Throwable {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+      return joinPoint.proceed();
+    }
+    HttpServletRequest request = attributes.getRequest();
+    String route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+        ? pattern
+        : request.getRequestURI();
+    Long version = request.getAttribute(CollectionEtagAspect.VERSION_ATTRIBUTE) instanceof Long read ? read : null;
+    String key = key(route, request.getParameterMap(), version,
+        SecurityContextHolder.getContext().getAuthentication(), coalesced.perPrincipal());
+
+    byte[] json = requestCoalescer.coalesce(route, key, () -> {
+      try {
+        return joinPoint.proceed();
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new UndeclaredThrowableException(e);
+      }
+    });
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+  }
+
+  /**
+   * This method returns the coalescing key of a request.
+   * @param route the route pattern of the request
+   * @param parameters the parameters of the request
+   * @param version the version of the collection of the request, or null
+   * @param authentication the user, or null
+   * @param perPrincipal whether to include the user's name
+   * @return e.g. {@code GET /api/ucsbdates/all?limit=[10]@12|ROLE_USER}
+   */
+  static String key(String route, Map<String, String[]> parameters, Long version, Authentication authentication,
+      boolean perPrincipal) {
+    StringBuilder key = new StringBuilder("GET ").append(route).append('?');
+    key.append(new TreeMap<>(parameters).entrySet().stream()
+        .map(parameter -> parameter.getKey() + "=" + Arrays.toString(parameter.getValue()))
+        .collect(Collectors.joining("&")));
+    if (version != null) {
+      key.append('@').append(version);
+    }
+    key.append('|');
+    if (authentication != null) {
+      key.append(authentication.getAuthorities().stream()
+          .map(GrantedAuthority::getAuthority)
+          .sorted()
+          .collect(Collectors.joining(",")));
+      if (perPrincipal) {
+        key.append('|').append(authentication.getName());
+      }
+    }
+    return key.toString();
+  }
+}
@@ -0,0 +1,109 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * This class is an Aspect that answers handlers annotated with
+ * {@code @CachedResponse} from the ResponseCache. The handler only runs
+ * when the response is not cached at the current version of its
+ * collection; otherwise the cached bytes are returned as they are, gzipped
+ * when the client accepts gzip. Each carries the ETag that
+ * CollectionEtagAspect uses for it, so the two bodies never share one.
+ *
+ * The aspect runs inside method security, so {@code @PreAuthorize} on the
+ * handler is checked on every request, cached or not. The handler's
+ * declared return type must be Object, so Spring MVC writes the returned
+ * ResponseEntity rather than serializing it.
+ */
+
+@Component
+@Aspect
+public class ResponseCacheAspect {
+
+  @Autowired
+  ResponseCache responseCache;
+
+  @Autowired
+  CollectionVersionRepository collectionVersionRepository;
+
+  /**
+   * This method returns the cached response of the request, running the
+   * handler only on a miss.
+   * @param joinPoint the handler call
+   * @return a ResponseEntity with the cached JSON or gzipped JSON
+   * @throws Throwable whatever the handler throws
+   */
+  @Around("@annotation(edu.ucsb.cs156.example.aop.CachedResponse)")
+  public Object cachedResponse(ProceedingJoinPoint joinPoint) throws Throwable {
+    CollectionEtag collectionEtag = ((MethodSignature) joinPoint.getSignature()).getMethod()
+        .getAnnotation(CollectionEtag.class);
+    if (collectionEtag == null
+        || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+      return joinPoint.proceed();
+    }
+    String collection = CollectionVersion.nameOf(collectionEtag.value()).orElse(null);
+    if (collection == null) {
+      return joinPoint.proceed();
+    }
+    HttpServletRequest request = attributes.getRequest();
+    long version = request.getAttribute(CollectionEtagAspect.VERSION_ATTRIBUTE) instanceof Long read
+        ? read
+        : collectionVersionRepository.findVersionByName(collection).orElse(0L);
+    String query = request.getQueryString();
+    ResponseCache.Key key = new ResponseCache.Key(collection,
+        query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query);
+
+    ResponseCache.Entry entry = responseCache.get(key, version, () -> {
+      try {
+        return joinPoint.proceed();
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new UndeclaredThrowableException(e);
+      }
+    });
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (acceptsGzip(request)) {
+      return response.eTag(CollectionEtagAspect.etag(collection, version, true))
+          .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+          .body(entry.gzip());
+    }
+    return response.eTag(CollectionEtagAspect.etag(collection, version)).body(entry.json());
+  }
+
+  static boolean acceptsGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split("\\s*;\\s*");
+      if (parts[0].equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+}
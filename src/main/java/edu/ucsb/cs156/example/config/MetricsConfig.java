@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The `MetricsConfig` class turns on latency histograms for the requests
+ * handled by the controllers.
+ *
+ * Spring already times each request as {@code http.server.requests},
+ * tagged with the route ({@code uri}), {@code method} and {@code status},
+ * so the count per tag set doubles as a status-code counter. This adds
+ * histogram buckets between 1 ms and {@code app.metrics.latency.max-expected}
+ * to those timers, so p99 per route can be computed (and aggregated across
+ * instances) in Prometheus with {@code histogram_quantile}. Buckets are
+ * atomic counters, so recording does not take a lock.
+ *
+ * These are Micrometer's fixed, roughly exponential buckets rather than
+ * an HDR histogram. Micrometer keeps HDR-style histograms only to compute
+ * percentiles inside each instance, and percentiles from several
+ * instances cannot be combined; bucket counts can be summed across
+ * instances and routes before the quantile is taken. The cost is that a
+ * p99 is only as precise as the bucket it falls in (neighbouring buckets
+ * are 10% to 33% apart).
+ *
+ * The metrics are exposed at /actuator/prometheus and /actuator/metrics.
+ * Like every actuator endpoint they are served to admins, and
+ * /actuator/prometheus also to the Prometheus scrape user (see
+ * SecurityConfig).
+ */
+@Configuration
+public class MetricsConfig {
+
+  private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+  @Value("${app.metrics.latency.max-expected:30s}")
+  private Duration maxExpected;
+
+  /**
+   * This filter adds the latency histograms to the request timers.
+   * @return the filter
+   */
+  @Bean
+  public MeterFilter requestLatencyHistograms() {
+    return new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+        if (!id.getName().equals(HTTP_SERVER_REQUESTS)) {
+          return config;
+        }
+        return DistributionStatisticConfig.builder()
+            .percentilesHistogram(true)
+            .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+            .maximumExpectedValue((double) maxExpected.toNanos())
+            .build()
+            .merge(config);
+      }
+    };
+  }
+}
@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.jdbc.QueryCountingDataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * The `QueryStatsConfig` class wraps the application's DataSource in a
+ * QueryCountingDataSource, so the statements each request runs are
+ * counted (see QueryStatsInterceptor). Set
+ * {@code app.query-stats.enabled=false} to use the pool directly.
+ *
+ * The wrapper proxies every connection, statement and result set, so each
+ * {@code ResultSet.next()} and column getter goes through a reflective
+ * call. It is on by default in development and tests, and off in the
+ * production profile unless {@code QUERY_STATS_ENABLED} is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.query-stats.enabled", matchIfMissing = true)
+public class QueryStatsConfig {
+
+  @Bean
+  public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+          return new QueryCountingDataSource(dataSource);
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,157 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.ToLongFunction;
+
+import javax.cache.CacheManager;
+
+/**
+ * The `SecondLevelCacheConfig` class sets up the Hibernate second-level
+ * cache: a Caffeine cache (through JCache) for each region configured
+ * under {@code app.l2-cache.regions}, e.g.
+ *
+ * <pre>
+ * app.l2-cache.regions.ucsbdiningcommons.max-size=1000
+ * app.l2-cache.regions.ucsbdiningcommons.ttl=1h
+ * </pre>
+ *
+ * Entities annotated with {@code @Cache(region = ...)} are kept in the
+ * region of that name, and the results of cacheable queries in
+ * {@code default-query-results-region}. Writes made through Hibernate
+ * (saves, deletes and {@code @Modifying} queries) update or evict the
+ * cached entities and invalidate the cached queries of their table in the
+ * same transaction. The update timestamps region that the query cache
+ * checks against is never evicted or expired.
+ *
+ * The cache is local to the node: writes on other nodes are seen when
+ * SecondLevelCacheInvalidator reads a newer CollectionVersion and evicts
+ * the region and the cached queries. A change made directly in the
+ * database, without moving the version, is only seen after the TTL.
+ *
+ * Each application context gets its own cache manager, so two contexts
+ * (e.g. in tests) never share cached rows. Hits, misses and puts per
+ * region, and the hit ratio, are published as
+ * {@code hibernate.second.level.cache.*} metrics.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+  public static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+  public static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+  /**
+   * The size and TTL of a cache region.
+   * @param maxSize maximum number of entries; the least recently used are evicted first
+   * @param ttl how long an entry is kept after it is written
+   */
+  public record Region(long maxSize, Duration ttl) {
+  }
+
+  /**
+   * This method reads the configured regions.
+   * @param environment the environment
+   * @return the regions, by name
+   */
+  static Map<String, Region> regions(Environment environment) {
+    return Binder.get(environment)
+        .bind("app.l2-cache.regions", Bindable.mapOf(String.class, Region.class))
+        .orElse(Map.of());
+  }
+
+  /**
+   * This method creates the cache manager, with one cache per region.
+   * @param environment the environment
+   * @return the cache manager; it is closed with the context
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager secondLevelCacheManager(Environment environment) {
+    CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+    regions(environment).forEach((name, region) -> {
+      CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+      configuration.setStoreByValue(false);
+      configuration.setMaximumSize(OptionalLong.of(region.maxSize()));
+      configuration.setExpireAfterWrite(OptionalLong.of(region.ttl().toNanos()));
+      cacheManager.createCache(name, configuration);
+    });
+    CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+    timestamps.setStoreByValue(false);
+    cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+    return cacheManager;
+  }
+
+  /**
+   * This customizer hands the cache manager to Hibernate's JCache region factory.
+   * @param secondLevelCacheManager the cache manager
+   * @return the customizer
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+  }
+
+  /**
+   * This binder publishes the hits, misses, puts and hit ratio of each region.
+   * @param entityManagerFactory the entity manager factory
+   * @param environment the environment
+   * @return the binder
+   */
+  @Bean
+  public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, Environment environment) {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    return registry -> regions(environment).keySet().forEach(region -> {
+      FunctionCounter.builder("hibernate.second.level.cache.requests", statistics,
+          s -> count(s, region, CacheRegionStatistics::getHitCount))
+          .description("second-level cache lookups that found the entry")
+          .tags("region", region, "result", "hit")
+          .register(registry);
+      FunctionCounter.builder("hibernate.second.level.cache.requests", statistics,
+          s -> count(s, region, CacheRegionStatistics::getMissCount))
+          .description("second-level cache lookups that did not find the entry")
+          .tags("region", region, "result", "miss")
+          .register(registry);
+      FunctionCounter.builder("hibernate.second.level.cache.puts", statistics,
+          s -> count(s, region, CacheRegionStatistics::getPutCount))
+          .description("entries put in the second-level cache")
+          .tags("region", region)
+          .register(registry);
+      Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, s -> hitRatio(s, region))
+          .description("fraction of second-level cache lookups that found the entry")
+          .tags("region", region)
+          .register(registry);
+    });
+  }
+
+  private static double count(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> count) {
+    CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+    return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+  }
+
+  static double hitRatio(Statistics statistics, String region) {
+    double hits = count(statistics, region, CacheRegionStatistics::getHitCount);
+    double lookups = hits + count(statistics, region, CacheRegionStatistics::getMissCount);
+    return lookups == 0 ? Double.NaN : hits / lookups;
+  }
+}
@@ -1,7 +1,6 @@
 package edu.ucsb.cs156.example.config;
 
-import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminStatusCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -22,6 +22,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
@@ -40,11 +43,8 @@ import static org.springframework.security.web.util.matcher.AntPathRequestMatche
 
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -59,11 +59,43 @@ import java.util.function.Supplier;
 @Slf4j
 public class SecurityConfig {
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<>();
-
   @Autowired
-  UserRepository userRepository;
+  AdminStatusCache adminStatusCache;
+
+  @Value("${app.metrics.scrape.username:prometheus}")
+  String scrapeUsername;
+
+  @Value("${app.metrics.scrape.password:}")
+  String scrapePassword;
+
+  /**
+   * This filter chain lets Prometheus scrape /actuator/prometheus with
+   * HTTP basic auth, as the user {@code app.metrics.scrape.username} with
+   * the password {@code app.metrics.scrape.password}. A scraper cannot do
+   * the OAuth login that the rest of the application uses. Admins who are
+   * logged in can read it too. If no password is set, only admins can.
+   *
+   * @param http injected HttpSecurity object (injected by Spring framework)
+   * @return the filter chain for /actuator/prometheus
+   */
+  @Bean
+  @Order(1)
+  public SecurityFilterChain prometheusFilterChain(HttpSecurity http) throws Exception {
+    InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager();
+    if (StringUtils.hasText(scrapePassword)) {
+      scrapers.createUser(User.withUsername(scrapeUsername)
+          .password(PasswordEncoderFactories.createDelegatingPasswordEncoder().encode(scrapePassword))
+          .roles("PROMETHEUS")
+          .build());
+    }
+    http
+        .securityMatcher(antMatcher("/actuator/prometheus"))
+        .authorizeHttpRequests(auth -> auth.anyRequest().hasAnyRole("PROMETHEUS", "ADMIN"))
+        .httpBasic(Customizer.withDefaults())
+        .userDetailsService(scrapers)
+        .csrf(csrf -> csrf.disable());
+    return http.build();
+  }
 
   /**
    * The `filterChain` method in this Java code configures various security
@@ -85,7 +117,10 @@ public class SecurityConfig {
             .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
             .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
         .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
-        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .authorizeHttpRequests(auth -> auth
+            // actuator endpoints (mappings, metrics, prometheus) describe the whole application
+            .requestMatchers(antMatcher("/actuator/**")).hasRole("ADMIN")
+            .anyRequest().permitAll())
         .logout(logout -> logout.logoutRequestMatcher(new AntPathRequestMatcher("/logout")).logoutSuccessUrl("/"));
     return http.build();
   }
@@ -133,17 +168,14 @@ public class SecurityConfig {
   /**
    * This method checks if the given email belongs to an admin user either from a
    * predefined
-   * list or by querying the user repository.
+   * list or by querying the user repository. The answer comes from
+   * AdminStatusCache, so repeated logins do not each query the database.
    * 
    * @param email email address of the user
    * @return whether the user with the given email is an admin
    */
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return adminStatusCache.isAdmin(email);
   }
 }
 
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.interceptors.AccessLogInterceptor;
+import edu.ucsb.cs156.example.interceptors.QueryStatsInterceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The `WebConfig` class registers the application's Spring MVC
+ * interceptors: the access log and the per-request query stats (when
+ * {@code app.query-stats.enabled}).
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  @Autowired
+  AccessLogInterceptor accessLogInterceptor;
+
+  @Autowired(required = false)
+  QueryStatsInterceptor queryStatsInterceptor;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(accessLogInterceptor);
+    if (queryStatsInterceptor != null) {
+      registry.addInterceptor(queryStatsInterceptor);
+    }
+  }
+}
@@ -1,16 +1,45 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.errors.EntityAlreadyExistsException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.CrudService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.NdjsonStreamingService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * This is an abstract class that provides common functionality for all API controllers.
@@ -18,9 +47,32 @@ import java.util.Map;
 
 @Slf4j
 public abstract class ApiController {
+  private static final Pattern VERSION_ETAG = Pattern.compile("(?:W/)?\"(\\d+)\"");
+
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private NdjsonStreamingService ndjsonStreamingService;
+
+  @Autowired
+  protected CrudService crudService;
+
+  @Value("${app.pagination.default-limit:100}")
+  private int defaultPageLimit;
+
+  @Value("${app.pagination.max-limit:1000}")
+  private int maxPageLimit;
+
+  @Value("${app.pagination.allow-unpaged:true}")
+  private boolean allowUnpaged;
+
+  @Value("${app.bulk-delete.max-ids:1000}")
+  private int maxBulkDeleteIds;
+
+  @Value("${app.batch-get.max-ids:1000}")
+  private int maxBatchGetIds;
+
   /**
    * This method returns the current user.
    * @return the current user
@@ -38,6 +90,141 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns the entity version named by an If-Match header.
+   *
+   * The ETag of a versioned entity is its version in quotes, e.g.
+   * {@code "3"} (see EntityVersionEtagAdvice).
+   *
+   * @param ifMatch the If-Match header, or null if there was none
+   * @return the version, or null if there was no header or it was {@code *}
+   * @throws PreconditionFailedException if the header is not a version ETag, so cannot match
+   */
+  protected Long ifMatchVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    Matcher matcher = VERSION_ETAG.matcher(ifMatch.trim());
+    if (!matcher.matches()) {
+      throw new PreconditionFailedException("If-Match %s is not the ETag of an entity".formatted(ifMatch));
+    }
+    return Long.valueOf(matcher.group(1));
+  }
+
+  /**
+   * This method returns one keyset page of a collection, ordered by primary key.
+   *
+   * When neither {@code after} nor {@code limit} is given and
+   * {@code app.pagination.allow-unpaged} is true, the whole collection is
+   * returned instead, as the {@code /all} endpoints always did. The
+   * queries run in a read-only transaction (see CrudService).
+   *
+   * @param <T> the entity type
+   * @param <K> the primary key type
+   * @param after exclusive lower bound on the primary key (null for the first page)
+   * @param limit maximum number of rows in the page (null for the default)
+   * @param firstCursor the key that sorts before every row, used when after is null
+   * @param findAll query that returns the whole collection
+   * @param findAfter keyset query returning rows with key greater than the cursor, in key order
+   * @param cursorOf function returning the primary key of a row
+   * @return a KeysetPage, or the whole collection when unpaged
+   */
+  protected <T, K> Object keysetPage(K after, Integer limit, K firstCursor,
+      Supplier<Iterable<T>> findAll,
+      BiFunction<K, Limit, List<T>> findAfter,
+      Function<T, K> cursorOf) {
+    return crudService.read(() -> page(after, limit, firstCursor, findAll, findAfter, cursorOf));
+  }
+
+  private <T, K> Object page(K after, Integer limit, K firstCursor,
+      Supplier<Iterable<T>> findAll,
+      BiFunction<K, Limit, List<T>> findAfter,
+      Function<T, K> cursorOf) {
+    if (after == null && limit == null && allowUnpaged) {
+      return findAll.get();
+    }
+    int pageSize = Math.max(1, Math.min(limit == null ? defaultPageLimit : limit, maxPageLimit));
+
+    // fetch one extra row so that we know whether there is a next page
+    List<T> rows = findAfter.apply(after == null ? firstCursor : after, Limit.of(pageSize + 1));
+    if (rows.size() <= pageSize) {
+      return KeysetPage.<T>builder().items(rows).nextCursor(null).build();
+    }
+    List<T> items = rows.subList(0, pageSize);
+    return KeysetPage.<T>builder()
+        .items(items)
+        .nextCursor(cursorOf.apply(items.get(pageSize - 1)))
+        .build();
+  }
+
+  /**
+   * This method deletes the rows with the given ids in a single DELETE.
+   *
+   * @param ids the ids; duplicates are ignored
+   * @param deleteByIdIn set-based DELETE of the rows whose id is in a collection
+   * @return how many distinct ids were requested and how many rows were deleted
+   * @throws BadRequestException if there are more than {@code app.bulk-delete.max-ids} ids
+   */
+  protected BulkDeleteResult bulkDelete(Collection<Long> ids, ToIntFunction<Collection<Long>> deleteByIdIn) {
+    Set<Long> distinct = new LinkedHashSet<>(ids);
+    if (distinct.size() > maxBulkDeleteIds) {
+      throw new BadRequestException("at most %d ids can be deleted at once, not %d"
+          .formatted(maxBulkDeleteIds, distinct.size()));
+    }
+    int deleted = distinct.isEmpty() ? 0 : crudService.write(() -> deleteByIdIn.applyAsInt(distinct));
+    return BulkDeleteResult.builder().requested(distinct.size()).deleted(deleted).build();
+  }
+
+  /**
+   * This method fetches the rows with the given ids in a single SELECT
+   * (an IN query) and returns them in the order the ids were requested,
+   * together with the ids that have no row.
+   *
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param ids the ids; duplicates are ignored
+   * @param findAllById query for the rows whose id is in a collection, in any order
+   * @param idOf the id of a row
+   * @return the rows found and the ids missing, both in request order
+   * @throws BadRequestException if there are more than {@code app.batch-get.max-ids} ids
+   */
+  protected <T, ID> BatchResult<T, ID> batchGet(Collection<ID> ids,
+      Function<Collection<ID>, ? extends Iterable<T>> findAllById, Function<T, ID> idOf) {
+    Set<ID> distinct = new LinkedHashSet<>(ids);
+    if (distinct.size() > maxBatchGetIds) {
+      throw new BadRequestException("at most %d ids can be fetched at once, not %d"
+          .formatted(maxBatchGetIds, distinct.size()));
+    }
+    Map<ID, T> found = new HashMap<>();
+    if (!distinct.isEmpty()) {
+      crudService.read(() -> findAllById.apply(distinct)).forEach(row -> found.put(idOf.apply(row), row));
+    }
+    List<T> items = new ArrayList<>(found.size());
+    List<ID> missing = new ArrayList<>();
+    for (ID id : distinct) {
+      T row = found.get(id);
+      if (row != null) {
+        items.add(row);
+      } else {
+        missing.add(id);
+      }
+    }
+    return BatchResult.<T, ID>builder().items(items).missing(missing).build();
+  }
+
+  /**
+   * This method returns a response that streams the rows as newline-delimited JSON.
+   *
+   * @param <T> the entity type
+   * @param rows supplier of a stream of entities (e.g. a repository stream method)
+   * @return a streaming response with content type application/x-ndjson
+   */
+  protected <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<T>> rows) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjsonStreamingService.stream(rows));
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    * @param e the exception
@@ -51,4 +238,66 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  /**
+   * This method handles the BadRequestException.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ BadRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequest(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  /**
+   * This method handles the EntityAlreadyExistsException.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ EntityAlreadyExistsException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleAlreadyExists(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  /**
+   * This method handles the PreconditionFailedException.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ PreconditionFailedException.class })
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handlePreconditionFailed(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  /**
+   * This method handles an OptimisticLockingFailureException, i.e. an
+   * UPDATE or DELETE that found the row at a newer version because
+   * another request changed it while this one was running.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ OptimisticLockingFailureException.class })
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handleConcurrentModification(OptimisticLockingFailureException e) {
+    String message = e instanceof ObjectOptimisticLockingFailureException o && o.getPersistentClassName() != null
+        ? "%s with id %s was modified by another request".formatted(
+            ClassUtils.getShortName(o.getPersistentClassName()), o.getIdentifier())
+        : "the entity was modified by another request";
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", message
+    );
+  }
 }
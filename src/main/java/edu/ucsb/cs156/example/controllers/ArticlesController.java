@@ -1,8 +1,12 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Article;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.services.ArticleSearchIndex;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,19 +17,27 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Tag(name = "Articles")
 @RequestMapping("/api/articles")
@@ -36,12 +48,53 @@ public class ArticlesController extends ApiController{
     @Autowired
     ArticleRepository articleRepository;
 
+    @Autowired
+    ArticleSearchIndex articleSearchIndex;
+
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Article> allArticle() {
-        Iterable<Article> article = articleRepository.findAll();
-        return article;
+    @CollectionEtag(Article.class)
+    public Object allArticle(
+            @Parameter(name="after", description="return only articles whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of articles in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                articleRepository::findAll,
+                articleRepository::findByIdGreaterThanOrderByIdAsc,
+                Article::getId);
+    }
+
+    @Operation(summary= "Stream all articles as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllArticles() {
+        return ndjson(articleRepository::streamAllByOrderByIdAsc);
+    }
+
+    /**
+     * Search articles by keyword
+     * 
+     * @param q the words to search for in the title and explanation
+     * @param limit the maximum number of results (1 to 100)
+     * @return the best matching articles with their scores, best first
+     */
+    @Operation(summary= "Search articles by keyword (title and explanation), best match first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public List<ArticleSearchHit> searchArticles(
+            @Parameter(name="q") @RequestParam String q,
+            @Parameter(name="limit", description="maximum number of results (1 to 100)") @RequestParam(defaultValue = "10") int limit) {
+        List<ArticleSearchIndex.Hit> hits = articleSearchIndex.search(q, Math.max(1, Math.min(limit, 100)));
+        List<Long> ids = hits.stream().map(ArticleSearchIndex.Hit::id).toList();
+        Map<Long, Article> articles = crudService.read(() -> articleRepository.findByIdIn(ids))
+                .stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+
+        // an article deleted since it was ranked is left out
+        return hits.stream()
+                .filter(hit -> articles.containsKey(hit.id()))
+                .map(hit -> new ArticleSearchHit(articles.get(hit.id()), hit.score()))
+                .toList();
     }
 
     @Operation(summary= "Create a new article")
@@ -68,6 +121,7 @@ public class ArticlesController extends ApiController{
         article.setDateAdded(dateAdded);
 
         Article savedArticle = articleRepository.save(article);
+        articleSearchIndex.index(savedArticle);
 
         return savedArticle;
     }
@@ -82,13 +136,29 @@ public class ArticlesController extends ApiController{
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteArticle(
-            @Parameter(name="id") @RequestParam String id) {
-        Article article = articleRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Article.class, id));
-
-        articleRepository.delete(article);
+            @Parameter(name="id") @RequestParam String id,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        Article article = crudService.delete(articleRepository, Article.class, id, ifMatchVersion(ifMatch));
+        articleSearchIndex.remove(article.getId());
         return genericMessage("Article with id %s deleted".formatted(id));
     }
 
+    /**
+     * Delete many Articles by id
+     * 
+     * @param ids the ids of the articles to delete
+     * @return how many ids were requested and how many articles were deleted
+     */
+    @Operation(summary= "Delete many Articles by id, in a single DELETE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkDeleteResult deleteArticles(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        BulkDeleteResult result = bulkDelete(ids, articleRepository::deleteByIdIn);
+        ids.forEach(articleSearchIndex::remove);
+        return result;
+    }
+
     /**
      * Get a single article by id
      * 
@@ -100,11 +170,25 @@ public class ArticlesController extends ApiController{
     @GetMapping("")
     public Article getById(
             @Parameter(name="id") @RequestParam String id) {
-        Article article = articleRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Article.class, id));
+        Article article = crudService.findById(articleRepository, Article.class, id);
 
         return article;
     }
 
+    /**
+     * Get many articles by id
+     * 
+     * @param ids the ids of the articles
+     * @return the articles that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many articles by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<Article, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, articleRepository::findByIdIn, Article::getId);
+    }
+
     /**
      * Update a single article
      * 
@@ -117,18 +201,18 @@ public class ArticlesController extends ApiController{
     @PutMapping("")
     public Article updateArticle(
             @Parameter(name="id") @RequestParam String id,
-            @RequestBody @Valid Article incoming) {
-
-        Article article = articleRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Article.class, id));
-
-        article.setTitle(incoming.getTitle());
-        article.setUrl(incoming.getUrl());
-        article.setExplanation(incoming.getExplanation());
-        article.setEmail(incoming.getEmail());
-        article.setDateAdded(incoming.getDateAdded());
-
-        articleRepository.save(article);
-
-        return article;
+            @RequestBody @Valid Article incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        Article updated = crudService.update(articleRepository, Article.class, id, ifMatchVersion(ifMatch), article -> {
+            article.setTitle(incoming.getTitle());
+            article.setUrl(incoming.getUrl());
+            article.setExplanation(incoming.getExplanation());
+            article.setEmail(incoming.getEmail());
+            article.setDateAdded(incoming.getDateAdded());
+        });
+        articleSearchIndex.index(updated);
+
+        return updated;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
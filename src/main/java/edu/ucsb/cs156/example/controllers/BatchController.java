@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.SubRequest;
+import edu.ucsb.cs156.example.models.SubResponse;
+import edu.ucsb.cs156.example.services.SubRequestDispatcher;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+
+/**
+ * This is a REST controller that runs many GETs in one round trip.
+ *
+ * The frontend makes several small calls when a page loads (the current
+ * user, system info, a few /all lists); over a slow link each one costs a
+ * round trip. POST /api/batch takes the list of GETs, runs them in
+ * parallel on the server and returns every response at once, each with
+ * its own status.
+ *
+ * Each GET is authorized on its own, as the user who sent the batch, so
+ * the batch itself is open to everyone; a GET the user may not make gets
+ * a 403 in its place in the response.
+ *
+ * @see edu.ucsb.cs156.example.services.SubRequestDispatcher
+ */
+
+@Tag(name = "Batch")
+@RequestMapping("/api/batch")
+@RestController
+public class BatchController extends ApiController {
+
+    @Autowired
+    private SubRequestDispatcher subRequestDispatcher;
+
+    @Value("${app.batch.max-requests:20}")
+    private int maxRequests;
+
+    /**
+     * This method runs the GETs of a batch.
+     * @param requests the GETs, each a path and query string under /api
+     * @param request the batch request
+     * @return the status, headers and body of each GET, in the same order
+     */
+    @Operation(summary = "Run many GETs in one request; each gets its own status and body")
+    @PostMapping("")
+    public List<SubResponse> batch(
+            @RequestBody List<SubRequest> requests,
+            HttpServletRequest request) {
+        if (requests.size() > maxRequests) {
+            throw new BadRequestException("at most %d requests can be batched, not %d"
+                    .formatted(maxRequests, requests.size()));
+        }
+        List<String> urls = requests.stream().map(SubRequest::getUrl).toList();
+        for (String url : urls) {
+            if (url == null || !url.startsWith("/api/") || url.startsWith("/api/batch")) {
+                throw new BadRequestException("only GETs under /api (other than /api/batch) can be batched, not " + url);
+            }
+        }
+        return subRequestDispatcher.dispatch(request, urls);
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.services.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for the dashboard: counts and recent items
+ * across the entities in one response.
+ *
+ * The panels are loaded in parallel, and a panel that is slow to load is
+ * left out rather than holding up the page; each panel says how long it
+ * took.
+ *
+ * @see edu.ucsb.cs156.example.services.DashboardService
+ * @see edu.ucsb.cs156.example.models.Dashboard
+ */
+
+@Tag(name = "Dashboard")
+@RequestMapping("/api/dashboard")
+@RestController
+public class DashboardController extends ApiController {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    /**
+     * This method returns the dashboard.
+     * @return open help requests, pending recommendation requests, newest articles,
+     * upcoming dates and top-rated menu items, with a count and timing for each
+     */
+    @Operation(summary = "Get counts and recent items across all entities, with per-panel timings")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public Dashboard getDashboard() {
+        return dashboardService.getDashboard();
+    }
+}
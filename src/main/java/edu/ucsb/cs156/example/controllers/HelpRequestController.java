@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,19 +15,25 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * This is a REST controller for HelpRequests
@@ -43,14 +51,33 @@ public class HelpRequestController extends ApiController {
     /**
      * List all help requests
      * 
-     * @return an iterable of HelpRequest
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of HelpRequest, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary= "List all help requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> dates = helpRequestRepository.findAll();
-        return dates;
+    @CollectionEtag(HelpRequest.class)
+    public Object allHelpRequests(
+            @Parameter(name="after", description="return only help requests whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of help requests in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                helpRequestRepository::findAll,
+                helpRequestRepository::findByIdGreaterThanOrderByIdAsc,
+                HelpRequest::getId);
+    }
+
+    /**
+     * Stream all help requests as newline-delimited JSON
+     * 
+     * @return a streaming response with one HelpRequest per line
+     */
+    @Operation(summary= "Stream all help requests as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHelpRequests() {
+        return ndjson(helpRequestRepository::streamAllByOrderByIdAsc);
     }
 
     /**
@@ -64,12 +91,25 @@ public class HelpRequestController extends ApiController {
     @GetMapping("")
     public HelpRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest HelpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+        HelpRequest HelpRequest = crudService.findById(helpRequestRepository, HelpRequest.class, id);
 
         return HelpRequest;
     }
 
+    /**
+     * Get many help requests by id
+     * 
+     * @param ids the ids of the help requests
+     * @return the help requests that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many help requests by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<HelpRequest, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, helpRequestRepository::findAllById, HelpRequest::getId);
+    }
+
     /**
      * Create a new date
      * @param requesterEmail
@@ -121,14 +161,67 @@ public class HelpRequestController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteHelpRequest(
-            @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest HelpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequestRepository.delete(HelpRequest);
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        crudService.delete(helpRequestRepository, HelpRequest.class, id, ifMatchVersion(ifMatch));
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
 
+    /**
+     * Delete many HelpRequests by id
+     * 
+     * @param ids the ids of the HelpRequests to delete
+     * @return how many ids were requested and how many HelpRequests were deleted
+     */
+    @Operation(summary= "Delete many HelpRequests by id, in a single DELETE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkDeleteResult deleteHelpRequests(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return bulkDelete(ids, helpRequestRepository::deleteByIdIn);
+    }
+
+    /**
+     * Delete every solved HelpRequest made before a time
+     * 
+     * @param before only HelpRequests whose requestTime is before this are deleted
+     * @return how many HelpRequests were deleted
+     */
+    @Operation(summary= "Delete every solved HelpRequest made before a time, in a single DELETE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/solved")
+    public BulkDeleteResult deleteSolvedHelpRequests(
+            @Parameter(name="before", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)") @RequestParam("before") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        int deleted = crudService.write(() -> helpRequestRepository.deleteSolvedBefore(before));
+        return BulkDeleteResult.builder().deleted(deleted).build();
+    }
+
+    /**
+     * Mark a help request solved or unsolved
+     * 
+     * Only the solved column is written, with a single UPDATE.
+     * 
+     * @param id     id of the HelpRequest to update
+     * @param solved whether the HelpRequest is solved
+     * @return a message indicating the HelpRequest was updated
+     */
+    @Operation(summary= "Mark a help request solved or unsolved")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("/solved")
+    public Object patchSolved(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="solved") @RequestParam boolean solved,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        Long version = ifMatchVersion(ifMatch);
+        if (version == null) {
+            crudService.patch(HelpRequest.class, id, () -> helpRequestRepository.updateSolved(id, solved));
+        } else {
+            crudService.patch(helpRequestRepository, HelpRequest.class, id, version,
+                    () -> helpRequestRepository.updateSolved(id, solved, version));
+        }
+        return genericMessage("HelpRequest with id %s updated (solved=%s)".formatted(id, solved));
+    }
+
     /**
      * Update a single date
      * 
@@ -141,20 +234,16 @@ public class HelpRequestController extends ApiController {
     @PutMapping("")
     public HelpRequest updateHelpRequest(
             @Parameter(name="id") @RequestParam Long id,
-            @RequestBody @Valid HelpRequest incoming) {
-
-        HelpRequest HelpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-        HelpRequest.setRequesterEmail(incoming.getRequesterEmail());
-        HelpRequest.setTeamId(incoming.getTeamId());
-        HelpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-        HelpRequest.setRequestTime(incoming.getRequestTime());
-        HelpRequest.setExplanation(incoming.getExplanation());
-        HelpRequest.setSolved(incoming.getSolved());
-    
-
-        helpRequestRepository.save(HelpRequest);
-
-        return HelpRequest;
+            @RequestBody @Valid HelpRequest incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        return crudService.update(helpRequestRepository, HelpRequest.class, id, ifMatchVersion(ifMatch), HelpRequest -> {
+            HelpRequest.setRequesterEmail(incoming.getRequesterEmail());
+            HelpRequest.setTeamId(incoming.getTeamId());
+            HelpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
+            HelpRequest.setRequestTime(incoming.getRequestTime());
+            HelpRequest.setExplanation(incoming.getExplanation());
+            HelpRequest.setSolved(incoming.getSolved());
+        });
     }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
 import edu.ucsb.cs156.example.entities.MenuItemReviews;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewsRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingRebuildJob;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,19 +18,24 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -36,18 +46,52 @@ public class MenuItemReviewController extends ApiController {
     @Autowired
     MenuItemReviewsRepository menuItemReviewsRepository;
 
+    @Autowired
+    MenuItemRatingService menuItemRatingService;
+
+    @Autowired
+    MenuItemRatingRebuildJob menuItemRatingRebuildJob;
+
 
     @Operation(summary= "List all")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<MenuItemReviews> getAllMenuItemReviews() {
-        Iterable<MenuItemReviews> menuItemReviews = menuItemReviewsRepository.findAll();
-        return menuItemReviews;
+    @CollectionEtag(MenuItemReviews.class)
+    public Object getAllMenuItemReviews(
+            @Parameter(name="after", description="return only menu item reviews whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of menu item reviews in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                menuItemReviewsRepository::findAll,
+                menuItemReviewsRepository::findByIdGreaterThanOrderByIdAsc,
+                MenuItemReviews::getId);
     }
 
+    @Operation(summary= "Stream all menu item reviews as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMenuItemReviews() {
+        return ndjson(menuItemReviewsRepository::streamAllByOrderByIdAsc);
+    }
 
 
 
+
+    @Operation(summary = "Get the rating summary (review count, average and star histogram) of a menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/ratings")
+    public MenuItemRatingRollup getMenuItemRating(
+            @Parameter(name = "itemId") @RequestParam long itemId) {
+        return menuItemRatingService.rollupFor(itemId);
+    }
+
+    @Operation(summary = "Recompute the rating summaries of all menu items from their reviews")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/ratings/rebuild")
+    public Object rebuildMenuItemRatings() {
+        int items = menuItemRatingRebuildJob.rebuild();
+        return genericMessage("Rebuilt rating summaries for %d menu items".formatted(items));
+    }
+
     @Operation(summary= "Create new")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -75,7 +119,7 @@ public class MenuItemReviewController extends ApiController {
 
 
 
-        MenuItemReviews createdReviews = menuItemReviewsRepository.save(menuItemReviewRequest);
+        MenuItemReviews createdReviews = menuItemRatingService.create(menuItemReviewRequest);
         return createdReviews;
     }
 
@@ -89,12 +133,25 @@ public class MenuItemReviewController extends ApiController {
     public MenuItemReviews getMenuItemReviewById(
         @Parameter(name = "id") @RequestParam long id) {
 
-        MenuItemReviews menuItemReview = menuItemReviewsRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReviews.class, id));
+        MenuItemReviews menuItemReview = crudService.findById(menuItemReviewsRepository, MenuItemReviews.class, id);
 
         return menuItemReview;
     }
 
+    /**
+     * Get many menu item reviews by id
+     * 
+     * @param ids the ids of the menu item reviews
+     * @return the menu item reviews that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many menu item reviews by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<MenuItemReviews, Long> getMenuItemReviewsByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, menuItemReviewsRepository::findAllById, MenuItemReviews::getId);
+    }
+
 
 
 
@@ -107,22 +164,10 @@ public class MenuItemReviewController extends ApiController {
     @PutMapping("")
     public MenuItemReviews updateMenuItemReview(
             @Parameter(name = "id") @RequestParam long id,
-            @RequestBody @Valid MenuItemReviews updatedReview) {
-
-        MenuItemReviews existingReview = menuItemReviewsRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReviews.class, id));
+            @RequestBody @Valid MenuItemReviews updatedReview,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
 
-
-        existingReview.setItemId(updatedReview.getItemId());
-        existingReview.setReviewEmail(updatedReview.getReviewEmail());
-        existingReview.setStars(updatedReview.getStars());
-        existingReview.setDateReviewed(updatedReview.getDateReviewed());
-        existingReview.setComments(updatedReview.getComments());
-
-
-        menuItemReviewsRepository.save(existingReview);
-
-        return existingReview;
+        return menuItemRatingService.update(id, ifMatchVersion(ifMatch), updatedReview);
     }
 
 
@@ -132,11 +177,9 @@ public class MenuItemReviewController extends ApiController {
 @DeleteMapping("")
 @PreAuthorize("hasRole('ROLE_ADMIN')")
 @Operation(summary = "Delete a menu item review by id")
-public String deleteMenuItemReview(@RequestParam long id) throws EntityNotFoundException {
-    MenuItemReviews menuItemReview = menuItemReviewsRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReviews.class, id));
-
-    menuItemReviewsRepository.delete(menuItemReview);
+public String deleteMenuItemReview(@RequestParam long id,
+        @RequestHeader(name = "If-Match", required = false) String ifMatch) throws EntityNotFoundException {
+    menuItemRatingService.delete(id, ifMatchVersion(ifMatch));
 
     return "MenuItemReview with id " + id + " deleted";
 }
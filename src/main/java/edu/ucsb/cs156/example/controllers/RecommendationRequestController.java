@@ -2,7 +2,8 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
@@ -15,19 +16,25 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * This is a REST controller for RecommendationRequests
@@ -45,14 +52,33 @@ public class RecommendationRequestController extends ApiController {
     /**
      * List all Recommendation Requests
      * 
-     * @return an iterable of RecommendationRequest
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of RecommendationRequest, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary= "List all recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequests() {
-        Iterable<RecommendationRequest> recommendationRequests = recommendationRequestRepository.findAll();
-        return recommendationRequests;
+    @CollectionEtag(RecommendationRequest.class)
+    public Object allRecommendationRequests(
+            @Parameter(name="after", description="return only recommendation requests whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of recommendation requests in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                recommendationRequestRepository::findAll,
+                recommendationRequestRepository::findByIdGreaterThanOrderByIdAsc,
+                RecommendationRequest::getId);
+    }
+
+    /**
+     * Stream all recommendation requests as newline-delimited JSON
+     * 
+     * @return a streaming response with one RecommendationRequest per line
+     */
+    @Operation(summary= "Stream all recommendation requests as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRecommendationRequests() {
+        return ndjson(recommendationRequestRepository::streamAllByOrderByIdAsc);
     }
 
     @Operation(summary= "Create a new recommendation request")
@@ -97,12 +123,25 @@ public class RecommendationRequestController extends ApiController {
     @GetMapping("")
     public RecommendationRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        RecommendationRequest recommendationRequest = crudService.findById(recommendationRequestRepository, RecommendationRequest.class, id);
 
         return recommendationRequest;
     }
 
+    /**
+     * Get many recommendation requests by id
+     * 
+     * @param ids the ids of the recommendation requests
+     * @return the recommendation requests that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many recommendation requests by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<RecommendationRequest, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, recommendationRequestRepository::findAllById, RecommendationRequest::getId);
+    }
+
     /**
      * Update a single recommendation request
      * 
@@ -115,21 +154,43 @@ public class RecommendationRequestController extends ApiController {
     @PutMapping("")
     public RecommendationRequest updateRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id,
-            @RequestBody @Valid RecommendationRequest incoming) {
-
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
-        recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
-        recommendationRequest.setExplanation(incoming.getExplanation());
-        recommendationRequest.setDateRequested(incoming.getDateRequested());
-        recommendationRequest.setDateNeeded(incoming.getDateNeeded());
-        recommendationRequest.setDone(incoming.getDone());
-
-        recommendationRequestRepository.save(recommendationRequest);
+            @RequestBody @Valid RecommendationRequest incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        return crudService.update(recommendationRequestRepository, RecommendationRequest.class, id, ifMatchVersion(ifMatch), recommendationRequest -> {
+            recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
+            recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
+            recommendationRequest.setExplanation(incoming.getExplanation());
+            recommendationRequest.setDateRequested(incoming.getDateRequested());
+            recommendationRequest.setDateNeeded(incoming.getDateNeeded());
+            recommendationRequest.setDone(incoming.getDone());
+        });
+    }
 
-        return recommendationRequest;
+    /**
+     * Mark a recommendation request done or not done
+     * 
+     * Only the done column is written, with a single UPDATE.
+     * 
+     * @param id   id of the recommendation request to update
+     * @param done whether the recommendation request is done
+     * @return a message indicating the recommendation request was updated
+     */
+    @Operation(summary= "Mark a recommendation request done or not done")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PatchMapping("/done")
+    public Object patchDone(
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="done") @RequestParam boolean done,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        Long version = ifMatchVersion(ifMatch);
+        if (version == null) {
+            crudService.patch(RecommendationRequest.class, id, () -> recommendationRequestRepository.updateDone(id, done));
+        } else {
+            crudService.patch(recommendationRequestRepository, RecommendationRequest.class, id, version,
+                    () -> recommendationRequestRepository.updateDone(id, done, version));
+        }
+        return genericMessage("RecommendationRequest with id %s updated (done=%s)".formatted(id, done));
     }
 
      /**
@@ -142,11 +203,9 @@ public class RecommendationRequestController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteRecommendationRequest(
-            @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequestRepository.delete(recommendationRequest);
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        crudService.delete(recommendationRequestRepository, RecommendationRequest.class, id, ifMatchVersion(ifMatch));
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 }
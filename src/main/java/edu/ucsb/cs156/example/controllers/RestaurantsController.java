@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.CachedResponse;
 import edu.ucsb.cs156.example.entities.Restaurant;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,18 +11,24 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+
 /**
  * This is a REST controller for Restaurants
  */
@@ -35,14 +43,34 @@ public class RestaurantsController extends ApiController {
 
     /**
      * This method returns a list of all restaurants.
-     * @return a list of all restaurants
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of restaurants, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Restaurant> allRestaurants() {
-        Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-        return restaurants;
+    @CollectionEtag(Restaurant.class)
+    @CachedResponse
+    public Object allRestaurants(
+            @Parameter(name="after", description="return only restaurants whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of restaurants in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                restaurantRepository::findAll,
+                restaurantRepository::findByIdGreaterThanOrderByIdAsc,
+                Restaurant::getId);
+    }
+
+    /**
+     * Stream all restaurants as newline-delimited JSON
+     * 
+     * @return a streaming response with one Restaurant per line
+     */
+    @Operation(summary= "Stream all restaurants as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRestaurants() {
+        return ndjson(restaurantRepository::streamAllByOrderByIdAsc);
     }
 
     /**
@@ -55,12 +83,25 @@ public class RestaurantsController extends ApiController {
     @GetMapping("")
     public Restaurant getById(
             @Parameter(name = "id") @RequestParam Long id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
+        Restaurant restaurant = crudService.findById(restaurantRepository, Restaurant.class, id);
 
         return restaurant;
     }
 
+    /**
+     * Get many restaurants by id
+     * 
+     * @param ids the ids of the restaurants
+     * @return the restaurants that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many restaurants by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<Restaurant, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, restaurantRepository::findAllById, Restaurant::getId);
+    }
+
     /**
      * This method creates a new restaurant. Accessible only to users with the role "ROLE_ADMIN".
      * @param name name of the restaurant
@@ -91,11 +132,9 @@ public class RestaurantsController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteRestaurant(
-            @Parameter(name = "id") @RequestParam Long id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-        restaurantRepository.delete(restaurant);
+            @Parameter(name = "id") @RequestParam Long id,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        crudService.delete(restaurantRepository, Restaurant.class, id, ifMatchVersion(ifMatch));
         return genericMessage("Restaurant with id %s deleted".formatted(id));
     }
 
@@ -110,16 +149,12 @@ public class RestaurantsController extends ApiController {
     @PutMapping("")
     public Restaurant updateRestaurant(
             @Parameter(name = "id") @RequestParam Long id,
-            @RequestBody @Valid Restaurant incoming) {
+            @RequestBody @Valid Restaurant incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
 
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-        restaurant.setName(incoming.getName());
-        restaurant.setDescription(incoming.getDescription());
-
-        restaurantRepository.save(restaurant);
-
-        return restaurant;
+        return crudService.update(restaurantRepository, Restaurant.class, id, ifMatchVersion(ifMatch), restaurant -> {
+            restaurant.setName(incoming.getName());
+            restaurant.setDescription(incoming.getDescription());
+        });
     }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
 import edu.ucsb.cs156.example.entities.UCSBDate;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,19 +17,25 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * This is a REST controller for UCSBDates
@@ -37,20 +47,85 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+    private static final Pattern QUARTER = Pattern.compile("\\d{4}[1-4]");
+
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
     /**
      * List all UCSB dates
      * 
-     * @return an iterable of UCSBDate
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of UCSBDate, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
-        Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-        return dates;
+    @CollectionEtag(UCSBDate.class)
+    @Coalesced
+    public Object allUCSBDates(
+            @Parameter(name="after", description="return only ucsb dates whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of ucsb dates in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                ucsbDateRepository::findAll,
+                ucsbDateRepository::findByIdGreaterThanOrderByIdAsc,
+                UCSBDate::getId);
+    }
+
+    /**
+     * Stream all ucsb dates as newline-delimited JSON
+     * 
+     * @return a streaming response with one UCSBDate per line
+     */
+    @Operation(summary= "Stream all ucsb dates as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUCSBDates() {
+        return ndjson(ucsbDateRepository::streamAllByOrderByIdAsc);
+    }
+
+    /**
+     * List the dates in one quarter
+     * 
+     * @param quarterYYYYQ the quarter in the format YYYYQ
+     * @return the dates in the quarter, ordered by localDateTime
+     */
+    @Operation(summary= "List the ucsb dates in a quarter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarter")
+    public List<UCSBDate> ucsbDatesInQuarter(
+            @Parameter(name="quarterYYYYQ", description="quarter in the format YYYYQ, e.g. 20241 for Winter 2024") @RequestParam String quarterYYYYQ) {
+        checkQuarter("quarterYYYYQ", quarterYYYYQ);
+        return crudService.read(() -> ucsbDateRepository.findByQuarterYYYYQOrderByLocalDateTimeAsc(quarterYYYYQ));
+    }
+
+    /**
+     * List the dates in a range of quarters
+     * 
+     * @param from the first quarter, in the format YYYYQ
+     * @param to   the last quarter, in the format YYYYQ
+     * @return the dates from the start of quarter from to the end of quarter to, ordered by localDateTime
+     */
+    @Operation(summary= "List the ucsb dates in a range of quarters")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarters")
+    public List<UCSBDate> ucsbDatesInQuarters(
+            @Parameter(name="from", description="first quarter (inclusive) in the format YYYYQ") @RequestParam String from,
+            @Parameter(name="to", description="last quarter (inclusive) in the format YYYYQ") @RequestParam String to) {
+        checkQuarter("from", from);
+        checkQuarter("to", to);
+        if (from.compareTo(to) > 0) {
+            throw new BadRequestException("from (%s) is after to (%s)".formatted(from, to));
+        }
+        return crudService.read(() -> ucsbDateRepository.findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc(from, to));
+    }
+
+    private static void checkQuarter(String name, String quarterYYYYQ) {
+        if (!QUARTER.matcher(quarterYYYYQ).matches()) {
+            throw new BadRequestException("%s must be a quarter in the format YYYYQ, e.g. 20241, not %s"
+                    .formatted(name, quarterYYYYQ));
+        }
     }
 
     /**
@@ -64,12 +139,25 @@ public class UCSBDatesController extends ApiController {
     @GetMapping("")
     public UCSBDate getById(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        UCSBDate ucsbDate = crudService.findById(ucsbDateRepository, UCSBDate.class, id);
 
         return ucsbDate;
     }
 
+    /**
+     * Get many dates by id
+     * 
+     * @param ids the ids of the dates
+     * @return the dates that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many dates by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<UCSBDate, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, ucsbDateRepository::findAllById, UCSBDate::getId);
+    }
+
     /**
      * Create a new date
      * 
@@ -112,14 +200,42 @@ public class UCSBDatesController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteUCSBDate(
-            @Parameter(name="id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        ucsbDateRepository.delete(ucsbDate);
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        crudService.delete(ucsbDateRepository, UCSBDate.class, id, ifMatchVersion(ifMatch));
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
+    /**
+     * Delete many UCSBDates by id
+     * 
+     * @param ids the ids of the UCSBDates to delete
+     * @return how many ids were requested and how many dates were deleted
+     */
+    @Operation(summary= "Delete many UCSBDates by id, in a single DELETE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkDeleteResult deleteUCSBDates(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return bulkDelete(ids, ucsbDateRepository::deleteByIdIn);
+    }
+
+    /**
+     * Delete every UCSBDate in a quarter
+     * 
+     * @param quarterYYYYQ the quarter in the format YYYYQ
+     * @return how many dates were deleted
+     */
+    @Operation(summary= "Delete every UCSBDate in a quarter, in a single DELETE")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/quarter")
+    public BulkDeleteResult deleteUCSBDatesInQuarter(
+            @Parameter(name="quarterYYYYQ", description="quarter in the format YYYYQ, e.g. 20241 for Winter 2024") @RequestParam String quarterYYYYQ) {
+        checkQuarter("quarterYYYYQ", quarterYYYYQ);
+        int deleted = crudService.write(() -> ucsbDateRepository.deleteByQuarterYYYYQ(quarterYYYYQ));
+        return BulkDeleteResult.builder().deleted(deleted).build();
+    }
+
     /**
      * Update a single date
      * 
@@ -132,17 +248,13 @@ public class UCSBDatesController extends ApiController {
     @PutMapping("")
     public UCSBDate updateUCSBDate(
             @Parameter(name="id") @RequestParam Long id,
-            @RequestBody @Valid UCSBDate incoming) {
-
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-        ucsbDate.setName(incoming.getName());
-        ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+            @RequestBody @Valid UCSBDate incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
 
-        ucsbDateRepository.save(ucsbDate);
-
-        return ucsbDate;
+        return crudService.update(ucsbDateRepository, UCSBDate.class, id, ifMatchVersion(ifMatch), ucsbDate -> {
+            ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
+            ucsbDate.setName(incoming.getName());
+            ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+        });
     }
 }
@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.CachedResponse;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,18 +12,24 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+
 /**
  * This is a REST controller for UCSBDiningCommons
  */
@@ -37,14 +45,34 @@ public class UCSBDiningCommonsController extends ApiController {
 
     /**
      * THis method returns a list of all ucsbdiningcommons.
-     * @return a list of all ucsbdiningcommons
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of ucsbdiningcommons, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    @CollectionEtag(UCSBDiningCommons.class)
+    @CachedResponse
+    public Object allCommonss(
+            @Parameter(name="after", description="return only commons whose code is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) String after,
+            @Parameter(name="limit", description="maximum number of commons in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, "",
+                ucsbDiningCommonsRepository::findAll,
+                ucsbDiningCommonsRepository::findByCodeGreaterThanOrderByCodeAsc,
+                UCSBDiningCommons::getCode);
+    }
+
+    /**
+     * Stream all ucsb dining commons as newline-delimited JSON
+     * 
+     * @return a streaming response with one UCSBDiningCommons per line
+     */
+    @Operation(summary= "Stream all ucsb dining commons as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCommons() {
+        return ndjson(ucsbDiningCommonsRepository::streamAllByOrderByCodeAsc);
     }
 
     /**
@@ -57,12 +85,25 @@ public class UCSBDiningCommonsController extends ApiController {
     @GetMapping("")
     public UCSBDiningCommons getById(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        UCSBDiningCommons commons = crudService.findById(ucsbDiningCommonsRepository, UCSBDiningCommons.class, code);
 
         return commons;
     }
 
+    /**
+     * Get many commons by code
+     * 
+     * @param codes the codes of the commons
+     * @return the commons that exist, in the order requested, and the codes that do not
+     */
+    @Operation(summary= "Get many commons by code, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "codes")
+    public BatchResult<UCSBDiningCommons, String> getByCodes(
+            @Parameter(name="codes", description="comma separated codes, e.g. DLG,ORT") @RequestParam List<String> codes) {
+        return batchGet(codes, ucsbDiningCommonsRepository::findAllById, UCSBDiningCommons::getCode);
+    }
+
     /**
      * This method creates a new diningcommons. Accessible only to users with the role "ROLE_ADMIN".
      * @param code code of the diningcommons
@@ -97,7 +138,7 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLatitude(latitude);
         commons.setLongitude(longitude);
 
-        UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        UCSBDiningCommons savedCommons = crudService.create(ucsbDiningCommonsRepository, UCSBDiningCommons.class, code, commons);
 
         return savedCommons;
     }
@@ -111,11 +152,9 @@ public class UCSBDiningCommonsController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteCommons(
-            @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        ucsbDiningCommonsRepository.delete(commons);
+            @Parameter(name="code") @RequestParam String code,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        crudService.delete(ucsbDiningCommonsRepository, UCSBDiningCommons.class, code, ifMatchVersion(ifMatch));
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -130,21 +169,16 @@ public class UCSBDiningCommonsController extends ApiController {
     @PutMapping("")
     public UCSBDiningCommons updateCommons(
             @Parameter(name="code") @RequestParam String code,
-            @RequestBody @Valid UCSBDiningCommons incoming) {
-
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
-
-        ucsbDiningCommonsRepository.save(commons);
-
-        return commons;
+            @RequestBody @Valid UCSBDiningCommons incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        return crudService.update(ucsbDiningCommonsRepository, UCSBDiningCommons.class, code, ifMatchVersion(ifMatch), commons -> {
+            commons.setName(incoming.getName());
+            commons.setHasSackMeal(incoming.getHasSackMeal());
+            commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
+            commons.setHasDiningCam(incoming.getHasDiningCam());
+            commons.setLatitude(incoming.getLatitude());
+            commons.setLongitude(incoming.getLongitude());
+        });
     }
 }
@@ -3,7 +3,14 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.models.DiningCommonsMenu;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.models.MenuStation;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.MenuItemBulkLoadService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,19 +21,29 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This is a REST controller for UCSBDiningCommonsMenuItem
@@ -41,17 +58,62 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @Autowired
+    MenuItemBulkLoadService menuItemBulkLoadService;
+
     /**
      * List all UCSB Dining Commons Menu Items
      * 
-     * @return an iterable of UCSBDiningCommonsMenuItem
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of UCSBDiningCommonsMenuItem, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary= "List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-        Iterable<UCSBDiningCommonsMenuItem> ucsbDiningCommonsMenuItems = ucsbDiningCommonsMenuItemRepository.findAll();
-        return ucsbDiningCommonsMenuItems;
+    @CollectionEtag(UCSBDiningCommonsMenuItem.class)
+    public Object allUCSBDiningCommonsMenuItems(
+            @Parameter(name="after", description="return only menu items whose id is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) Long after,
+            @Parameter(name="limit", description="maximum number of menu items in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, 0L,
+                ucsbDiningCommonsMenuItemRepository::findAll,
+                ucsbDiningCommonsMenuItemRepository::findByIdGreaterThanOrderByIdAsc,
+                UCSBDiningCommonsMenuItem::getId);
+    }
+
+    /**
+     * Stream all ucsb dining commons menu items as newline-delimited JSON
+     * 
+     * @return a streaming response with one UCSBDiningCommonsMenuItem per line
+     */
+    @Operation(summary= "Stream all ucsb dining commons menu items as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUCSBDiningCommonsMenuItems() {
+        return ndjson(ucsbDiningCommonsMenuItemRepository::streamAllByOrderByIdAsc);
+    }
+
+    /**
+     * Get the menu of one dining commons with the ratings of its items
+     * 
+     * The items and their review counts and average stars are read with
+     * one join query, and grouped by station here.
+     * 
+     * @param diningCommonsCode the code of the dining commons
+     * @return the stations of the dining commons, in name order, each with its rated items in name order
+     */
+    @Operation(summary= "Get the menu of a dining commons, grouped by station, with item ratings")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/menu")
+    public DiningCommonsMenu getMenu(
+            @Parameter(name="diningCommonsCode", description="code of the dining commons, e.g. portola") @RequestParam String diningCommonsCode) {
+        Map<String, List<MenuItemRating>> itemsByStation = new LinkedHashMap<>();
+        for (MenuItemRating item : ucsbDiningCommonsMenuItemRepository.findMenuWithRatings(diningCommonsCode)) {
+            itemsByStation.computeIfAbsent(item.getStation(), station -> new ArrayList<>()).add(item);
+        }
+        List<MenuStation> stations = new ArrayList<>();
+        itemsByStation.forEach((station, items) -> stations.add(new MenuStation(station, items)));
+        return new DiningCommonsMenu(diningCommonsCode, stations);
     }
 
     /**
@@ -67,12 +129,25 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
     public UCSBDiningCommonsMenuItem getById(
             @Parameter(name="id") @RequestParam Long id) 
     throws EntityNotFoundException {
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository
-                .findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = crudService
+                .findById(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, id);
         return ucsbDiningCommonsMenuItem;
     }
 
+    /**
+     * Get many ucsb dining commons menu items by id
+     * 
+     * @param ids the ids of the ucsb dining commons menu items
+     * @return the ucsb dining commons menu items that exist, in the order requested, and the ids that do not
+     */
+    @Operation(summary= "Get many menu items by id, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public BatchResult<UCSBDiningCommonsMenuItem, Long> getByIds(
+            @Parameter(name="ids", description="comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return batchGet(ids, ucsbDiningCommonsMenuItemRepository::findAllById, UCSBDiningCommonsMenuItem::getId);
+    }
+
     /**
      * Update a single UCSBDiningCommonsMenuItem via diningCommonsCode
      * 
@@ -85,17 +160,15 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
     @PutMapping("")
     public UCSBDiningCommonsMenuItem updateUCSBDiningCommonsMenuItem(
             @Parameter(name="id") @RequestParam Long id,
-            @Valid @RequestBody UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem) {
-
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemToUpdate = ucsbDiningCommonsMenuItemRepository
-                .findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        ucsbDiningCommonsMenuItemToUpdate.setDiningCommonsCode(ucsbDiningCommonsMenuItem.getDiningCommonsCode());
-        ucsbDiningCommonsMenuItemToUpdate.setName(ucsbDiningCommonsMenuItem.getName());
-        ucsbDiningCommonsMenuItemToUpdate.setStation(ucsbDiningCommonsMenuItem.getStation());
-        ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItemToUpdate);
-        return ucsbDiningCommonsMenuItemToUpdate;
+            @Valid @RequestBody UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        return crudService.update(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, id, ifMatchVersion(ifMatch),
+                ucsbDiningCommonsMenuItemToUpdate -> {
+            ucsbDiningCommonsMenuItemToUpdate.setDiningCommonsCode(ucsbDiningCommonsMenuItem.getDiningCommonsCode());
+            ucsbDiningCommonsMenuItemToUpdate.setName(ucsbDiningCommonsMenuItem.getName());
+            ucsbDiningCommonsMenuItemToUpdate.setStation(ucsbDiningCommonsMenuItem.getStation());
+        });
     }
 
     /**
@@ -108,12 +181,10 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteById(
-            @Parameter(name="id") @RequestParam Long id) 
+            @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) 
     throws EntityNotFoundException {
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository
-                .findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-        ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+        crudService.delete(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, id, ifMatchVersion(ifMatch));
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
 
@@ -142,4 +213,22 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
 
         return savedItems;
     }
+
+    /**
+     * Create many UCSBDiningCommonsMenuItems from a JSON array
+     * 
+     * The body is parsed as it is read, so it can be much larger than
+     * a single request normally is. Rows that fail validation or cannot
+     * be inserted are reported in the result; the other rows are still loaded.
+     * 
+     * @param request the request, whose body is a JSON array of menu items
+     * @return how many rows were received and inserted, and the rows that failed
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(summary= "Create many UCSBDiningCommonsMenuItems from a JSON array")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkLoadResult bulkLoadUCSBDiningCommonsMenuItems(HttpServletRequest request) throws IOException {
+        return menuItemBulkLoadService.load(request.getInputStream());
+    }
 }
@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.CachedResponse;
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,18 +12,24 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
+import java.util.List;
+
 @Tag(name = "UCSBOrganizations")
 @RequestMapping("/api/ucsborganizations")
 @RestController
@@ -34,14 +42,34 @@ public class UCSBOrganizationsController extends ApiController {
     /**
      * List all UCSB Orgs
      *
-     * @return an iterable of UCSBOrganizations
+     * @param after cursor; only rows after it are returned (optional)
+     * @param limit maximum number of rows in the page (optional)
+     * @return an iterable of UCSBOrganizations, or a KeysetPage of them when after or limit is given
      */
     @Operation(summary = "List all ucsb organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganizations> allOrganizations() {
-        Iterable<UCSBOrganizations> organizations = ucsbOrganizationsRepository.findAll();
-        return organizations;
+    @CollectionEtag(UCSBOrganizations.class)
+    @CachedResponse
+    public Object allOrganizations(
+            @Parameter(name="after", description="return only organizations whose orgCode is greater than this cursor (the nextCursor of the previous page)") @RequestParam(required = false) String after,
+            @Parameter(name="limit", description="maximum number of organizations in the page") @RequestParam(required = false) Integer limit) {
+        return keysetPage(after, limit, "",
+                ucsbOrganizationsRepository::findAll,
+                ucsbOrganizationsRepository::findByOrgCodeGreaterThanOrderByOrgCodeAsc,
+                UCSBOrganizations::getOrgCode);
+    }
+
+    /**
+     * Stream all ucsb organizations as newline-delimited JSON
+     * 
+     * @return a streaming response with one UCSBOrganizations per line
+     */
+    @Operation(summary= "Stream all ucsb organizations as newline-delimited JSON")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrganizations() {
+        return ndjson(ucsbOrganizationsRepository::streamAllByOrderByOrgCodeAsc);
     }
 
     /**
@@ -54,8 +82,21 @@ public class UCSBOrganizationsController extends ApiController {
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
     public UCSBOrganizations getById(@RequestParam String orgCode) {
-        return ucsbOrganizationsRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
+        return crudService.findById(ucsbOrganizationsRepository, UCSBOrganizations.class, orgCode);
+    }
+
+    /**
+     * Get many orgs by orgCode
+     * 
+     * @param orgCodes the orgCodes of the orgs
+     * @return the orgs that exist, in the order requested, and the orgCodes that do not
+     */
+    @Operation(summary= "Get many organizations by orgCode, in a single SELECT")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "orgCodes")
+    public BatchResult<UCSBOrganizations, String> getByOrgCodes(
+            @Parameter(name="orgCodes", description="comma separated codes, e.g. ZPR,SKY") @RequestParam List<String> orgCodes) {
+        return batchGet(orgCodes, ucsbOrganizationsRepository::findAllById, UCSBOrganizations::getOrgCode);
     }
 
     /**
@@ -70,19 +111,15 @@ public class UCSBOrganizationsController extends ApiController {
     @PutMapping("")
     public UCSBOrganizations updateOrganizations(
             @Parameter(name = "orgCode") @RequestParam String orgCode,
-            @RequestBody @Valid UCSBOrganizations incoming) {
-
-        UCSBOrganizations organization = ucsbOrganizationsRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
-
-        // organization.setOrgCode(incoming.getOrgCode());
-        organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
-        organization.setOrgTranslation(incoming.getOrgTranslation());
-        organization.setInactive(incoming.getInactive());
-
-        ucsbOrganizationsRepository.save(organization);
-
-        return organization;
+            @RequestBody @Valid UCSBOrganizations incoming,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+
+        return crudService.update(ucsbOrganizationsRepository, UCSBOrganizations.class, orgCode, ifMatchVersion(ifMatch), organization -> {
+            // organization.setOrgCode(incoming.getOrgCode());
+            organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
+            organization.setOrgTranslation(incoming.getOrgTranslation());
+            organization.setInactive(incoming.getInactive());
+        });
     }
 
     @Operation(summary = "Create a new organization")
@@ -100,7 +137,7 @@ public class UCSBOrganizationsController extends ApiController {
         organization.setOrgTranslationShort(orgTranslationShort);
         organization.setOrgTranslation(orgTranslation);
         organization.setInactive(inactive);
-        UCSBOrganizations savedOrganizations = ucsbOrganizationsRepository.save(organization);
+        UCSBOrganizations savedOrganizations = crudService.create(ucsbOrganizationsRepository, UCSBOrganizations.class, orgCode, organization);
 
         return savedOrganizations;
     }
@@ -109,11 +146,9 @@ public class UCSBOrganizationsController extends ApiController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteOrganizations(
-            @Parameter(name = "orgCode") @RequestParam String orgCode) {
-        UCSBOrganizations organizations = ucsbOrganizationsRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
-
-        ucsbOrganizationsRepository.delete(organizations);
+            @Parameter(name = "orgCode") @RequestParam String orgCode,
+            @Parameter(name="If-Match", description="ETag of the version being changed, from an earlier response") @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        crudService.delete(ucsbOrganizationsRepository, UCSBOrganizations.class, orgCode, ifMatchVersion(ifMatch));
         return genericMessage("UCSBOrganizations with id %s deleted".formatted(orgCode));
     }
 }
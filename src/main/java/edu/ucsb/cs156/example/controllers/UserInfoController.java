@@ -1,8 +1,12 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
 import edu.ucsb.cs156.example.models.CurrentUser;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,14 +24,17 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserInfoController extends ApiController {
  
   /**
-   * This method returns the current user.
-   * @return the current user
+   * This method returns the current user. Concurrent requests of the same
+   * user (e.g. from several components of one page) share one lookup.
+   * @return the current user (a CurrentUser)
    */
 
   @Operation(summary= "Get information about current user")
+  @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = CurrentUser.class)))
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public CurrentUser getCurrentUser() {
-    return super.getCurrentUser();
+  @Coalesced(perPrincipal = true)
+  public Object currentUser() {
+    return getCurrentUser();
   }
 }
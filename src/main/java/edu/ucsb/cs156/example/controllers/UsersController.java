@@ -7,12 +7,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminStatusCache;
+import edu.ucsb.cs156.example.services.CurrentUserCache;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 /**
@@ -31,6 +36,12 @@ public class UsersController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
+    @Autowired
+    CurrentUserCache currentUserCache;
+
+    @Autowired
+    AdminStatusCache adminStatusCache;
+
     /**
      * This method returns a list of all users.  Accessible only to users with the role "ROLE_ADMIN".
      * @return a list of all users
@@ -45,4 +56,24 @@ public class UsersController extends ApiController {
         String body = mapper.writeValueAsString(users);
         return ResponseEntity.ok().body(body);
     }
+
+    /**
+     * This method toggles the admin flag of a user.  Accessible only to users with the role "ROLE_ADMIN".
+     *
+     * The user's cached admin status and CurrentUser are updated, so the change shows up on their
+     * next request. (Their roles only change when they next log in.)
+     *
+     * @param id the id of the user
+     * @return the updated user
+     */
+    @Operation(summary= "Toggle the admin flag of a user")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/toggleAdmin")
+    public User toggleAdmin(
+            @Parameter(name="id") @RequestParam Long id) {
+        User user = crudService.update(userRepository, User.class, id, u -> u.setAdmin(!u.getAdmin()));
+        adminStatusCache.put(user.getEmail(), user.getAdmin());
+        currentUserCache.invalidate(user.getEmail());
+        return user;
+    }
 }
\ No newline at end of file
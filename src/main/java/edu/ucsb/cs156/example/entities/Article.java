@@ -1,9 +1,12 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,9 +23,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity(name = "article")
-public class Article {
+public class Article implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "article_seq")
+  @SequenceGenerator(name = "article_seq", sequenceName = "ARTICLE_SEQ", allocationSize = 50)
   private long id;
 
   private String title;
@@ -30,4 +34,8 @@ public class Article {
   private String explanation;
   private String email;
   private LocalDateTime dateAdded;
+
+  @Version
+  @JsonIgnore
+  private long version;
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Optional;
+
+/**
+ * This is a JPA entity that represents the version of a whole collection
+ * of entities, e.g. all the ucsbdiningcommons.
+ *
+ * The version goes up by one as every write to the collection commits,
+ * or just after for a write outside a transaction (see
+ * CollectionVersionAspect), so a GET of the collection can be answered
+ * with 304 Not Modified by comparing the client's ETag with this one
+ * row, without reading the collection. The
+ * counter is in the database, so it survives restarts and is shared by
+ * every app node.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "collectionversions")
+public class CollectionVersion {
+  @Id
+  private String name;
+
+  private long version;
+
+  /**
+   * This method returns the name of the collection of an entity type.
+   * @param entityType the entity type
+   * @return the entity name, e.g. ucsbdiningcommons, or empty if the type is not a Versioned entity
+   */
+  public static Optional<String> nameOf(Class<?> entityType) {
+    Entity entity = entityType == null ? null : entityType.getAnnotation(Entity.class);
+    if (entity == null || !Versioned.class.isAssignableFrom(entityType)) {
+      return Optional.empty();
+    }
+    return Optional.of(entity.name().isEmpty() ? entityType.getSimpleName() : entity.name());
+  }
+}
@@ -1,9 +1,12 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,9 +19,10 @@ import java.time.LocalDateTime;
 @Builder
 @Entity(name = "helprequest")
 //Help Requests Entity
-public class HelpRequest {
+public class HelpRequest implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "helprequest_seq")
+  @SequenceGenerator(name = "helprequest_seq", sequenceName = "HELPREQUEST_SEQ", allocationSize = 50)
   private long id;
   
   private String requesterEmail;
@@ -27,5 +31,8 @@ public class HelpRequest {
   private LocalDateTime requestTime;
   private String explanation;
   private boolean solved;
-  
+
+  @Version
+  @JsonIgnore
+  private long version;
 }
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents the running totals of the
+ * MenuItemReviews for one menu item: how many reviews there are, the
+ * sum of their stars, and how many reviews gave each of 1 to 5 stars.
+ *
+ * The row is kept up to date in the same transaction as every review
+ * create, update and delete (see MenuItemRatingService).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemratingrollups")
+public class MenuItemRatingRollup {
+  @Id
+  private long itemId;
+
+  private long reviewCount;
+  private long starsSum;
+  private long stars1;
+  private long stars2;
+  private long stars3;
+  private long stars4;
+  private long stars5;
+
+  /**
+   * This method returns the mean star rating of the item.
+   * @return the average number of stars, or 0 when there are no reviews
+   */
+  public double getAverageStars() {
+    return reviewCount == 0 ? 0 : (double) starsSum / reviewCount;
+  }
+}
@@ -1,10 +1,13 @@
  
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,9 +25,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity(name = "menuitemreviews")
-public class MenuItemReviews {
+public class MenuItemReviews implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menuitemreviews_seq")
+  @SequenceGenerator(name = "menuitemreviews_seq", sequenceName = "MENUITEMREVIEWS_SEQ", allocationSize = 50)
 
   private long id;
 
@@ -33,4 +37,8 @@ public class MenuItemReviews {
   private int stars;
   private LocalDateTime dateReviewed;
   private String comments;
+
+  @Version
+  @JsonIgnore
+  private long version;
 }
@@ -1,9 +1,12 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,9 +23,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity(name = "recommendationrequest")
-public class RecommendationRequest {
+public class RecommendationRequest implements Versioned {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendationrequest_seq")
+    @SequenceGenerator(name = "recommendationrequest_seq", sequenceName = "RECOMMENDATIONREQUEST_SEQ", allocationSize = 50)
     private long id;
 
     private String requesterEmail;
@@ -31,4 +35,8 @@ public class RecommendationRequest {
     private LocalDateTime dateRequested;
     private LocalDateTime dateNeeded;
     private boolean done;
+
+    @Version
+    @JsonIgnore
+    private long version;
 }
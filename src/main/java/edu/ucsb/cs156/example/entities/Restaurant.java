@@ -1,13 +1,19 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * This is a JPA entity that represents a restaurant.
@@ -18,11 +24,18 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "restaurants")
-public class Restaurant {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurants")
+public class Restaurant implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurants_seq")
+  @SequenceGenerator(name = "restaurants_seq", sequenceName = "RESTAURANTS_SEQ", allocationSize = 50)
   private long id;
 
   private String name;
   private String description;
+
+  @Version
+  @JsonIgnore
+  private long version;
 }
\ No newline at end of file
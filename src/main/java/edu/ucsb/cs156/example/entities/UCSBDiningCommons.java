@@ -1,11 +1,16 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /** 
  * This is a JPA entity that represents a UCSBDiningCommons
@@ -18,7 +23,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsbdiningcommons")
-public class UCSBDiningCommons {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ucsbdiningcommons")
+public class UCSBDiningCommons implements Versioned {
   @Id
   private String code;
   private String name;
@@ -27,4 +34,8 @@ public class UCSBDiningCommons {
   private boolean hasDiningCam;
   private Double latitude;
   private Double longitude;
+
+  @Version
+  @JsonIgnore
+  private long version;
 }
\ No newline at end of file
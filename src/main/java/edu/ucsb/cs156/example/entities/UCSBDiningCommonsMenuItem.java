@@ -1,9 +1,12 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,12 +23,17 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsbdiningcommonsmenuitem")
-public class UCSBDiningCommonsMenuItem {
+public class UCSBDiningCommonsMenuItem implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ucsbdiningcommonsmenuitem_seq")
+  @SequenceGenerator(name = "ucsbdiningcommonsmenuitem_seq", sequenceName = "UCSBDININGCOMMONSMENUITEM_SEQ", allocationSize = 50)
   private long id;
 
   private String diningCommonsCode;
   private String name;
   private String station;
+
+  @Version
+  @JsonIgnore
+  private long version;
 }
\ No newline at end of file
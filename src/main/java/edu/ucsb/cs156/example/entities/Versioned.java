@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.entities;
+
+/**
+ * This is an interface for the entities that have an optimistic locking
+ * version (a {@code @Version} column).
+ *
+ * Hibernate adds one to the version every time it updates the row, and
+ * checks it in the WHERE clause of the UPDATE or DELETE, so a write based
+ * on a stale copy fails instead of overwriting a newer one. The version
+ * is not part of the JSON of the entity; it is sent as the ETag of the
+ * response and checked against the If-Match header of PUT, PATCH and
+ * DELETE requests.
+ */
+
+public interface Versioned {
+  /**
+   * This method returns the version of the entity.
+   * @return the number of times the row has been updated
+   */
+  long getVersion();
+}
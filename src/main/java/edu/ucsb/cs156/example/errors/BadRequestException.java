@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * that the body or parameters of a request could not be used, e.g. a bulk load whose
+ * body is not a JSON array.
+ */
+public class BadRequestException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param message what was wrong with the request
+   */
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
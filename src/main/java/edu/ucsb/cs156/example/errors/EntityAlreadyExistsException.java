@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * that a new entity could not be created because one with the same id already exists.
+ */
+public class EntityAlreadyExistsException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param entityType The class of the entity that already exists, e.g. UCSBDiningCommons.class
+   * @param id the id of the entity
+   */
+  public EntityAlreadyExistsException(Class<?> entityType, Object id) {
+    super("%s with id %s already exists"
+      .formatted(entityType.getSimpleName(), id.toString()));
+  }
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate
+ * that the If-Match header of a request does not match the current version of the entity,
+ * i.e. that the entity was changed since the client read it.
+ */
+public class PreconditionFailedException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   * 
+   * @param entityType The class of the entity that was changed, e.g. UCSBDate.class
+   * @param id the id of the entity
+   * @param ifMatch the version the client expected
+   */
+  public PreconditionFailedException(Class<?> entityType, Object id, long ifMatch) {
+    super("%s with id %s has been modified since version %d"
+      .formatted(entityType.getSimpleName(), id.toString(), ifMatch));
+  }
+
+  /**
+   * Constructor for the exception
+   * 
+   * @param message why the precondition failed
+   */
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import edu.ucsb.cs156.example.services.AccessLogWriter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This is a HandlerInterceptor that records every controller request in
+ * the access log (see AccessLogWriter).
+ *
+ * A request is logged if its route pattern matches one of
+ * {@code app.access-log.routes} (Ant patterns, e.g. {@code /api/**}), and
+ * then only a {@code app.access-log.sample-rate} fraction of them; server
+ * errors (5xx) are always logged. Whether a route is logged is decided once
+ * per route and remembered.
+ */
+
+@Component
+public class AccessLogInterceptor implements HandlerInterceptor {
+
+  static final String START_ATTRIBUTE = AccessLogInterceptor.class.getName() + ".START";
+
+  private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+  @Autowired
+  private AccessLogWriter accessLogWriter;
+
+  @Value("${app.access-log.routes:/api/**}")
+  private List<String> routes = new ArrayList<>();
+
+  @Value("${app.access-log.sample-rate:1.0}")
+  private double sampleRate;
+
+  private final Map<String, Boolean> enabledRoutes = new ConcurrentHashMap<>();
+  private final Map<HandlerMethod, String> handlerNames = new ConcurrentHashMap<>();
+
+  private static String route(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return pattern != null ? pattern.toString() : request.getRequestURI();
+  }
+
+  private boolean enabled(String route) {
+    return enabledRoutes.computeIfAbsent(route,
+        r -> routes.stream().anyMatch(pattern -> MATCHER.match(pattern, r)));
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // an async dispatch (e.g. an NDJSON stream) comes through again; keep the original start
+    if (handler instanceof HandlerMethod
+        && request.getAttribute(START_ATTRIBUTE) == null
+        && enabled(route(request))) {
+      request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    if (!(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+      return;
+    }
+    int status = response.getStatus();
+    if (status < 500 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    HandlerMethod method = (HandlerMethod) handler;
+    String name = handlerNames.computeIfAbsent(method,
+        m -> m.getBeanType().getSimpleName() + "." + m.getMethod().getName());
+    accessLogWriter.record(request.getMethod(), route(request), status, System.nanoTime() - start, name);
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a GET handler that returns (part of) a whole
+ * collection, e.g. {@code /api/ucsbdiningcommons/all}. The ETag of its
+ * responses is the CollectionVersion of the collection, and a request
+ * whose If-None-Match has that ETag is answered with 304 Not Modified
+ * without running the handler (see CollectionEtagAspect).
+ */
+
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CollectionEtag {
+  /**
+   * The entity type of the collection.
+   * @return a Versioned entity class, e.g. UCSBDiningCommons.class
+   */
+  Class<?> value();
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import edu.ucsb.cs156.example.entities.Versioned;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * This advice sets the ETag of every response whose body is a single
+ * versioned entity (e.g. a GET by id, a POST or a PUT) to the entity's
+ * version in quotes, e.g. {@code "3"}.
+ *
+ * A client sends that ETag back in the If-Match header of a PUT, PATCH
+ * or DELETE, and the write fails with 412 Precondition Failed if the
+ * entity has been changed since.
+ */
+
+@ControllerAdvice
+public class EntityVersionEtagAdvice implements ResponseBodyAdvice<Object> {
+
+  /**
+   * This method returns the ETag of a version.
+   * @param version the version of an entity
+   * @return the version in quotes
+   */
+  public static String etag(long version) {
+    return "\"" + version + "\"";
+  }
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (body instanceof Versioned entity) {
+      response.getHeaders().setETag(etag(entity.getVersion()));
+    }
+    return body;
+  }
+}
@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * When {@code app.query-stats.header} is true, this advice adds an
+ * {@code X-Query-Stats} header (e.g.
+ * {@code statements=3; rows=12; db-ms=1.234}) to every controller response.
+ *
+ * The header is added just before the body is written, after the
+ * controller has run its statements; it is not added to streamed
+ * responses.
+ */
+
+@ControllerAdvice
+public class QueryStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+  public static final String HEADER = "X-Query-Stats";
+
+  @Value("${app.query-stats.header:false}")
+  private boolean header;
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return header;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+    QueryStats stats = QueryStats.current();
+    if (stats != null) {
+      response.getHeaders().set(HEADER, stats.toString());
+    }
+    return body;
+  }
+}
@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+import edu.ucsb.cs156.example.services.QueryStatsReporter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * This is a HandlerInterceptor that counts the JDBC statements each
+ * controller request runs (see QueryStats) and reports them with
+ * QueryStatsReporter when the request completes.
+ *
+ * The stats are bound to the request thread while the controller runs.
+ * For an async request (e.g. an NDJSON stream) they are unbound when the
+ * request thread is released and bound again for the async dispatch;
+ * statements run on the streaming worker thread are not counted.
+ *
+ * Like the counting DataSource (see QueryStatsConfig), it is only present
+ * when {@code app.query-stats.enabled} is true.
+ */
+
+@Component
+@ConditionalOnProperty(name = "app.query-stats.enabled", matchIfMissing = true)
+public class QueryStatsInterceptor implements AsyncHandlerInterceptor {
+
+  static final String STATS_ATTRIBUTE = QueryStatsInterceptor.class.getName() + ".STATS";
+
+  @Autowired
+  private QueryStatsReporter queryStatsReporter;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (handler instanceof HandlerMethod) {
+      QueryStats stats = (QueryStats) request.getAttribute(STATS_ATTRIBUTE);
+      if (stats == null) {
+        stats = new QueryStats();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+      }
+      QueryStats.bind(stats);
+    }
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    QueryStats.unbind();
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    QueryStats.unbind();
+    if (request.getAttribute(STATS_ATTRIBUTE) instanceof QueryStats stats) {
+      request.removeAttribute(STATS_ATTRIBUTE);
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String route = pattern != null ? pattern.toString() : request.getRequestURI();
+      queryStatsReporter.report(request.getMethod(), route, stats);
+    }
+  }
+}
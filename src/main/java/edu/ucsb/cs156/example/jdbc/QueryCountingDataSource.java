@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+/**
+ * This is a DataSource that wraps the real one (the Hikari pool) and adds
+ * every statement run through it to the QueryStats bound to the current
+ * thread: one statement per execute call, the time spent in it, and one
+ * row per successful {@code ResultSet.next()}.
+ *
+ * Connections, statements and result sets are wrapped in JDK proxies.
+ * When no QueryStats is bound the statements run without timing, and
+ * their result sets are not wrapped.
+ */
+
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+  public QueryCountingDataSource(DataSource target) {
+    super(target);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return connection(obtainTargetDataSource().getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return connection(obtainTargetDataSource().getConnection(username, password));
+  }
+
+  private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+        new Class<?>[] { type }, (proxy, method, args) -> switch (method.getName()) {
+          case "equals" -> proxy == args[0];
+          case "hashCode" -> System.identityHashCode(proxy);
+          default -> handler.invoke(proxy, method, args);
+        }));
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static Connection connection(Connection target) {
+    return proxy(Connection.class, target, (proxy, method, args) -> {
+      Object result = invoke(target, method, args);
+      return switch (method.getName()) {
+        case "createStatement" -> statement(Statement.class, (Statement) result, null);
+        case "prepareStatement" -> statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+        case "prepareCall" -> statement(CallableStatement.class, (Statement) result, (String) args[0]);
+        default -> result;
+      };
+    });
+  }
+
+  private static <T extends Statement> T statement(Class<T> type, Statement target, String preparedSql) {
+    return proxy(type, target, (proxy, method, args) -> {
+      QueryStats stats = QueryStats.current();
+      if (stats == null) {
+        return invoke(target, method, args);
+      }
+      String name = method.getName();
+      if (name.startsWith("execute")) {
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+        long start = System.nanoTime();
+        try {
+          return resultSet(invoke(target, method, args), stats);
+        } finally {
+          stats.statement(sql, System.nanoTime() - start);
+        }
+      }
+      Object result = invoke(target, method, args);
+      return name.equals("getResultSet") || name.equals("getGeneratedKeys") ? resultSet(result, stats) : result;
+    });
+  }
+
+  private static Object resultSet(Object result, QueryStats stats) {
+    if (!(result instanceof ResultSet target)) {
+      return result;
+    }
+    return proxy(ResultSet.class, target, (proxy, method, args) -> {
+      Object next = invoke(target, method, args);
+      if (method.getName().equals("next") && Boolean.TRUE.equals(next)) {
+        stats.row();
+      }
+      return next;
+    });
+  }
+}
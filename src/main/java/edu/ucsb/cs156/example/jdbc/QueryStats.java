@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * This class holds the JDBC statistics for one HTTP request: how many
+ * statements it ran, how many rows it read, and how long the database
+ * took.
+ *
+ * The stats for a request are bound to the thread handling it (see
+ * QueryStatsInterceptor), and QueryCountingDataSource adds to whatever is
+ * bound. Statements run by a thread with nothing bound (startup, scheduled
+ * jobs, async workers) are not counted.
+ *
+ * Each statement is also counted by its shape: the SQL with literals and
+ * IN lists replaced by {@code ?}, so the same query for different ids is
+ * one shape. One shape run many times in a request is the signature of an
+ * N+1 query.
+ */
+
+public class QueryStats {
+
+  private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+  private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private int statements;
+  private long rows;
+  private long nanos;
+  private final Map<String, Integer> shapes = new HashMap<>();
+  private String mostRepeatedShape;
+  private int mostRepeatedCount;
+
+  /**
+   * This method returns the stats bound to the current thread.
+   * @return the stats, or null if nothing is bound
+   */
+  public static QueryStats current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * This method binds stats to the current thread.
+   * @param stats the stats to add to
+   */
+  public static void bind(QueryStats stats) {
+    CURRENT.set(stats);
+  }
+
+  /**
+   * This method unbinds the stats from the current thread.
+   */
+  public static void unbind() {
+    CURRENT.remove();
+  }
+
+  /**
+   * This method returns the shape of a SQL statement.
+   * @param sql the statement
+   * @return the statement with literals and IN lists replaced by ?, and whitespace collapsed
+   */
+  public static String shape(String sql) {
+    String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+    shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+    shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+    return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+  }
+
+  void statement(String sql, long durationNanos) {
+    statements++;
+    nanos += durationNanos;
+    String shape = sql != null ? shape(sql) : "(batch)";
+    int count = shapes.merge(shape, 1, Integer::sum);
+    if (count > mostRepeatedCount) {
+      mostRepeatedCount = count;
+      mostRepeatedShape = shape;
+    }
+  }
+
+  void row() {
+    rows++;
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * This method returns the statement shape that ran the most times.
+   * @return the shape, or null if no statements ran
+   */
+  public String getMostRepeatedShape() {
+    return mostRepeatedShape;
+  }
+
+  public int getMostRepeatedCount() {
+    return mostRepeatedCount;
+  }
+
+  /**
+   * This method returns the stats in the format of the X-Query-Stats header.
+   * @return e.g. {@code statements=3; rows=12; db-ms=1.234}
+   */
+  @Override
+  public String toString() {
+    return String.format("statements=%d; rows=%d; db-ms=%.3f", statements, rows, nanos / 1_000_000.0);
+  }
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Article;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents one result of an article search:
+ * the article and its relevance score (higher is better).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ArticleSearchHit {
+  private Article article;
+  private double score;
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+/**
+ * This is a model class that represents the outcome of fetching many rows by id.
+ *
+ * {@code items} holds the rows that exist, in the order their ids were
+ * requested (each id once); {@code missing} holds the requested ids that
+ * have no row, also in request order.
+ *
+ * @param <T> the type of the rows
+ * @param <ID> the type of their ids
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchResult<T, ID> {
+  private List<T> items;
+  private List<ID> missing;
+}
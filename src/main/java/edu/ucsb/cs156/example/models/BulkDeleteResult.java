@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents the outcome of a bulk delete.
+ *
+ * {@code requested} is the number of distinct ids asked for when deleting
+ * by id list (null when deleting by a condition); {@code deleted} is the
+ * number of rows the DELETE removed.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkDeleteResult {
+  private Integer requested;
+  private int deleted;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents one row of a bulk load that was
+ * not inserted.
+ *
+ * {@code row} is the zero-based position of the row in the request body.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkLoadFailure {
+  private int row;
+  private String message;
+}
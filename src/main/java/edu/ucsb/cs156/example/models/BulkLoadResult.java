@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a model class that represents the outcome of a bulk load.
+ *
+ * Rows that could not be loaded are listed in {@code failures}; every
+ * other row was inserted.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkLoadResult {
+  private int received;
+  private int inserted;
+  @Builder.Default
+  private List<BulkLoadFailure> failures = new ArrayList<>();
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents the dashboard: counts and recent
+ * items across the entities, one panel each, and how long the whole
+ * dashboard took to load.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class Dashboard {
+  private DashboardPanel<HelpRequest> openHelpRequests;
+  private DashboardPanel<RecommendationRequest> pendingRecommendationRequests;
+  private DashboardPanel<Article> newestArticles;
+  private DashboardPanel<UCSBDate> upcomingDates;
+  private DashboardPanel<MenuItemRatingRollup> topRatedMenuItems;
+  private double millis;
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * This is a model class that represents one section of the dashboard.
+ *
+ * {@code count} is the number of rows the section is about and
+ * {@code items} the first few of them; {@code millis} is how long the
+ * section took to load. If it failed or ran out of time, {@code count}
+ * and {@code items} are null and {@code error} says why.
+ *
+ * @param <T> the type of the items
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DashboardPanel<T> {
+  private Long count;
+  private List<T> items;
+  private double millis;
+  private String error;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * This is a model class that represents the menu of one dining commons:
+ * its stations in name order, each with its rated menu items.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DiningCommonsMenu {
+  private String diningCommonsCode;
+  private List<MenuStation> stations;
+}
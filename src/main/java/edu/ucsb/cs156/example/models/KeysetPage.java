@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+/**
+ * This is a model class that represents one page of a keyset (cursor) paginated listing.
+ *
+ * The rows are ordered by primary key; to fetch the next page, pass
+ * {@code nextCursor} back as the {@code after} parameter. A null
+ * {@code nextCursor} means that this is the last page.
+ *
+ * @param <T> the type of the rows in the page
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class KeysetPage<T> {
+  private List<T> items;
+  private Object nextCursor;
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents one menu item on a dining commons
+ * menu together with its rating: how many reviews it has and their
+ * average number of stars (0 when it has none).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MenuItemRating {
+  private long id;
+  private String station;
+  private String name;
+  private long reviewCount;
+  private double averageStars;
+}
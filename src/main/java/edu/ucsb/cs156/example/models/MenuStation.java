@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * This is a model class that represents one station of a dining commons
+ * menu and the rated menu items served there, in name order.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MenuStation {
+  private String station;
+  private List<MenuItemRating> items;
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+/**
+ * This is a model class that represents one GET in a batch (POST /api/batch).
+ *
+ * {@code url} is the path and query string of the request, e.g.
+ * {@code /api/ucsbdates/all?limit=10}.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SubRequest {
+  private String url;
+}
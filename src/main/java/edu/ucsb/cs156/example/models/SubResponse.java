@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+import java.util.Map;
+
+/**
+ * This is a model class that represents the response to one GET in a batch.
+ *
+ * {@code body} is the JSON the endpoint returned (as JSON, not as a
+ * string), or its text if it was not JSON, or null if it was empty.
+ * {@code headers} are the response headers, e.g. the ETag.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SubResponse {
+  private String url;
+  private int status;
+  private Map<String, String> headers;
+  private Object body;
+}
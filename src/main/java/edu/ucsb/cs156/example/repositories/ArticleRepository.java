@@ -3,13 +3,63 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.Article;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The ArticleRepository is a repository for Articles entities
  */
 @Repository
-public interface ArticleRepository extends CrudRepository<Article, String> {
- 
-}
\ No newline at end of file
+public interface ArticleRepository extends CrudRepository<Article, String>, PagingAndSortingRepository<Article, String> {
+  /**
+   * This method returns the next keyset page of Article entities, ordered by id.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  List<Article> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all Article entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all Article entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<Article> streamAllByOrderByIdAsc();
+
+  /**
+   * This method returns the articles with the given ids, in no particular order.
+   * @param ids the article ids
+   * @return the articles that exist
+   */
+  List<Article> findByIdIn(Collection<Long> ids);
+
+  /**
+   * This method deletes the articles with the given ids in a single DELETE.
+   * @param ids the article ids
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Query("delete from article a where a.id in :ids")
+  int deleteByIdIn(Collection<Long> ids);
+
+  /**
+   * This method returns the most recently added articles.
+   * @param limit maximum number of entities to return
+   * @return up to limit articles, newest dateAdded first
+   */
+  List<Article> findAllByOrderByDateAddedDesc(Limit limit);
+}
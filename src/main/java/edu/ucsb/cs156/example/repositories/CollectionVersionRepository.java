@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * The CollectionVersionRepository is a repository for CollectionVersion entities.
+ */
+
+@Repository
+public interface CollectionVersionRepository extends CrudRepository<CollectionVersion, String> {
+  /**
+   * This method returns the version of a collection, without loading the entity.
+   * @param name the entity name of the collection, e.g. ucsbdiningcommons
+   * @return the version, if the collection has a counter
+   */
+  @Query("select c.version from collectionversions c where c.name = :name")
+  Optional<Long> findVersionByName(String name);
+
+  /**
+   * This method adds one to the version of a collection with a single
+   * UPDATE. It joins the caller's transaction, so the new version commits
+   * (or rolls back) with the write that caused it. The pending changes of
+   * the transaction are flushed first, so their row locks are taken before
+   * the counter's.
+   * @param name the entity name of the collection, e.g. ucsbdiningcommons
+   * @return the number of rows updated (0 if the collection has no counter)
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true)
+  @Query("update collectionversions c set c.version = c.version + 1 where c.name = :name")
+  int increment(String name);
+}
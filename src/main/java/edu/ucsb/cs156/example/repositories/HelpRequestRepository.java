@@ -2,14 +2,96 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The HelpRequestRepository is a repository for HelpRequest entities.
  */
 
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-  
-}
\ No newline at end of file
+public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long>, PagingAndSortingRepository<HelpRequest, Long> {
+  /**
+   * This method returns the next keyset page of HelpRequest entities, ordered by id.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  List<HelpRequest> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all HelpRequest entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all HelpRequest entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<HelpRequest> streamAllByOrderByIdAsc();
+
+  /**
+   * This method sets the solved flag of a HelpRequest with a single UPDATE,
+   * without loading it. The version is incremented as well.
+   * @param id the id of the HelpRequest
+   * @param solved the new value of the flag
+   * @return the number of rows updated (0 if there is no HelpRequest with the id)
+   */
+  @Modifying
+  @Query("update helprequest h set h.solved = :solved, h.version = h.version + 1 where h.id = :id")
+  int updateSolved(long id, boolean solved);
+
+  /**
+   * This method sets the solved flag of a HelpRequest with a single UPDATE,
+   * without loading it, if it is still at the given version.
+   * @param id the id of the HelpRequest
+   * @param solved the new value of the flag
+   * @param version the version the client read
+   * @return the number of rows updated (0 if there is no HelpRequest with the id at that version)
+   */
+  @Modifying
+  @Query("update helprequest h set h.solved = :solved, h.version = h.version + 1 where h.id = :id and h.version = :version")
+  int updateSolved(long id, boolean solved, long version);
+
+  /**
+   * This method deletes the HelpRequest entities with the given ids in a single DELETE.
+   * @param ids the ids
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Query("delete from helprequest h where h.id in :ids")
+  int deleteByIdIn(Collection<Long> ids);
+
+  /**
+   * This method deletes every solved HelpRequest made before a time in a single DELETE.
+   * @param before exclusive upper bound on the requestTime
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Query("delete from helprequest h where h.solved = true and h.requestTime < :before")
+  int deleteSolvedBefore(LocalDateTime before);
+
+  /**
+   * This method counts the HelpRequest entities that are not solved yet.
+   * @return the number of open help requests
+   */
+  long countBySolvedFalse();
+
+  /**
+   * This method returns the newest HelpRequest entities that are not solved yet.
+   * @param limit maximum number of entities to return
+   * @return up to limit open help requests, newest requestTime first
+   */
+  List<HelpRequest> findBySolvedFalseOrderByRequestTimeDesc(Limit limit);
+}
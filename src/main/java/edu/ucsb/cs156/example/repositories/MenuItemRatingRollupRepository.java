@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The MenuItemRatingRollupRepository is a repository for MenuItemRatingRollup entities.
+ */
+
+@Repository
+public interface MenuItemRatingRollupRepository extends CrudRepository<MenuItemRatingRollup, Long> {
+  /**
+   * This method returns the rollup for an item, locked for update until the
+   * end of the transaction, so that concurrent review changes do not lose updates.
+   * @param itemId the menu item id
+   * @return the rollup, if there is one
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemRatingRollup> findLockedByItemId(long itemId);
+
+  /**
+   * This method creates an empty rollup for an item unless it already has one.
+   * Unlike a select followed by an insert, it does not fail when another
+   * transaction creates the same rollup at the same time.
+   * @param itemId the menu item id
+   * @return 1 if the rollup was created, 0 if it already existed
+   */
+  @Modifying
+  @Query("""
+      insert into menuitemratingrollups (itemId, reviewCount, starsSum, stars1, stars2, stars3, stars4, stars5)
+      values (:itemId, 0, 0, 0, 0, 0, 0, 0)
+      on conflict do nothing
+      """)
+  int insertIfAbsent(long itemId);
+
+  /**
+   * This method deletes the rollups of items that no longer have any reviews.
+   * @return the number of rollups deleted
+   */
+  @Modifying
+  @Query("delete from menuitemratingrollups r where r.itemId not in (select v.itemId from menuitemreviews v)")
+  int deleteOrphans();
+
+  /**
+   * This method returns the rollups of the items with the highest average
+   * rating; ties go to the item with more reviews.
+   * @param limit maximum number of rollups to return
+   * @return up to limit rollups of reviewed items, highest average first
+   */
+  @Query("select r from menuitemratingrollups r where r.reviewCount > 0 order by 1.0 * r.starsSum / r.reviewCount desc, r.reviewCount desc, r.itemId asc")
+  List<MenuItemRatingRollup> findTopRated(Limit limit);
+
+  /**
+   * This method counts the items with more than a number of reviews.
+   * @param reviewCount exclusive lower bound on the number of reviews
+   * @return the number of such items
+   */
+  long countByReviewCountGreaterThan(long reviewCount);
+}
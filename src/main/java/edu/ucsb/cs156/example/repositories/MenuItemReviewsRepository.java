@@ -1,16 +1,69 @@
  
 package edu.ucsb.cs156.example.repositories;
 
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
 import edu.ucsb.cs156.example.entities.MenuItemReviews;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The MenuItemReviewsRepository is a repository for MenuItemReviews entities.
  */
 
 @Repository
-public interface MenuItemReviewsRepository extends CrudRepository<MenuItemReviews, Long> {
+public interface MenuItemReviewsRepository extends CrudRepository<MenuItemReviews, Long>, PagingAndSortingRepository<MenuItemReviews, Long> {
+  /**
+   * This method returns the next keyset page of MenuItemReviews entities, ordered by id.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  List<MenuItemReviews> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all MenuItemReviews entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all MenuItemReviews entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<MenuItemReviews> streamAllByOrderByIdAsc();
+
+  /**
+   * This method returns the ids of all items that have at least one review.
+   * @return the distinct item ids, in ascending order
+   */
+  @Query("select distinct r.itemId from menuitemreviews r order by r.itemId")
+  List<Long> findDistinctItemIds();
 
+  /**
+   * This method recomputes the rating rollups of the given items from their reviews.
+   * @param itemIds the item ids
+   * @return one rollup per item that has reviews
+   */
+  @Query("""
+      select new edu.ucsb.cs156.example.entities.MenuItemRatingRollup(
+        r.itemId, count(r), sum(r.stars),
+        sum(case when r.stars = 1 then 1 else 0 end),
+        sum(case when r.stars = 2 then 1 else 0 end),
+        sum(case when r.stars = 3 then 1 else 0 end),
+        sum(case when r.stars = 4 then 1 else 0 end),
+        sum(case when r.stars = 5 then 1 else 0 end))
+      from menuitemreviews r
+      where r.itemId in :itemIds
+      group by r.itemId
+      """)
+  List<MenuItemRatingRollup> aggregateRatingsByItemIdIn(Collection<Long> itemIds);
 }
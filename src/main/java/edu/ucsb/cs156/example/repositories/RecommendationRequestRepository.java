@@ -1,14 +1,77 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The RecommendationRequestRepository is a repository for RecommendationRequest entities.
  */
 
-public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long>{
+public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long>, PagingAndSortingRepository<RecommendationRequest, Long>{
+  /**
+   * This method returns the next keyset page of RecommendationRequest entities, ordered by id.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  List<RecommendationRequest> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all RecommendationRequest entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all RecommendationRequest entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<RecommendationRequest> streamAllByOrderByIdAsc();
+
+  /**
+   * This method sets the done flag of a RecommendationRequest with a single
+   * UPDATE, without loading it. The version is incremented as well.
+   * @param id the id of the RecommendationRequest
+   * @param done the new value of the flag
+   * @return the number of rows updated (0 if there is no RecommendationRequest with the id)
+   */
+  @Modifying
+  @Query("update recommendationrequest r set r.done = :done, r.version = r.version + 1 where r.id = :id")
+  int updateDone(long id, boolean done);
+
+  /**
+   * This method sets the done flag of a RecommendationRequest with a single
+   * UPDATE, without loading it, if it is still at the given version.
+   * @param id the id of the RecommendationRequest
+   * @param done the new value of the flag
+   * @param version the version the client read
+   * @return the number of rows updated (0 if there is no RecommendationRequest with the id at that version)
+   */
+  @Modifying
+  @Query("update recommendationrequest r set r.done = :done, r.version = r.version + 1 where r.id = :id and r.version = :version")
+  int updateDone(long id, boolean done, long version);
+
+  /**
+   * This method counts the RecommendationRequest entities that are not done yet.
+   * @return the number of pending recommendation requests
+   */
+  long countByDoneFalse();
 
+  /**
+   * This method returns the RecommendationRequest entities that are not done
+   * yet and are needed soonest.
+   * @param limit maximum number of entities to return
+   * @return up to limit pending recommendation requests, earliest dateNeeded first
+   */
+  List<RecommendationRequest> findByDoneFalseOrderByDateNeededAsc(Limit limit);
 }
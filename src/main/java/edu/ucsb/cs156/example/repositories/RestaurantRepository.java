@@ -2,12 +2,48 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The RestaurantRepository is a repository for Restaurant entities
  */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+public interface RestaurantRepository extends CrudRepository<Restaurant, Long>, PagingAndSortingRepository<Restaurant, Long> {
+  /**
+   * This method returns all Restaurant entities. The result is kept in the query cache
+   * until the table is next written.
+   * @return all Restaurant entities
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<Restaurant> findAll();
+
+  /**
+   * This method returns the next keyset page of Restaurant entities, ordered by id.
+   * The page is kept in the query cache until the table is next written.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<Restaurant> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all Restaurant entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all Restaurant entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<Restaurant> streamAllByOrderByIdAsc();
 }
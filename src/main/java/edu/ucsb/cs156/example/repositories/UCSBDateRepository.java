@@ -2,19 +2,100 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The UCSBDateRepository is a repository for UCSBDate entities.
  */
 
 @Repository
-public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long>, PagingAndSortingRepository<UCSBDate, Long> {
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    * @param quarterYYYYQ quarter in the format YYYYQ (e.g. 20241 for Winter 2024, 20242 for Spring 2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
-}
\ No newline at end of file
+
+  /**
+   * This method returns the UCSBDate entities in one quarter, in date order.
+   * It is served by the (QUARTERYYYYQ, LOCAL_DATE_TIME) index.
+   * @param quarterYYYYQ quarter in the format YYYYQ
+   * @return the UCSBDate entities in the quarter, ordered by localDateTime
+   */
+  List<UCSBDate> findByQuarterYYYYQOrderByLocalDateTimeAsc(String quarterYYYYQ);
+
+  /**
+   * This method returns the UCSBDate entities in a range of quarters, in date order.
+   * YYYYQ strings sort in the same order as the quarters they name, so this is a
+   * range scan of the (QUARTERYYYYQ, LOCAL_DATE_TIME) index.
+   * @param from first quarter in the range, in the format YYYYQ (inclusive)
+   * @param to last quarter in the range, in the format YYYYQ (inclusive)
+   * @return the UCSBDate entities in the range, ordered by localDateTime
+   */
+  List<UCSBDate> findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc(String from, String to);
+
+  /**
+   * This method returns the next keyset page of UCSBDate entities, ordered by id.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all UCSBDate entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all UCSBDate entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<UCSBDate> streamAllByOrderByIdAsc();
+
+  /**
+   * This method deletes the UCSBDate entities with the given ids in a single DELETE.
+   * @param ids the ids
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Query("delete from ucsbdates d where d.id in :ids")
+  int deleteByIdIn(Collection<Long> ids);
+
+  /**
+   * This method deletes every UCSBDate in a quarter in a single DELETE.
+   * @param quarterYYYYQ quarter in the format YYYYQ
+   * @return the number of rows deleted
+   */
+  @Modifying
+  @Query("delete from ucsbdates d where d.quarterYYYYQ = :quarterYYYYQ")
+  int deleteByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method counts the UCSBDate entities on or after a time.
+   * @param from inclusive lower bound on the localDateTime
+   * @return the number of upcoming dates
+   */
+  long countByLocalDateTimeGreaterThanEqual(LocalDateTime from);
+
+  /**
+   * This method returns the first UCSBDate entities on or after a time.
+   * @param from inclusive lower bound on the localDateTime
+   * @param limit maximum number of entities to return
+   * @return up to limit upcoming dates, soonest first
+   */
+  List<UCSBDate> findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAsc(LocalDateTime from, Limit limit);
+}
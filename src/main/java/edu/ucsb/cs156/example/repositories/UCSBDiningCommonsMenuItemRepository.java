@@ -1,15 +1,61 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.MenuItemRating;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The UCSBDiningCommonsMenuItemRepository is a repository for UCSBDiningCommonsMenuItem entities
  */
 @Repository
-public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
- 
-}
\ No newline at end of file
+public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long>, PagingAndSortingRepository<UCSBDiningCommonsMenuItem, Long> {
+  /**
+   * This method returns the next keyset page of UCSBDiningCommonsMenuItem entities, ordered by id.
+   * @param after exclusive lower bound on the id (the last id of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose id is greater than after
+   */
+  List<UCSBDiningCommonsMenuItem> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+  /**
+   * This method streams all UCSBDiningCommonsMenuItem entities in id order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all UCSBDiningCommonsMenuItem entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<UCSBDiningCommonsMenuItem> streamAllByOrderByIdAsc();
+
+  /**
+   * This method returns the menu items of one dining commons with their ratings,
+   * in one query: the items are joined to their rating rollups (see
+   * MenuItemRatingService), so no reviews are read. Items without reviews
+   * have a reviewCount and averageStars of 0.
+   * @param diningCommonsCode the code of the dining commons
+   * @return the rated menu items, ordered by station, then name, then id
+   */
+  @Query("""
+      select new edu.ucsb.cs156.example.models.MenuItemRating(
+        m.id, m.station, m.name,
+        coalesce(r.reviewCount, 0L),
+        coalesce(1.0 * r.starsSum / r.reviewCount, 0.0))
+      from ucsbdiningcommonsmenuitem m
+      left join menuitemratingrollups r on r.itemId = m.id and r.reviewCount > 0
+      where m.diningCommonsCode = :diningCommonsCode
+      order by m.station, m.name, m.id
+      """)
+  List<MenuItemRating> findMenuWithRatings(String diningCommonsCode);
+}
@@ -3,13 +3,48 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities
  */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String>, PagingAndSortingRepository<UCSBDiningCommons, String> {
+  /**
+   * This method returns all UCSBDiningCommons entities. The result is kept in the query cache
+   * until the table is next written.
+   * @return all UCSBDiningCommons entities
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBDiningCommons> findAll();
+
+  /**
+   * This method returns the next keyset page of UCSBDiningCommons entities, ordered by code.
+   * The page is kept in the query cache until the table is next written.
+   * @param after exclusive lower bound on the code (the last code of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose code is greater than after
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String after, Limit limit);
+
+  /**
+   * This method streams all UCSBDiningCommons entities in code order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all UCSBDiningCommons entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<UCSBDiningCommons> streamAllByOrderByCodeAsc();
+}
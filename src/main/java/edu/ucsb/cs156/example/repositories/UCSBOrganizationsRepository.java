@@ -2,12 +2,47 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /* The UCSBOrganizationRepository is a repository for UCSBOrganization entities
 */
 @Repository
-public interface UCSBOrganizationsRepository extends CrudRepository<UCSBOrganizations, String> {
+public interface UCSBOrganizationsRepository extends CrudRepository<UCSBOrganizations, String>, PagingAndSortingRepository<UCSBOrganizations, String> {
+  /**
+   * This method returns all UCSBOrganizations entities. The result is kept in the query cache
+   * until the table is next written.
+   * @return all UCSBOrganizations entities
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBOrganizations> findAll();
+
+  /**
+   * This method returns the next keyset page of UCSBOrganizations entities, ordered by orgCode.
+   * The page is kept in the query cache until the table is next written.
+   * @param after exclusive lower bound on the orgCode (the last orgCode of the previous page)
+   * @param limit maximum number of entities to return
+   * @return up to limit entities whose orgCode is greater than after
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<UCSBOrganizations> findByOrgCodeGreaterThanOrderByOrgCodeAsc(String after, Limit limit);
 
+  /**
+   * This method streams all UCSBOrganizations entities in orgCode order, fetching rows from
+   * the database in batches rather than all at once. The stream must be
+   * consumed inside a transaction and closed afterwards.
+   * @return a stream of all UCSBOrganizations entities
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<UCSBOrganizations> streamAllByOrderByOrgCodeAsc();
 }
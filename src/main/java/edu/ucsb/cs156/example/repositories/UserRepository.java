@@ -4,6 +4,8 @@ import edu.ucsb.cs156.example.entities.User;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,4 +19,11 @@ public interface UserRepository extends CrudRepository<User, Long> {
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method returns the User entities with any of the given emails.
+   * @param emails email addresses of the users
+   * @return the users that exist, in no particular order
+   */
+  List<User> findByEmailIn(Collection<String> emails);
 }
@@ -0,0 +1,172 @@
+package edu.ucsb.cs156.example.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * This is the writer behind the access log: a fixed-size ring buffer that
+ * request threads copy entries into, and a background thread that formats
+ * them and writes them to the {@code access} logger.
+ *
+ * The slots are allocated once, so recording an entry allocates nothing
+ * and never blocks. If the buffer is full (the writer has fallen more
+ * than {@code app.access-log.buffer-size} entries behind) the entry is
+ * dropped and counted by the {@code accesslog.dropped} counter. The
+ * writer thread starts when the application is ready, and the buffer is
+ * drained when the application stops.
+ *
+ * Each line is {@code key=value} pairs:
+ * {@code time=... method=GET route=/api/ucsbdates status=200 durationMs=1.234 handler=UCSBDatesController.getById}.
+ */
+
+@Slf4j
+@Service
+public class AccessLogWriter {
+
+  private static final Logger ACCESS = LoggerFactory.getLogger("access");
+
+  private static final class Slot {
+    volatile long sequence = -1;
+    long epochMillis;
+    String method;
+    String route;
+    int status;
+    long durationNanos;
+    String handler;
+  }
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${app.access-log.buffer-size:8192}")
+  private int bufferSize;
+
+  Consumer<String> sink = ACCESS::info;
+
+  private Slot[] slots;
+  private int mask;
+  private final AtomicLong head = new AtomicLong();
+  private volatile long tail;
+  private Counter dropped;
+  private Thread writer;
+  private volatile boolean running;
+
+  @PostConstruct
+  void init() {
+    int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+    slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+    mask = capacity - 1;
+    dropped = Counter.builder("accesslog.dropped")
+        .description("access log entries dropped because the buffer was full")
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  void start() {
+    running = true;
+    writer = new Thread(this::run, "access-log-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    if (writer != null) {
+      LockSupport.unpark(writer);
+      writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    drain();
+  }
+
+  /**
+   * This method records one request.
+   * @param method the HTTP method
+   * @param route the route pattern that matched, e.g. /api/ucsbdates
+   * @param status the response status
+   * @param durationNanos how long the request took
+   * @param handler the controller method that handled it, e.g. UCSBDatesController.getById
+   * @return whether the entry was recorded (false if the buffer was full)
+   */
+  public boolean record(String method, String route, int status, long durationNanos, String handler) {
+    long sequence;
+    do {
+      sequence = head.get();
+      if (sequence - tail >= slots.length) {
+        dropped.increment();
+        return false;
+      }
+    } while (!head.compareAndSet(sequence, sequence + 1));
+
+    Slot slot = slots[(int) sequence & mask];
+    slot.epochMillis = System.currentTimeMillis();
+    slot.method = method;
+    slot.route = route;
+    slot.status = status;
+    slot.durationNanos = durationNanos;
+    slot.handler = handler;
+    slot.sequence = sequence;
+    return true;
+  }
+
+  /**
+   * This method writes every entry that has been recorded so far.
+   * @return the number of entries written
+   */
+  int drain() {
+    int written = 0;
+    StringBuilder line = new StringBuilder(160);
+    for (long next = tail; ; next++) {
+      Slot slot = slots[(int) next & mask];
+      if (slot.sequence != next) {
+        return written;
+      }
+      line.setLength(0);
+      line.append("time=").append(Instant.ofEpochMilli(slot.epochMillis))
+          .append(" method=").append(slot.method)
+          .append(" route=").append(slot.route)
+          .append(" status=").append(slot.status)
+          .append(" durationMs=").append(slot.durationNanos / 1_000_000).append('.')
+          .append(String.format("%03d", slot.durationNanos / 1_000 % 1_000))
+          .append(" handler=").append(slot.handler);
+      slot.method = null;
+      slot.route = null;
+      slot.handler = null;
+      tail = next + 1;
+      sink.accept(line.toString());
+      written++;
+    }
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        if (drain() == 0) {
+          LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+      } catch (RuntimeException e) {
+        log.warn("writing the access log failed", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * This is a cache of whether a user is an admin, shared by the OAuth
+ * authority mapper in SecurityConfig and by CurrentUserServiceImpl.
+ *
+ * Emails in {@code app.admin.emails} are kept in a HashSet and are always
+ * admins. For everyone else the admin flag is read from the users table
+ * and remembered for {@code app.admin-status.ttl}, so a burst of logins
+ * does not query the table once per login. Changes made through the API
+ * are written to the cache with {@link #put(String, boolean)} and show up
+ * at once; changes made directly in the database show up within the TTL.
+ */
+
+@Service
+public class AdminStatusCache {
+
+  private record Entry(boolean admin, long expiresAt) {
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Value("${app.admin.emails}")
+  private List<String> adminEmails = new ArrayList<>();
+
+  @Value("${app.admin-status.ttl:60s}")
+  private Duration ttl;
+
+  LongSupplier clock = System::nanoTime;
+
+  private Set<String> configuredAdmins = Set.of();
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void init() {
+    configuredAdmins = new HashSet<>(adminEmails);
+  }
+
+  /**
+   * This method returns whether an email is listed in {@code app.admin.emails}.
+   * @param email email address of the user
+   * @return whether the email is a configured admin
+   */
+  public boolean isConfiguredAdmin(String email) {
+    return configuredAdmins.contains(email);
+  }
+
+  /**
+   * This method returns whether the user with the given email is an admin,
+   * either because the email is configured as an admin or because the
+   * user's admin flag is set.
+   * @param email email address of the user
+   * @return whether the user is an admin
+   */
+  public boolean isAdmin(String email) {
+    if (isConfiguredAdmin(email)) {
+      return true;
+    }
+    long now = clock.getAsLong();
+    Entry entry = entries.get(email);
+    if (entry != null && now - entry.expiresAt() < 0) {
+      return entry.admin();
+    }
+    boolean admin = userRepository.findByEmail(email).map(User::getAdmin).orElse(false);
+    entries.put(email, new Entry(admin, now + ttl.toNanos()));
+    return admin;
+  }
+
+  /**
+   * This method records the admin flag of a user that was just written.
+   * @param email email address of the user
+   * @param admin the user's admin flag
+   */
+  public void put(String email, boolean admin) {
+    entries.put(email, new Entry(admin, clock.getAsLong() + ttl.toNanos()));
+  }
+}
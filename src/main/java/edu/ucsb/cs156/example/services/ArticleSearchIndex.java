@@ -0,0 +1,313 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * This is an in-memory inverted index over the title and explanation of
+ * every Article, ranked with BM25.
+ *
+ * Text is lower-cased and split on anything that is not a letter or a
+ * digit; words in the title count twice. The index is rebuilt from the
+ * database when the application starts, and kept current by
+ * ArticlesController calling {@link #index(Article)} and
+ * {@link #remove(long)} after each write. Searches share a read lock;
+ * updates take the write lock. Updates made while a rebuild is running
+ * are recorded and replayed onto the new index before it is swapped in,
+ * so they are not lost.
+ *
+ * Size and query latency are published to the MeterRegistry as
+ * {@code articles.search.index.*} gauges and the
+ * {@code articles.search.latency} timer.
+ */
+
+@Slf4j
+@Service
+public class ArticleSearchIndex {
+
+  static final double K1 = 1.2;
+  static final double B = 0.75;
+  static final int TITLE_WEIGHT = 2;
+
+  /**
+   * One search result: the id of an article and its BM25 score.
+   *
+   * @param id the article id
+   * @param score the BM25 score; higher is better
+   */
+  public record Hit(long id, double score) {
+  }
+
+  private static final Comparator<Hit> RANKING =
+      Comparator.comparingDouble(Hit::score).thenComparing(Hit::id, Comparator.reverseOrder());
+
+  private record Document(Map<String, Integer> termFrequencies, int length) {
+  }
+
+  private static class Postings {
+    final Map<String, Map<Long, Integer>> byTerm = new HashMap<>();
+    final Map<Long, Document> documents = new HashMap<>();
+    long totalLength;
+    long postingCount;
+    long termChars;
+
+    void add(long id, Document document) {
+      documents.put(id, document);
+      totalLength += document.length();
+      document.termFrequencies().forEach((term, tf) -> {
+        Map<Long, Integer> docs = byTerm.computeIfAbsent(term, t -> {
+          termChars += t.length();
+          return new HashMap<>();
+        });
+        docs.put(id, tf);
+        postingCount++;
+      });
+    }
+
+    void remove(long id) {
+      Document document = documents.remove(id);
+      if (document == null) {
+        return;
+      }
+      totalLength -= document.length();
+      document.termFrequencies().keySet().forEach(term -> {
+        Map<Long, Integer> docs = byTerm.get(term);
+        docs.remove(id);
+        postingCount--;
+        if (docs.isEmpty()) {
+          byTerm.remove(term);
+          termChars -= term.length();
+        }
+      });
+    }
+
+    /* rough heap footprint: HashMap entries, boxed keys and values, and term strings */
+    long estimatedBytes() {
+      return byTerm.size() * 96L + termChars + postingCount * 64L + documents.size() * 128L;
+    }
+  }
+
+  @Autowired
+  private ArticleRepository articleRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private Postings postings = new Postings();
+  /* updates made since the running rebuild started, or null when no rebuild is running; guarded by lock */
+  private List<Consumer<Postings>> pending;
+  private Timer searchTimer;
+
+  @PostConstruct
+  void registerMetrics() {
+    gauge("articles.search.index.documents", "articles in the search index", p -> p.documents.size());
+    gauge("articles.search.index.terms", "distinct terms in the search index", p -> p.byTerm.size());
+    gauge("articles.search.index.postings", "(term, article) pairs in the search index", p -> p.postingCount);
+    gauge("articles.search.index.memory", "estimated heap used by the search index", Postings::estimatedBytes);
+    searchTimer = Timer.builder("articles.search.latency")
+        .description("time to rank articles for a search")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+
+  private void gauge(String name, String description, ToDoubleFunction<Postings> value) {
+    Gauge.builder(name, this, index -> index.read(value))
+        .description(description)
+        .baseUnit(name.endsWith("memory") ? "bytes" : null)
+        .register(meterRegistry);
+  }
+
+  private double read(ToDoubleFunction<Postings> value) {
+    lock.readLock().lock();
+    try {
+      return value.applyAsDouble(postings);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method splits text into lower-case words.
+   * @param text the text; may be null
+   * @return the words, in order, with repeats
+   */
+  static List<String> tokenize(String text) {
+    if (text == null) {
+      return List.of();
+    }
+    return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+        .filter(token -> !token.isEmpty())
+        .toList();
+  }
+
+  private static Document document(Article article) {
+    Map<String, Integer> termFrequencies = new HashMap<>();
+    tokenize(article.getTitle()).forEach(term -> termFrequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+    tokenize(article.getExplanation()).forEach(term -> termFrequencies.merge(term, 1, Integer::sum));
+    int length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+    return new Document(termFrequencies, length);
+  }
+
+  /**
+   * This method adds an article to the index, replacing any earlier version of it.
+   * @param article the article
+   */
+  public void index(Article article) {
+    long id = article.getId();
+    Document document = document(article);
+    update(p -> {
+      p.remove(id);
+      p.add(id, document);
+    });
+  }
+
+  /**
+   * This method removes an article from the index.
+   * @param id the id of the article
+   */
+  public void remove(long id) {
+    update(p -> p.remove(id));
+  }
+
+  private void update(Consumer<Postings> change) {
+    lock.writeLock().lock();
+    try {
+      change.accept(postings);
+      if (pending != null) {
+        pending.add(change);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * This method rebuilds the index from the article table and then swaps
+   * it in, so searches keep using the old index while it is built.
+   * Updates made meanwhile are replayed onto the new index before the swap;
+   * since they only replace or remove whole articles, replaying one that
+   * the table read already saw does no harm.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    Postings fresh = new Postings();
+    // start recording before the table is read, so that every update is
+    // either in what the read sees or in pending (or both)
+    lock.writeLock().lock();
+    try {
+      pending = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      transaction.executeWithoutResult(status -> {
+        try (Stream<Article> articles = articleRepository.streamAllByOrderByIdAsc()) {
+          articles.forEach(article -> {
+            fresh.add(article.getId(), document(article));
+            entityManager.detach(article);
+          });
+        }
+      });
+    } catch (RuntimeException e) {
+      // keep the old index, which has every update applied to it
+      lock.writeLock().lock();
+      try {
+        pending = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+    int replayed;
+    lock.writeLock().lock();
+    try {
+      replayed = pending.size();
+      pending.forEach(change -> change.accept(fresh));
+      pending = null;
+      postings = fresh;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("article search index rebuilt: {} articles, {} terms, {} updates replayed",
+        fresh.documents.size(), fresh.byTerm.size(), replayed);
+  }
+
+  /**
+   * This method returns the k articles that best match a query, best first.
+   * @param query the words to look for
+   * @param k the maximum number of results
+   * @return up to k hits, in descending order of score
+   */
+  public List<Hit> search(String query, int k) {
+    return searchTimer.record(() -> rank(tokenize(query).stream().distinct().toList(), k));
+  }
+
+  private List<Hit> rank(List<String> terms, int k) {
+    Map<Long, Double> scores = new HashMap<>();
+    lock.readLock().lock();
+    try {
+      int n = postings.documents.size();
+      double averageLength = n == 0 ? 0 : (double) postings.totalLength / n;
+      for (String term : terms) {
+        Map<Long, Integer> docs = postings.byTerm.getOrDefault(term, Map.of());
+        double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+        docs.forEach((id, tf) -> {
+          int length = postings.documents.get(id).length();
+          double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+          scores.merge(id, score, Double::sum);
+        });
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    // keep only the best k in a min-heap, so this is O(matches * log k)
+    PriorityQueue<Hit> best = new PriorityQueue<>(k + 1, RANKING);
+    scores.forEach((id, score) -> {
+      best.offer(new Hit(id, score));
+      if (best.size() > k) {
+        best.poll();
+      }
+    });
+    List<Hit> hits = new ArrayList<>(best);
+    hits.sort(RANKING.reversed());
+    return hits;
+  }
+}
@@ -0,0 +1,244 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Versioned;
+import edu.ucsb.cs156.example.errors.EntityAlreadyExistsException;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This is the transaction boundary for the CRUD controllers: each
+ * method runs in a single transaction, so a request that reads and then
+ * writes an entity does it on one connection and in one persistence
+ * context.
+ *
+ * Reads run in read-only transactions. With Hibernate that sets the
+ * session's flush mode to MANUAL and loads entities read-only, so no
+ * dirty checking is done at commit and no snapshot copies are kept.
+ *
+ * Updates load the entity, apply the changes and save it in the same
+ * transaction. The entity is still managed when it is saved, so the
+ * save does not issue the extra SELECT that merging a detached entity
+ * does; the UPDATE is written when the transaction commits. Changes to
+ * one or two columns can skip the load entirely with
+ * {@link #patch(Class, Object, IntSupplier)} and a {@code @Modifying}
+ * query, and set-based deletes can run as one statement with
+ * {@link #write(IntSupplier)}.
+ *
+ * Entities whose id is chosen by the client, such as a dining commons
+ * code, are created with {@link #create(CrudRepository, Class, Object,
+ * Object)}. Saving one whose id is already taken would merge it into the
+ * existing row instead, which for a versioned entity fails as a
+ * concurrent modification, so the id is checked first.
+ *
+ * Versioned entities can be updated, patched and deleted conditionally:
+ * when the client sends the version it read (the If-Match header), the
+ * write fails with a PreconditionFailedException if the entity has been
+ * changed since. Without one the write still cannot silently overwrite a
+ * concurrent change, because Hibernate checks the version in the UPDATE
+ * and throws an OptimisticLockingFailureException when it has moved.
+ */
+
+@Service
+@Transactional(readOnly = true)
+public class CrudService {
+
+  /**
+   * This method runs a query in a read-only transaction.
+   * @param <R> the type of the result
+   * @param query the query, e.g. a call to a repository
+   * @return the result of the query
+   */
+  public <R> R read(Supplier<R> query) {
+    return query.get();
+  }
+
+  /**
+   * This method finds an entity by id in a read-only transaction.
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @return the entity
+   * @throws EntityNotFoundException if there is no entity with the id
+   */
+  public <T, ID> T findById(CrudRepository<T, ID> repository, Class<T> entityType, ID id) {
+    return repository.findById(id).orElseThrow(() -> new EntityNotFoundException(entityType, id));
+  }
+
+  /**
+   * This method saves a new entity whose id is assigned by the client,
+   * after checking in the same transaction that no entity has that id.
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the new entity
+   * @param entity the new entity
+   * @return the saved entity
+   * @throws EntityAlreadyExistsException if there is already an entity with the id
+   */
+  @Transactional
+  public <T, ID> T create(CrudRepository<T, ID> repository, Class<T> entityType, ID id, T entity) {
+    if (repository.existsById(id)) {
+      throw new EntityAlreadyExistsException(entityType, id);
+    }
+    return repository.save(entity);
+  }
+
+  /**
+   * This method finds an entity by id, applies changes to it and saves
+   * it, all in one transaction.
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @param changes the changes to make to the entity
+   * @return the updated entity
+   * @throws EntityNotFoundException if there is no entity with the id
+   */
+  @Transactional
+  public <T, ID> T update(CrudRepository<T, ID> repository, Class<T> entityType, ID id, Consumer<T> changes) {
+    T entity = findById(repository, entityType, id);
+    changes.accept(entity);
+    repository.save(entity);
+    return entity;
+  }
+
+  /**
+   * This method finds a versioned entity by id and, if it is still at the
+   * version the client read, applies changes to it and saves it, all in
+   * one transaction.
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @param ifMatch the version the client read, or null to update any version
+   * @param changes the changes to make to the entity
+   * @return the updated entity, with its new version
+   * @throws EntityNotFoundException if there is no entity with the id
+   * @throws PreconditionFailedException if the entity is not at version ifMatch
+   */
+  @Transactional
+  public <T extends Versioned, ID> T update(CrudRepository<T, ID> repository, Class<T> entityType, ID id,
+      Long ifMatch, Consumer<T> changes) {
+    return update(repository, entityType, id, entity -> {
+      checkVersion(entity, entityType, id, ifMatch);
+      changes.accept(entity);
+    });
+  }
+
+  /**
+   * This method runs a set-based statement (a {@code @Modifying}
+   * repository query) in a read-write transaction.
+   * @param statement the statement; returns the number of rows it changed
+   * @return the number of rows changed
+   */
+  @Transactional
+  public int write(IntSupplier statement) {
+    return statement.getAsInt();
+  }
+
+  /**
+   * This method runs an UPDATE by id (a {@code @Modifying} repository
+   * query) in a transaction, without loading the entity.
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @param update the update; returns the number of rows it changed
+   * @throws EntityNotFoundException if no row was updated
+   */
+  @Transactional
+  public void patch(Class<?> entityType, Object id, IntSupplier update) {
+    if (update.getAsInt() == 0) {
+      throw new EntityNotFoundException(entityType, id);
+    }
+  }
+
+  /**
+   * This method runs a conditional UPDATE by id (a {@code @Modifying}
+   * repository query whose WHERE clause also checks the version) in a
+   * transaction, without loading the entity. Only when no row changed is
+   * the id looked up, to tell a missing entity from a stale version.
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @param ifMatch the version the client read
+   * @param update the update; returns the number of rows it changed
+   * @throws EntityNotFoundException if there is no entity with the id
+   * @throws PreconditionFailedException if the entity is not at version ifMatch
+   */
+  @Transactional
+  public <ID> void patch(CrudRepository<?, ID> repository, Class<?> entityType, ID id, long ifMatch,
+      IntSupplier update) {
+    if (update.getAsInt() == 0) {
+      if (repository.existsById(id)) {
+        throw new PreconditionFailedException(entityType, id, ifMatch);
+      }
+      throw new EntityNotFoundException(entityType, id);
+    }
+  }
+
+  /**
+   * This method finds an entity by id and deletes it in one transaction.
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @return the deleted entity
+   * @throws EntityNotFoundException if there is no entity with the id
+   */
+  @Transactional
+  public <T, ID> T delete(CrudRepository<T, ID> repository, Class<T> entityType, ID id) {
+    T entity = findById(repository, entityType, id);
+    repository.delete(entity);
+    return entity;
+  }
+
+  /**
+   * This method finds a versioned entity by id and, if it is still at the
+   * version the client read, deletes it, in one transaction.
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository the repository of the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @param ifMatch the version the client read, or null to delete any version
+   * @return the deleted entity
+   * @throws EntityNotFoundException if there is no entity with the id
+   * @throws PreconditionFailedException if the entity is not at version ifMatch
+   */
+  @Transactional
+  public <T extends Versioned, ID> T delete(CrudRepository<T, ID> repository, Class<T> entityType, ID id,
+      Long ifMatch) {
+    T entity = findById(repository, entityType, id);
+    checkVersion(entity, entityType, id, ifMatch);
+    repository.delete(entity);
+    return entity;
+  }
+
+  /**
+   * This method checks that an entity is at the version the client read.
+   * @param entity the entity
+   * @param entityType the entity type, for the error message
+   * @param id the id of the entity
+   * @param ifMatch the version the client read, or null to accept any version
+   * @throws PreconditionFailedException if the entity is not at version ifMatch
+   */
+  public void checkVersion(Versioned entity, Class<?> entityType, Object id, Long ifMatch) {
+    if (ifMatch != null && entity.getVersion() != ifMatch) {
+      throw new PreconditionFailedException(entityType, id, ifMatch);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.CurrentUser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This is a per-session cache of the CurrentUser resolved at login, so
+ * that {@code /api/currentUser} and the other callers of
+ * CurrentUserService do not query the users table on every request.
+ *
+ * The snapshot is kept in the HTTP session and is reloaded from the
+ * database once it is older than {@code app.current-user-cache.ttl}.
+ * {@link #invalidate(String)} records when a user last changed, which
+ * makes every snapshot of that user taken before then stale on this
+ * node. The record is only kept in memory, so on the other nodes of a
+ * cluster the change shows up within the TTL, like changes made directly
+ * in the database; this is the same bound as AdminStatusCache. Records
+ * older than the TTL can no longer make a fresh snapshot stale, so they
+ * are dropped and the map only holds users changed in the last TTL.
+ *
+ * Lookups are counted by the {@code currentuser.cache.hits} and
+ * {@code currentuser.cache.misses} counters; every hit is a
+ * findByEmail that was not run.
+ */
+
+@Slf4j
+@Service
+public class CurrentUserCache {
+
+  static final String SESSION_ATTRIBUTE = CurrentUserCache.class.getName() + ".SNAPSHOT";
+
+  private record Snapshot(String email, long loadedAt, CurrentUser currentUser) {
+  }
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${app.current-user-cache.ttl:60s}")
+  private Duration ttl = Duration.ofSeconds(60);
+
+  LongSupplier clock = System::nanoTime;
+
+  private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+  private Counter hits;
+  private Counter misses;
+
+  @PostConstruct
+  void registerMetrics() {
+    hits = Counter.builder("currentuser.cache.hits")
+        .description("current user lookups served from the session")
+        .register(meterRegistry);
+    misses = Counter.builder("currentuser.cache.misses")
+        .description("current user lookups that went to the database")
+        .register(meterRegistry);
+  }
+
+  private boolean isFresh(Snapshot snapshot, long now) {
+    if (now - snapshot.loadedAt() >= ttl.toNanos()) {
+      return false;
+    }
+    Long changed = invalidatedAt.get(snapshot.email());
+    return changed == null || changed - snapshot.loadedAt() < 0;
+  }
+
+  /**
+   * This method returns the cached CurrentUser for this session, loading
+   * and caching it if there is none, it has expired or it has been
+   * invalidated.
+   *
+   * Outside of an HTTP request there is no session, so the loader is
+   * always called.
+   *
+   * @param email the email of the authenticated user
+   * @param loader loads the CurrentUser from the database
+   * @return the current user
+   */
+  public CurrentUser get(String email, Supplier<CurrentUser> loader) {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request == null) {
+      misses.increment();
+      return loader.get();
+    }
+
+    // read the clock before loading, so an invalidation that races with
+    // the load leaves the new snapshot stale rather than wrong
+    long now = clock.getAsLong();
+    Object cached = request.getAttribute(SESSION_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+    if (cached instanceof Snapshot snapshot
+        && snapshot.email().equals(email)
+        && isFresh(snapshot, now)) {
+      hits.increment();
+      return snapshot.currentUser();
+    }
+
+    misses.increment();
+    CurrentUser currentUser = loader.get();
+    request.setAttribute(SESSION_ATTRIBUTE, new Snapshot(email, now, currentUser),
+        RequestAttributes.SCOPE_SESSION);
+    return currentUser;
+  }
+
+  /**
+   * This method makes the cached snapshots of a user on this node stale;
+   * call it after changing the user in the database. Other nodes pick up
+   * the change when their snapshots expire.
+   * @param email the email of the user that changed
+   */
+  public void invalidate(String email) {
+    long now = clock.getAsLong();
+    long horizon = ttl.toNanos();
+    invalidatedAt.values().removeIf(changed -> now - changed >= horizon);
+    invalidatedAt.put(email, now);
+    log.debug("invalidated cached current user {}", email);
+  }
+}
@@ -5,13 +5,10 @@ import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -37,19 +34,41 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  CurrentUserCache currentUserCache;
+
+  @Autowired
+  AdminStatusCache adminStatusCache;
+
+  @Autowired
+  UserWriteBehind userWriteBehind;
 
   /**
-   * This method returns the current user as a User object.
+   * This method returns the current user as a CurrentUser object.
+   *
+   * For a user logged in with OAuth2 the result is cached in the session by
+   * CurrentUserCache, so the database is only queried on the first request
+   * of a session and after the user has been changed.
+   *
    * @return the current user
    */
   public CurrentUser getCurrentUser() {
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    Authentication authentication = securityContext.getAuthentication();
+
+    if (authentication instanceof OAuth2AuthenticationToken token) {
+      String email = token.getPrincipal().getAttribute("email");
+      return currentUserCache.get(email, () -> CurrentUser.builder()
+          .user(getOAuth2AuthenticatedUser(securityContext, authentication))
+          .roles(this.getRoles())
+          .build());
+    }
+
     CurrentUser cu = CurrentUser.builder()
       .user(this.getUser())
       .roles(this.getRoles())
       .build();
-    log.info("getCurrentUser returns {}",cu);
+    log.debug("getCurrentUser returns {}",cu);
     return cu;
   }
 
@@ -58,6 +77,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * The parameters are automatically injected by Spring.
    * 
    * This method also has a side effect of storing the user in the database if they are not already there.
+   * The write is queued on UserWriteBehind, so a user who has just logged in for the first time
+   * may not be in the users table (and has id 0) for a few milliseconds.
    * 
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -77,14 +98,14 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String hostedDomain = oAuthUser.getAttribute("hd");
 
     java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}",attrs);
+    log.debug("attrs={}",attrs);
 
-    Optional<User> ou = userRepository.findByEmail(email);
+    Optional<User> ou = userWriteBehind.pending(email).or(() -> userRepository.findByEmail(email));
     if (ou.isPresent()) {
       User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
+      if (adminStatusCache.isConfiguredAdmin(email) && !u.getAdmin()) {
         u.setAdmin(true);
-        userRepository.save(u);
+        userWriteBehind.enqueue(u);
       }
       return u;
     }
@@ -99,9 +120,10 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .emailVerified(emailVerified)
         .locale(locale)
         .hostedDomain(hostedDomain)
-        .admin(adminEmails.contains(email))
+        .admin(adminStatusCache.isConfiguredAdmin(email))
         .build();
-    userRepository.save(u);
+    userWriteBehind.enqueue(u);
+    adminStatusCache.put(email, u.getAdmin());
     return u;
   }
 
@@ -114,7 +136,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     Authentication authentication = securityContext.getAuthentication();
 
     if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+      return getCurrentUser().getUser();
     }
     return null;
   }
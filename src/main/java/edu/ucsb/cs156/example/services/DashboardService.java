@@ -0,0 +1,214 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.DashboardPanel;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * This is a service that loads the dashboard.
+ *
+ * Each panel (a count and the first few rows of one entity) is loaded in
+ * its own read-only transaction on its own virtual thread, so the panels
+ * are queried at the same time and the dashboard takes as long as the
+ * slowest panel rather than the sum of them.
+ *
+ * Every panel has until {@code app.dashboard.timeout} after the dashboard
+ * was started. A panel that is not done by then is left out (with an
+ * error saying so) rather than holding up the others, and it is cancelled.
+ * On PostgreSQL each panel's transaction sets {@code statement_timeout} to
+ * the time left, in milliseconds, so the database gives up its queries at
+ * the deadline; elsewhere only the transaction timeout applies, which is
+ * in whole seconds. A cancelled panel that is still waiting for a
+ * connection gives up at once; one still in a query may have its
+ * connection closed, which the pool replaces.
+ *
+ * Each panel holds one pooled connection while it runs. All dashboards
+ * together hold at most {@code app.dashboard.max-connections} of them (by
+ * default 5, one dashboard's worth, of production's 20), so concurrent
+ * dashboards queue for them instead of starving the rest of the
+ * application; a panel that gets none before the deadline times out.
+ */
+
+@Slf4j
+@Service
+public class DashboardService {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  ArticleRepository articleRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  MenuItemRatingRollupRepository menuItemRatingRollupRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  @Value("${app.dashboard.items:5}")
+  int items;
+
+  @Value("${app.dashboard.timeout:500ms}")
+  Duration timeout;
+
+  private Semaphore connections = new Semaphore(5);
+
+  @Value("${app.dashboard.max-connections:5}")
+  void setMaxConnections(int maxConnections) {
+    connections = new Semaphore(maxConnections);
+  }
+
+  /**
+   * This method loads every panel of the dashboard at the same time.
+   * @return the dashboard; panels that failed or ran out of time have an error instead of rows
+   */
+  public Dashboard getDashboard() {
+    long start = System.nanoTime();
+    long deadline = start + timeout.toNanos();
+    Limit limit = Limit.of(items);
+    LocalDateTime now = LocalDateTime.now();
+
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    // transaction timeouts are in whole seconds; see statementTimeout for the milliseconds
+    transaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      var openHelpRequests = executor.submit(() -> panel(transaction, deadline,
+          helpRequestRepository::countBySolvedFalse,
+          () -> helpRequestRepository.findBySolvedFalseOrderByRequestTimeDesc(limit)));
+      var pendingRecommendationRequests = executor.submit(() -> panel(transaction, deadline,
+          recommendationRequestRepository::countByDoneFalse,
+          () -> recommendationRequestRepository.findByDoneFalseOrderByDateNeededAsc(limit)));
+      var newestArticles = executor.submit(() -> panel(transaction, deadline,
+          articleRepository::count,
+          () -> articleRepository.findAllByOrderByDateAddedDesc(limit)));
+      var upcomingDates = executor.submit(() -> panel(transaction, deadline,
+          () -> ucsbDateRepository.countByLocalDateTimeGreaterThanEqual(now),
+          () -> ucsbDateRepository.findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAsc(now, limit)));
+      var topRatedMenuItems = executor.submit(() -> panel(transaction, deadline,
+          () -> menuItemRatingRollupRepository.countByReviewCountGreaterThan(0),
+          () -> menuItemRatingRollupRepository.findTopRated(limit)));
+
+      return Dashboard.builder()
+          .openHelpRequests(await("openHelpRequests", openHelpRequests, start, deadline))
+          .pendingRecommendationRequests(await("pendingRecommendationRequests", pendingRecommendationRequests, start, deadline))
+          .newestArticles(await("newestArticles", newestArticles, start, deadline))
+          .upcomingDates(await("upcomingDates", upcomingDates, start, deadline))
+          .topRatedMenuItems(await("topRatedMenuItems", topRatedMenuItems, start, deadline))
+          .millis(millisSince(start))
+          .build();
+    } finally {
+      // don't wait for panels that ran out of time
+      executor.shutdown();
+    }
+  }
+
+  private <T> DashboardPanel<T> panel(TransactionTemplate transaction, long deadline, Supplier<Long> count,
+      Supplier<List<T>> items) throws InterruptedException, TimeoutException {
+    long start = System.nanoTime();
+    if (!connections.tryAcquire(deadline - start, TimeUnit.NANOSECONDS)) {
+      throw new TimeoutException("no dashboard connection was free");
+    }
+    try {
+      DashboardPanel<T> panel = transaction.execute(status -> {
+        statementTimeout(deadline);
+        return DashboardPanel.<T>builder()
+            .count(count.get())
+            .items(items.get())
+            .build();
+      });
+      panel.setMillis(millisSince(start));
+      return panel;
+    } finally {
+      connections.release();
+    }
+  }
+
+  /**
+   * This method limits the statements of the current transaction to the
+   * time left before the deadline. Transaction timeouts, and the
+   * {@code jakarta.persistence.query.timeout} hint, are rounded by
+   * Hibernate to whole seconds (so anything under half a second would be
+   * no timeout at all), so on PostgreSQL this sets
+   * {@code statement_timeout} for the transaction instead.
+   * @param deadline the System.nanoTime() by which the panel must be done
+   */
+  private void statementTimeout(long deadline) {
+    long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    entityManager.unwrap(Session.class).doWork(connection -> {
+      if ("PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("set local statement_timeout = " + millis);
+        }
+      }
+    });
+  }
+
+  private <T> DashboardPanel<T> await(String name, Future<DashboardPanel<T>> panel, long start, long deadline) {
+    try {
+      return panel.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      panel.cancel(true);
+      log.warn("Dashboard panel {} did not load within {}", name, timeout);
+      return failed(start, "timed out after %d ms".formatted(timeout.toMillis()));
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof TimeoutException) {
+        log.warn("Dashboard panel {} got no connection within {}", name, timeout);
+        return failed(start, "timed out waiting for a connection");
+      }
+      log.error("Dashboard panel {} failed", name, e.getCause());
+      return failed(start, e.getCause().getClass().getSimpleName());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return failed(start, "interrupted");
+    }
+  }
+
+  private static <T> DashboardPanel<T> failed(long start, String error) {
+    return DashboardPanel.<T>builder().millis(millisSince(start)).error(error).build();
+  }
+
+  private static double millisSince(long start) {
+    return (System.nanoTime() - start) / 1_000_000.0;
+  }
+}
@@ -0,0 +1,179 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BulkLoadFailure;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This is a service that loads a JSON array of UCSBDiningCommonsMenuItems
+ * into the database.
+ *
+ * The array is read one element at a time with a streaming JsonParser, so
+ * memory use depends on the chunk size rather than on the size of the
+ * request. Valid rows are inserted in chunks of
+ * {@code app.bulk-load.chunk-size}, one transaction per chunk. If a chunk
+ * fails, its rows are retried one at a time so that a single bad row does
+ * not take the rest of the chunk down with it.
+ */
+
+@Slf4j
+@Service
+public class MenuItemBulkLoadService {
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  @Autowired
+  private UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${app.bulk-load.chunk-size:500}")
+  private int chunkSize;
+
+  private record Row(int index, UCSBDiningCommonsMenuItem item) {
+  }
+
+  /**
+   * This method loads the menu items in a JSON array.
+   *
+   * Any id in the input is ignored; ids are always generated.
+   *
+   * @param in the JSON array of menu items
+   * @return the number of rows received and inserted, and the rows that failed
+   * @throws BadRequestException if the body is not JSON or not a JSON array
+   * @throws IOException if the input cannot be read
+   */
+  public BulkLoadResult load(InputStream in) throws IOException {
+    BulkLoadResult result = new BulkLoadResult();
+    List<Row> chunk = new ArrayList<>(chunkSize);
+
+    try (JsonParser parser = mapper.createParser(in)) {
+      if (firstToken(parser) != JsonToken.START_ARRAY) {
+        throw new BadRequestException("expected a JSON array of menu items");
+      }
+      int index = 0;
+      try {
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+          result.setReceived(result.getReceived() + 1);
+          UCSBDiningCommonsMenuItem item = readRow(parser, token, index, result);
+          if (item != null) {
+            chunk.add(new Row(index, item));
+            if (chunk.size() >= chunkSize) {
+              insert(chunk, result);
+              chunk.clear();
+            }
+          }
+          index++;
+        }
+      } catch (JsonProcessingException e) {
+        // the rest of the input cannot be read; keep the rows read so far
+        result.getFailures().add(new BulkLoadFailure(index, "malformed JSON: " + e.getOriginalMessage()));
+      }
+    }
+    insert(chunk, result);
+    result.getFailures().sort(Comparator.comparingInt(BulkLoadFailure::getRow));
+    log.info("bulk load: received={} inserted={} failed={}",
+        result.getReceived(), result.getInserted(), result.getFailures().size());
+    return result;
+  }
+
+  private static JsonToken firstToken(JsonParser parser) throws IOException {
+    try {
+      return parser.nextToken();
+    } catch (JsonProcessingException e) {
+      // the body is not JSON at all, so there are no rows to report on
+      throw new BadRequestException("expected a JSON array of menu items: " + e.getOriginalMessage());
+    }
+  }
+
+  private UCSBDiningCommonsMenuItem readRow(JsonParser parser, JsonToken token, int index, BulkLoadResult result)
+      throws IOException {
+    if (token != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      result.getFailures().add(new BulkLoadFailure(index, "expected a JSON object"));
+      return null;
+    }
+    JsonNode node = mapper.readTree(parser);
+    UCSBDiningCommonsMenuItem item;
+    try {
+      item = mapper.treeToValue(node, UCSBDiningCommonsMenuItem.class);
+    } catch (JsonProcessingException e) {
+      result.getFailures().add(new BulkLoadFailure(index, e.getOriginalMessage()));
+      return null;
+    }
+    String problem = validate(item);
+    if (problem != null) {
+      result.getFailures().add(new BulkLoadFailure(index, problem));
+      return null;
+    }
+    item.setId(0);
+    return item;
+  }
+
+  private static String validate(UCSBDiningCommonsMenuItem item) {
+    if (isBlank(item.getDiningCommonsCode())) {
+      return "diningCommonsCode is required";
+    }
+    if (isBlank(item.getName())) {
+      return "name is required";
+    }
+    if (isBlank(item.getStation())) {
+      return "station is required";
+    }
+    return null;
+  }
+
+  private static boolean isBlank(String s) {
+    return s == null || s.isBlank();
+  }
+
+  private void insert(List<Row> chunk, BulkLoadResult result) {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    try {
+      transaction.executeWithoutResult(status ->
+          ucsbDiningCommonsMenuItemRepository.saveAll(chunk.stream().map(Row::item).toList()));
+      result.setInserted(result.getInserted() + chunk.size());
+    } catch (DataAccessException | TransactionException e) {
+      log.warn("bulk load: chunk of {} rows failed, retrying one at a time", chunk.size(), e);
+      for (Row row : chunk) {
+        row.item().setId(0);
+        try {
+          transaction.executeWithoutResult(status -> ucsbDiningCommonsMenuItemRepository.save(row.item()));
+          result.setInserted(result.getInserted() + 1);
+        } catch (DataAccessException | TransactionException rowError) {
+          result.getFailures().add(new BulkLoadFailure(row.index(),
+              NestedExceptionUtils.getMostSpecificCause(rowError).getMessage()));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This is a job that recomputes every MenuItemRatingRollup from the
+ * menuitemreviews table, e.g. after reviews were changed outside the API.
+ *
+ * The items with reviews are split into chunks of
+ * {@code app.ratings.rebuild-chunk-size} item ids, and the chunks are
+ * aggregated and written in parallel on
+ * {@code app.ratings.rebuild-threads} threads, one transaction per chunk.
+ * Reviews written while the job runs are still applied to the rollups by
+ * MenuItemRatingService, but a chunk that was aggregated before such a
+ * write may overwrite it, so run the job when reviews are not changing.
+ */
+
+@Slf4j
+@Service
+public class MenuItemRatingRebuildJob {
+
+  @Autowired
+  private MenuItemReviewsRepository menuItemReviewsRepository;
+
+  @Autowired
+  private MenuItemRatingRollupRepository menuItemRatingRollupRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${app.ratings.rebuild-chunk-size:1000}")
+  private int chunkSize;
+
+  @Value("${app.ratings.rebuild-threads:4}")
+  private int threads;
+
+  /**
+   * This method recomputes all the rollups.
+   * @return the number of items that have reviews
+   */
+  public int rebuild() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    int orphans = transaction.execute(status -> menuItemRatingRollupRepository.deleteOrphans());
+
+    List<Long> itemIds = menuItemReviewsRepository.findDistinctItemIds();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> chunks = new ArrayList<>();
+      for (int start = 0; start < itemIds.size(); start += chunkSize) {
+        List<Long> chunk = itemIds.subList(start, Math.min(start + chunkSize, itemIds.size()));
+        chunks.add(pool.submit(() -> transaction.executeWithoutResult(status ->
+            menuItemRatingRollupRepository.saveAll(menuItemReviewsRepository.aggregateRatingsByItemIdIn(chunk)))));
+      }
+      for (Future<?> chunk : chunks) {
+        chunk.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("rebuilding the rating rollups was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("rebuilding the rating rollups failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    log.info("rebuilt rating rollups for {} items ({} orphaned rollups deleted)", itemIds.size(), orphans);
+    return itemIds.size();
+  }
+}
@@ -0,0 +1,143 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.entities.MenuItemReviews;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewsRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that creates, updates and deletes MenuItemReviews and
+ * keeps the MenuItemRatingRollup of the reviewed item in step, in the same
+ * transaction.
+ */
+
+@Service
+public class MenuItemRatingService {
+
+  @Autowired
+  MenuItemReviewsRepository menuItemReviewsRepository;
+
+  @Autowired
+  MenuItemRatingRollupRepository menuItemRatingRollupRepository;
+
+  /**
+   * This method saves a new review and adds it to its item's rollup.
+   * @param review the new review
+   * @return the saved review
+   */
+  @Transactional
+  public MenuItemReviews create(MenuItemReviews review) {
+    MenuItemReviews saved = menuItemReviewsRepository.save(review);
+    adjust(lockRollup(review.getItemId()), review.getStars(), 1);
+    return saved;
+  }
+
+  /**
+   * This method updates a review and moves it between rollups (or between
+   * star buckets of the same rollup) if its item or stars changed.
+   * @param id the id of the review
+   * @param ifMatch the version of the review the client read, or null to update any version
+   * @param incoming the new values of the review
+   * @return the updated review
+   * @throws EntityNotFoundException if there is no review with that id
+   * @throws PreconditionFailedException if the review is not at version ifMatch
+   */
+  @Transactional
+  public MenuItemReviews update(long id, Long ifMatch, MenuItemReviews incoming) {
+    MenuItemReviews existing = find(id, ifMatch);
+
+    boolean ratingChanged = existing.getItemId() != incoming.getItemId() || existing.getStars() != incoming.getStars();
+    MenuItemRatingRollup from = null;
+    MenuItemRatingRollup to = null;
+    if (ratingChanged) {
+      // lock both rollups in itemId order, so that two updates moving reviews
+      // between the same two items in opposite directions cannot deadlock
+      long first = Math.min(existing.getItemId(), incoming.getItemId());
+      long second = Math.max(existing.getItemId(), incoming.getItemId());
+      MenuItemRatingRollup firstRollup = lockRollup(first);
+      MenuItemRatingRollup secondRollup = first == second ? firstRollup : lockRollup(second);
+      from = existing.getItemId() == first ? firstRollup : secondRollup;
+      to = incoming.getItemId() == first ? firstRollup : secondRollup;
+      adjust(from, existing.getStars(), -1);
+    }
+
+    existing.setItemId(incoming.getItemId());
+    existing.setReviewEmail(incoming.getReviewEmail());
+    existing.setStars(incoming.getStars());
+    existing.setDateReviewed(incoming.getDateReviewed());
+    existing.setComments(incoming.getComments());
+    menuItemReviewsRepository.save(existing);
+
+    if (ratingChanged) {
+      adjust(to, existing.getStars(), 1);
+    }
+    return existing;
+  }
+
+  /**
+   * This method deletes a review and removes it from its item's rollup.
+   * @param id the id of the review
+   * @param ifMatch the version of the review the client read, or null to delete any version
+   * @throws EntityNotFoundException if there is no review with that id
+   * @throws PreconditionFailedException if the review is not at version ifMatch
+   */
+  @Transactional
+  public void delete(long id, Long ifMatch) {
+    MenuItemReviews review = find(id, ifMatch);
+    menuItemReviewsRepository.delete(review);
+    adjust(lockRollup(review.getItemId()), review.getStars(), -1);
+  }
+
+  /**
+   * This method returns the rating rollup of an item.
+   * @param itemId the menu item id
+   * @return the rollup; all counts are zero if the item has no reviews
+   */
+  @Transactional(readOnly = true)
+  public MenuItemRatingRollup rollupFor(long itemId) {
+    return menuItemRatingRollupRepository.findById(itemId)
+        .orElseGet(() -> MenuItemRatingRollup.builder().itemId(itemId).build());
+  }
+
+  private MenuItemReviews find(long id, Long ifMatch) {
+    MenuItemReviews review = menuItemReviewsRepository.findById(id)
+        .orElseThrow(() -> new EntityNotFoundException(MenuItemReviews.class, id));
+    if (ifMatch != null && review.getVersion() != ifMatch) {
+      throw new PreconditionFailedException(MenuItemReviews.class, id, ifMatch);
+    }
+    return review;
+  }
+
+  /**
+   * Returns the rollup of an item, locked for update until the end of the
+   * transaction. The rollup is created first if the item has none, so that
+   * there is always a row to lock, even for the first review of an item.
+   */
+  private MenuItemRatingRollup lockRollup(long itemId) {
+    menuItemRatingRollupRepository.insertIfAbsent(itemId);
+    return menuItemRatingRollupRepository.findLockedByItemId(itemId)
+        .orElseThrow(() -> new IllegalStateException("no rating rollup for item " + itemId));
+  }
+
+  private void adjust(MenuItemRatingRollup rollup, int stars, int delta) {
+    rollup.setReviewCount(rollup.getReviewCount() + delta);
+    rollup.setStarsSum(rollup.getStarsSum() + (long) stars * delta);
+    switch (stars) {
+      case 1 -> rollup.setStars1(rollup.getStars1() + delta);
+      case 2 -> rollup.setStars2(rollup.getStars2() + delta);
+      case 3 -> rollup.setStars3(rollup.getStars3() + delta);
+      case 4 -> rollup.setStars4(rollup.getStars4() + delta);
+      case 5 -> rollup.setStars5(rollup.getStars5() + delta);
+      default -> {
+        // only 1 to 5 stars have a histogram bucket
+      }
+    }
+    menuItemRatingRollupRepository.save(rollup);
+  }
+}
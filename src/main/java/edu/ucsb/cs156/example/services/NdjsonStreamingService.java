@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * This is a service that writes a stream of entities to the response as
+ * newline-delimited JSON (one JSON object per line).
+ *
+ * The rows are read from the repository in a read-only transaction with a
+ * JDBC fetch size (set on the repository's stream methods), and each entity
+ * is detached from the persistence context as soon as it has been written,
+ * so memory use does not grow with the size of the table.
+ */
+
+@Slf4j
+@Service("ndjsonStreaming")
+public class NdjsonStreamingService {
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${app.streaming.flush-every:500}")
+  private int flushEvery;
+
+  /**
+   * This method returns a response body that writes every row of the
+   * stream as one line of JSON.
+   *
+   * @param <T> the entity type
+   * @param rows supplier of the stream of entities; called inside the transaction
+   * @return the response body
+   */
+  public <T> StreamingResponseBody stream(Supplier<Stream<T>> rows) {
+    return out -> {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      transaction.executeWithoutResult(status -> writeRows(rows, out));
+    };
+  }
+
+  /**
+   * This method writes the rows to the output stream, one JSON object per line.
+   * It must be called inside a transaction.
+   *
+   * @param <T> the entity type
+   * @param rows supplier of the stream of entities
+   * @param out the output stream
+   */
+  <T> void writeRows(Supplier<Stream<T>> rows, OutputStream out) {
+    ObjectWriter writer = mapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .withRootValueSeparator("");
+    try (Stream<T> stream = rows.get();
+        JsonGenerator generator = mapper.createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      long count = 0;
+      Iterator<T> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        T row = iterator.next();
+        writer.writeValue(generator, row);
+        generator.writeRaw('\n');
+        entityManager.detach(row);
+        if (++count % flushEvery == 0) {
+          generator.flush();
+        }
+      }
+      log.info("streamed {} rows", count);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
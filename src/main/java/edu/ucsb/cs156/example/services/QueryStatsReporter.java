@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This service reports the QueryStats of each request to the logs and
+ * the MeterRegistry.
+ *
+ * Per route it records the {@code db.request.statements} and
+ * {@code db.request.rows} summaries and the {@code db.request.time} timer.
+ * A request is flagged, with a warning in the log and a
+ * {@code db.request.flagged} count tagged with the reason, if it runs more
+ * than {@code app.query-stats.statement-budget} statements ({@code budget})
+ * or runs one statement shape {@code app.query-stats.repeat-threshold} or
+ * more times ({@code repeated}, a likely N+1 query).
+ */
+
+@Slf4j
+@Service
+public class QueryStatsReporter {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${app.query-stats.statement-budget:20}")
+  private int statementBudget;
+
+  @Value("${app.query-stats.repeat-threshold:5}")
+  private int repeatThreshold;
+
+  /**
+   * This method reports the stats of one request.
+   * @param method the HTTP method
+   * @param route the route pattern that matched, e.g. /api/ucsbdates
+   * @param stats the stats of the request
+   * @return whether the request was flagged
+   */
+  public boolean report(String method, String route, QueryStats stats) {
+    DistributionSummary.builder("db.request.statements")
+        .description("JDBC statements run per request")
+        .tag("uri", route)
+        .register(meterRegistry)
+        .record(stats.getStatements());
+    DistributionSummary.builder("db.request.rows")
+        .description("rows read per request")
+        .tag("uri", route)
+        .register(meterRegistry)
+        .record(stats.getRows());
+    Timer.builder("db.request.time")
+        .description("time spent in JDBC statements per request")
+        .tag("uri", route)
+        .register(meterRegistry)
+        .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+    log.debug("{} {}: {}", method, route, stats);
+
+    boolean flagged = false;
+    if (stats.getStatements() > statementBudget) {
+      log.warn("{} {} ran {} statements, over the budget of {} ({})",
+          method, route, stats.getStatements(), statementBudget, stats);
+      flag(route, "budget");
+      flagged = true;
+    }
+    if (stats.getMostRepeatedCount() >= repeatThreshold) {
+      log.warn("{} {} ran the same statement {} times, a likely N+1 query: {}",
+          method, route, stats.getMostRepeatedCount(), stats.getMostRepeatedShape());
+      flag(route, "repeated");
+      flagged = true;
+    }
+    return flagged;
+  }
+
+  private void flag(String route, String reason) {
+    Counter.builder("db.request.flagged")
+        .description("requests over the statement budget or repeating a statement")
+        .tag("uri", route)
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * This is a service that coalesces identical reads that are in flight at
+ * the same time (single flight): the first request for a key runs the
+ * read and serializes its result to JSON, and every request for the same
+ * key that arrives before it finishes waits for it and shares the same
+ * bytes. Nothing is kept once the read finishes, so this is not a cache;
+ * the next request runs the read again.
+ *
+ * Each request is counted in {@code http.server.requests.coalesced},
+ * tagged with its route and whether it ran the read ({@code leader}) or
+ * shared another's ({@code follower}); the coalescing rate of a route is
+ * followers / (leaders + followers).
+ */
+
+@Service
+public class RequestCoalescer {
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * This method returns the JSON of a read, sharing it with identical
+   * reads in flight.
+   * @param route the route of the request, for the metrics
+   * @param key the key of the read; reads with equal keys must have equal results
+   * @param read the read; called only if no identical read is in flight
+   * @return the result of the read, as JSON
+   */
+  public byte[] coalesce(String route, String key, Supplier<Object> read) {
+    CompletableFuture<byte[]> mine = new CompletableFuture<>();
+    CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      count(route, "follower");
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+    count(route, "leader");
+    try {
+      byte[] json = mapper.writeValueAsBytes(read.get());
+      mine.complete(json);
+      return json;
+    } catch (JsonProcessingException e) {
+      IllegalStateException failure = new IllegalStateException("response body could not be serialized", e);
+      mine.completeExceptionally(failure);
+      throw failure;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private void count(String route, String role) {
+    Counter.builder("http.server.requests.coalesced")
+        .description("requests that ran a coalesced read (leader) or shared one in flight (follower)")
+        .tags("uri", route, "role", role)
+        .register(meterRegistry)
+        .increment();
+  }
+}
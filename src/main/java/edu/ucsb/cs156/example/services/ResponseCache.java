@@ -0,0 +1,203 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This is a cache of serialized responses: the JSON bytes of a response
+ * body, and the same bytes gzipped, so a hot GET can be answered without
+ * running the handler or Jackson again.
+ *
+ * Each response is cached under its collection and request (path and
+ * query string) together with the CollectionVersion it was built at. A
+ * lookup at any other version misses, so a write through the
+ * collection's repository (which bumps the version) invalidates every
+ * response of the collection, on every node. Writes on this node also
+ * evict them at once (see CollectionVersionAspect), to free the bytes.
+ *
+ * When several requests miss on the same response at the same version,
+ * only the first one builds it; the others wait for and share its
+ * result, so a burst of requests after a write does one rebuild.
+ *
+ * The cache holds at most {@code app.response-cache.max-size} bytes;
+ * the least recently used responses are evicted first, and a response
+ * bigger than the whole cache is served but not kept. The entries are
+ * guarded by a ReentrantLock rather than a monitor, so a virtual thread
+ * waiting for it does not pin its carrier thread.
+ */
+
+@Service
+public class ResponseCache {
+
+  /**
+   * The key of a cached response.
+   * @param collection the name of the collection the response is read from
+   * @param request the path and query string of the request
+   */
+  public record Key(String collection, String request) {
+  }
+
+  /**
+   * A cached response.
+   * @param version the version of the collection it was built at
+   * @param json the body, as JSON
+   * @param gzip the body, as gzipped JSON
+   */
+  public record Entry(long version, byte[] json, byte[] gzip) {
+    long size() {
+      return (long) json.length + gzip.length;
+    }
+  }
+
+  private record Build(Key key, long version) {
+  }
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  @Value("${app.response-cache.max-size:16MB}")
+  private DataSize maxSize;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+  private final Map<Build, CompletableFuture<Entry>> builds = new ConcurrentHashMap<>();
+
+  /**
+   * This method returns the cached response for a request at a version
+   * of its collection, building and caching it on a miss.
+   * @param key the collection and request
+   * @param version the current version of the collection
+   * @param body supplier of the response body; called on a miss
+   * @return the cached response
+   */
+  public Entry get(Key key, long version, Supplier<Object> body) {
+    Entry entry = cached(key, version);
+    if (entry != null) {
+      return entry;
+    }
+    Build build = new Build(key, version);
+    CompletableFuture<Entry> mine = new CompletableFuture<>();
+    CompletableFuture<Entry> running = builds.putIfAbsent(build, mine);
+    if (running != null) {
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+    try {
+      entry = build(version, body.get());
+      put(key, entry);
+      mine.complete(entry);
+      return entry;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      builds.remove(build, mine);
+    }
+  }
+
+  /**
+   * This method drops every cached response of a collection.
+   * @param collection the name of the collection
+   */
+  public void evict(String collection) {
+    lock.lock();
+    try {
+      Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Key, Entry> cached = iterator.next();
+        if (cached.getKey().collection().equals(collection)) {
+          size -= cached.getValue().size();
+          iterator.remove();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method returns the total size of the cached responses.
+   * @return the size in bytes
+   */
+  public long size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Entry cached(Key key, long version) {
+    lock.lock();
+    try {
+      Entry entry = entries.get(key);
+      return entry != null && entry.version() == version ? entry : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void put(Key key, Entry entry) {
+    lock.lock();
+    try {
+      Entry previous = entries.get(key);
+      if (previous != null && previous.version() > entry.version()) {
+        return;
+      }
+      if (previous != null) {
+        size -= previous.size();
+        entries.remove(key);
+      }
+      if (entry.size() > maxSize.toBytes()) {
+        return;
+      }
+      entries.put(key, entry);
+      size += entry.size();
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (size > maxSize.toBytes()) {
+        size -= eldest.next().size();
+        eldest.remove();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Entry build(long version, Object body) {
+    try {
+      byte[] json = mapper.writeValueAsBytes(body);
+      ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+      try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+        gzip.write(json);
+      }
+      return new Entry(version, json, gzipped.toByteArray());
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("response body could not be serialized", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This service keeps the Hibernate second-level cache of this node in
+ * step with writes made on other nodes.
+ *
+ * The cache (see SecondLevelCacheConfig) is local to each node: a write
+ * through Hibernate updates the cache of the node that made it, but the
+ * other nodes would keep serving the old rows and the old query results
+ * until their TTL runs out. Every write to a collection also adds one to
+ * its CollectionVersion (see CollectionVersionAspect), as it commits or
+ * just after, so this service
+ * remembers the last version this node has seen for each cached
+ * collection, and when a newer one is read it evicts the collection's
+ * entity region and the cached query results.
+ *
+ * Versions are read by the conditional GETs of whole collections (see
+ * CollectionEtagAspect), before the handler runs, so a GET of a
+ * collection never sees rows older than the version it read. Reads by id
+ * are covered by {@link #checkVersions()}, every
+ * {@code app.l2-cache.version-check-interval-ms} milliseconds, which bounds
+ * how long another node's write can go unseen. The region TTL is only a
+ * backstop, for a row loaded from the database before the other node
+ * committed but put in the cache after the eviction.
+ *
+ * Writes made on this node move the version too, so they also evict
+ * the region on the next read; the cached entities are reference data
+ * that is read much more often than it is written.
+ */
+
+@Slf4j
+@Service
+public class SecondLevelCacheInvalidator {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  CollectionVersionRepository collectionVersionRepository;
+
+  private final Map<String, Class<?>> cachedCollections = new HashMap<>();
+  private final Map<String, Long> seen = new ConcurrentHashMap<>();
+
+  /**
+   * This method finds the entity types kept in the second-level cache.
+   * A cached entity type that is not Versioned has no CollectionVersion,
+   * so writes on other nodes are only seen after its TTL.
+   */
+  @PostConstruct
+  void findCachedCollections() {
+    for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+      Class<?> type = entity.getJavaType();
+      if (type.isAnnotationPresent(Cache.class)) {
+        CollectionVersion.nameOf(type).ifPresentOrElse(
+            collection -> cachedCollections.put(collection, type),
+            () -> log.warn("{} is in the second-level cache but is not Versioned; other nodes' writes are only seen after its TTL",
+                type.getSimpleName()));
+      }
+    }
+  }
+
+  /**
+   * This method is called with every version of a collection read from
+   * the database. The first version seen, and every newer one, evicts the
+   * collection from this node's second-level cache.
+   * @param collection the name of the collection, e.g. restaurants
+   * @param version the version read
+   */
+  public void versionSeen(String collection, long version) {
+    Class<?> type = cachedCollections.get(collection);
+    if (type == null) {
+      return;
+    }
+    Long previous = seen.get(collection);
+    boolean moved = previous == null
+        ? seen.putIfAbsent(collection, version) == null
+        : version > previous && seen.replace(collection, previous, version);
+    if (moved) {
+      log.debug("{} is now at version {} (was {}), evicting it from the second-level cache", collection, version, previous);
+      org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+      cache.evictEntityData(type);
+      cache.evictDefaultQueryRegion();
+    }
+  }
+
+  /**
+   * This method reads the versions of all the cached collections, so
+   * that writes on other nodes are seen even if no one GETs the whole
+   * collection on this node.
+   */
+  @Scheduled(fixedDelayString = "${app.l2-cache.version-check-interval-ms:5000}",
+      initialDelayString = "${app.l2-cache.version-check-interval-ms:5000}")
+  public void checkVersions() {
+    collectionVersionRepository.findAllById(cachedCollections.keySet())
+        .forEach(collectionVersion -> versionSeen(collectionVersion.getName(), collectionVersion.getVersion()));
+  }
+}
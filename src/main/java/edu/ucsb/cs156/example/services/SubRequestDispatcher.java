@@ -0,0 +1,687 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.models.SubResponse;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This service runs the GETs of a batch (POST /api/batch) in parallel,
+ * each through the application's DispatcherServlet, so each one goes
+ * through the same handler mapping, interceptors (access log, query
+ * stats, collection ETags), argument resolution, advice and exception
+ * handlers as it would on its own.
+ *
+ * Each GET runs on its own virtual thread, as the user who sent the
+ * batch: their SecurityContext is passed to the thread, so the
+ * {@code @PreAuthorize} checks of the endpoints apply. A GET that is
+ * denied gets a 403, as it would on its own. The servlet filters are not
+ * run again for a GET; the batch request has been through them.
+ *
+ * A GET sees a copy of the batch request (the session, cookies and
+ * locale, taken before the threads start) with its own path, query
+ * string and attributes, and {@code Accept: application/json}. Its
+ * response is kept in memory and returned as a SubResponse. A path that
+ * is not an API endpoint gets a 404 rather than the frontend's page.
+ */
+
+@Slf4j
+@Service
+public class SubRequestDispatcher {
+
+  @Autowired
+  private DispatcherServlet dispatcherServlet;
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  /**
+   * This method runs GETs in parallel and waits for all of them.
+   * @param batch the batch request; its session, cookies and locale are shared with the GETs
+   * @param urls the path and query string of each GET, e.g. /api/ucsbdates/all?limit=10
+   * @return the response to each GET, in the same order
+   */
+  public List<SubResponse> dispatch(HttpServletRequest batch, List<String> urls) {
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    List<GetRequest> requests = urls.stream().map(url -> new GetRequest(batch, url)).toList();
+    List<Future<SubResponse>> responses = new ArrayList<>(requests.size());
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (GetRequest request : requests) {
+        responses.add(executor.submit(new DelegatingSecurityContextCallable<>(() -> dispatch(request), securityContext)));
+      }
+    }
+    return responses.stream().map(Future::resultNow).toList();
+  }
+
+  private SubResponse dispatch(GetRequest request) {
+    BufferedResponse response = new BufferedResponse();
+    try {
+      dispatcherServlet.service(request, response);
+    } catch (ServletException | IOException | RuntimeException e) {
+      Throwable cause = e instanceof ServletException && e.getCause() != null ? e.getCause() : e;
+      if (cause instanceof AccessDeniedException || cause instanceof AuthenticationException) {
+        return SubResponse.builder()
+            .url(request.url)
+            .status(HttpServletResponse.SC_FORBIDDEN)
+            .headers(Map.of())
+            .body(Map.of("type", cause.getClass().getSimpleName(), "message", String.valueOf(cause.getMessage())))
+            .build();
+      }
+      log.error("GET {} in a batch failed", request.url, cause);
+      return SubResponse.builder()
+          .url(request.url)
+          .status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR)
+          .headers(Map.of())
+          .build();
+    }
+    return SubResponse.builder()
+        .url(request.url)
+        .status(response.getStatus())
+        .headers(response.headers())
+        .body(body(response))
+        .build();
+  }
+
+  private Object body(BufferedResponse response) {
+    byte[] bytes = response.body();
+    if (bytes.length == 0) {
+      return null;
+    }
+    MediaType contentType = response.getContentType() == null ? null : MediaType.parseMediaType(response.getContentType());
+    if (contentType != null && ("json".equals(contentType.getSubtype()) || contentType.getSubtype().endsWith("+json"))) {
+      try {
+        return mapper.readTree(bytes);
+      } catch (IOException e) {
+        // not valid JSON after all; pass it on as text
+      }
+    }
+    return new String(bytes, Charset.forName(response.getCharacterEncoding()));
+  }
+
+  /**
+   * A GET with its own path, query string and attributes. Everything the
+   * worker thread reads from the batch request is copied here first, since
+   * the container's request is not safe to use from several threads.
+   */
+  private static class GetRequest extends HttpServletRequestWrapper {
+    private final String url;
+    private final String requestUri;
+    private final String servletPath;
+    private final String queryString;
+    private final String requestUrlBase;
+    private final Map<String, String[]> parameters = new LinkedHashMap<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final HttpSession session;
+    private final Cookie[] cookies;
+    private final List<Locale> locales;
+
+    GetRequest(HttpServletRequest batch, String url) {
+      super(batch);
+      this.url = url;
+      int query = url.indexOf('?');
+      String path = query < 0 ? url : url.substring(0, query);
+      this.queryString = query < 0 ? null : url.substring(query + 1);
+      this.requestUri = batch.getContextPath() + path;
+      this.servletPath = UriUtils.decode(path, StandardCharsets.UTF_8);
+      String batchUrl = batch.getRequestURL().toString();
+      this.requestUrlBase = batchUrl.substring(0, batchUrl.length() - batch.getRequestURI().length());
+      MultiValueMap<String, String> queryParams = queryString == null ? new LinkedMultiValueMap<>()
+          : UriComponentsBuilder.newInstance().query(queryString).build().getQueryParams();
+      queryParams.forEach((name, values) -> parameters.put(decode(name),
+          values.stream().map(value -> value == null ? "" : decode(value)).toArray(String[]::new)));
+      this.session = batch.getSession(false);
+      this.cookies = batch.getCookies();
+      this.locales = Collections.list(batch.getLocales());
+    }
+
+    private static String decode(String value) {
+      return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getMethod() {
+      return "GET";
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+      return DispatcherType.REQUEST;
+    }
+
+    @Override
+    public String getRequestURI() {
+      return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+      return new StringBuffer(requestUrlBase).append(requestUri);
+    }
+
+    @Override
+    public String getServletPath() {
+      return servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+      return null;
+    }
+
+    @Override
+    public String getQueryString() {
+      return queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+      String[] values = parameters.get(name);
+      return values == null ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+      return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+      return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+      return parameters.get(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return HttpHeaders.ACCEPT.equalsIgnoreCase(name) ? MediaType.APPLICATION_JSON_VALUE : null;
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      String value = getHeader(name);
+      return Collections.enumeration(value == null ? List.of() : List.of(value));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      return Collections.enumeration(List.of(HttpHeaders.ACCEPT));
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+      return -1;
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+      return -1;
+    }
+
+    @Override
+    public String getContentType() {
+      return null;
+    }
+
+    @Override
+    public int getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return -1;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+      return StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return true;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          throw new IllegalStateException("a GET in a batch has no body");
+        }
+
+        @Override
+        public int read() {
+          return -1;
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      return new BufferedReader(new StringReader(""));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+      return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+      return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+      if (value == null) {
+        attributes.remove(name);
+      } else {
+        attributes.put(name, value);
+      }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+      attributes.remove(name);
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+      return session;
+    }
+
+    @Override
+    public HttpSession getSession() {
+      return session;
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+      return cookies;
+    }
+
+    @Override
+    public Locale getLocale() {
+      return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+      return Collections.enumeration(locales);
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+      // a forward (the frontend's index.html for paths that are not API endpoints)
+      // would go back through the container on this thread; there is no such API
+      return new RequestDispatcher() {
+        @Override
+        public void forward(ServletRequest request, ServletResponse response) throws IOException {
+          ((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+
+        @Override
+        public void include(ServletRequest request, ServletResponse response) throws IOException {
+          ((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+      };
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+      return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+      return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+      throw new IllegalStateException("a GET in a batch cannot be async");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+      throw new IllegalStateException("a GET in a batch cannot be async");
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+      throw new IllegalStateException("a GET in a batch cannot be async");
+    }
+  }
+
+  /**
+   * A response kept in memory. It stands alone (rather than wrapping the
+   * batch response) so that nothing a GET does reaches the client directly.
+   */
+  private static class BufferedResponse implements HttpServletResponse {
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private int status = SC_OK;
+    private String contentType;
+    private String characterEncoding = StandardCharsets.UTF_8.name();
+    private Locale locale = Locale.getDefault();
+    private int bufferSize = 8192;
+    private PrintWriter writer;
+    private boolean committed;
+
+    byte[] body() {
+      if (writer != null) {
+        writer.flush();
+      }
+      return body.toByteArray();
+    }
+
+    Map<String, String> headers() {
+      Map<String, String> joined = new LinkedHashMap<>();
+      headers.forEach((name, values) -> {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+          joined.put(name, String.join(", ", values));
+        }
+      });
+      return joined;
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+      // cookies set by a GET in a batch are not passed on to the client
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+      return headers.containsKey(name);
+    }
+
+    @Override
+    public String encodeURL(String url) {
+      return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+      return url;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+      sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc) {
+      status = sc;
+      committed = true;
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+      setHeader(HttpHeaders.LOCATION, location);
+      sendError(SC_FOUND);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+      setHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+      addHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+        setContentType(value);
+        return;
+      }
+      List<String> values = new ArrayList<>();
+      values.add(value);
+      headers.put(name, values);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+        setContentType(value);
+        return;
+      }
+      headers.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+      setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+      addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void setStatus(int sc) {
+      if (!committed) {
+        status = sc;
+      }
+    }
+
+    @Override
+    public int getStatus() {
+      return status;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      List<String> values = headers.get(name);
+      return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+      return headers.getOrDefault(name, List.of());
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+      return headers.keySet();
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+      return characterEncoding;
+    }
+
+    @Override
+    public String getContentType() {
+      return contentType;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      return new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          throw new IllegalStateException("a GET in a batch is written in memory");
+        }
+
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          body.write(b, off, len);
+        }
+      };
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+      if (writer == null) {
+        writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(characterEncoding)));
+      }
+      return writer;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+      if (charset != null && writer == null) {
+        characterEncoding = charset;
+      }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+      setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+      setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(len));
+    }
+
+    @Override
+    public void setContentType(String type) {
+      contentType = type;
+      if (type == null) {
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        return;
+      }
+      MediaType mediaType = MediaType.parseMediaType(type);
+      if (mediaType.getCharset() != null) {
+        setCharacterEncoding(mediaType.getCharset().name());
+      }
+      List<String> values = new ArrayList<>();
+      values.add(type);
+      headers.put(HttpHeaders.CONTENT_TYPE, values);
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+      bufferSize = size;
+    }
+
+    @Override
+    public int getBufferSize() {
+      return bufferSize;
+    }
+
+    @Override
+    public void flushBuffer() {
+      if (writer != null) {
+        writer.flush();
+      }
+      committed = true;
+    }
+
+    @Override
+    public void resetBuffer() {
+      if (committed) {
+        throw new IllegalStateException("the response has been committed");
+      }
+      body.reset();
+    }
+
+    @Override
+    public boolean isCommitted() {
+      return committed;
+    }
+
+    @Override
+    public void reset() {
+      resetBuffer();
+      headers.clear();
+      status = SC_OK;
+      contentType = null;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+      locale = loc;
+    }
+
+    @Override
+    public Locale getLocale() {
+      return locale;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * This is a write-behind queue for the users that CurrentUserServiceImpl
+ * creates or promotes to admin when they log in.
+ *
+ * Logins only enqueue the user; every
+ * {@code app.users.write-behind-interval-ms} milliseconds the queue is
+ * flushed in one transaction, with one query for the users that already
+ * exist and one batched insert or update for the rest. The queue holds
+ * at most one entry per email.
+ *
+ * If the batch fails, its users are written again one at a time, each in
+ * its own transaction, so one bad row does not hold back the others.
+ * Users that still fail are retried after
+ * {@code app.users.write-behind-retry-backoff}, doubling on every further
+ * failure up to a minute; new logins keep being written in the meantime.
+ * A user that fails {@code app.users.write-behind-max-attempts} times is
+ * dropped and logged once.
+ */
+
+@Slf4j
+@Service
+public class UserWriteBehind {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${app.users.write-behind-max-attempts:5}")
+  private int maxAttempts = 5;
+
+  @Value("${app.users.write-behind-retry-backoff:1s}")
+  private Duration retryBackoff = Duration.ofSeconds(1);
+
+  static final Duration MAX_RETRY_BACKOFF = Duration.ofMinutes(1);
+
+  LongSupplier clock = System::nanoTime;
+
+  private final Map<String, User> pending = new ConcurrentHashMap<>();
+  /* users whose write failed, waiting for retryAt; only changed by flush */
+  private final Map<String, User> retrying = new ConcurrentHashMap<>();
+  private final Map<String, Integer> failures = new HashMap<>();
+  private long retryAt;
+
+  /**
+   * This method queues a new user, or an existing user whose admin flag
+   * was set, to be written on the next flush.
+   * @param user the user
+   */
+  public void enqueue(User user) {
+    pending.put(user.getEmail(), user);
+  }
+
+  /**
+   * This method returns the queued user with an email, if it has not been
+   * written yet.
+   * @param email email address of the user
+   * @return the queued user, or empty
+   */
+  public Optional<User> pending(String email) {
+    return Optional.ofNullable(pending.get(email)).or(() -> Optional.ofNullable(retrying.get(email)));
+  }
+
+  /**
+   * This method writes every queued user in one transaction, along with
+   * the users whose earlier write failed once their backoff is over.
+   * @return the number of users written
+   */
+  @Scheduled(fixedDelayString = "${app.users.write-behind-interval-ms:20}")
+  public int flush() {
+    return flush(false);
+  }
+
+  private synchronized int flush(boolean retryNow) {
+    long now = clock.getAsLong();
+    Map<String, User> batch = new LinkedHashMap<>();
+    if (!retrying.isEmpty() && (retryNow || now - retryAt >= 0)) {
+      batch.putAll(retrying);
+      retrying.clear();
+    }
+    for (String email : pending.keySet()) {
+      User user = pending.remove(email);
+      if (user != null) {
+        // a newer login replaces the version waiting to be retried
+        retrying.remove(email);
+        batch.put(email, user);
+      }
+    }
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    List<User> users = new ArrayList<>(batch.values());
+
+    try {
+      new TransactionTemplate(transactionManager).executeWithoutResult(status -> write(users));
+    } catch (DataAccessException | TransactionException e) {
+      log.warn("writing {} users in one batch failed, writing them one at a time: {}", users.size(), e.toString());
+      return writeOneAtATime(users, now);
+    }
+    users.forEach(user -> failures.remove(user.getEmail()));
+    log.debug("wrote {} users", users.size());
+    return users.size();
+  }
+
+  private int writeOneAtATime(List<User> users, long now) {
+    int written = 0;
+    int mostFailures = 0;
+    for (User user : users) {
+      String email = user.getEmail();
+      try {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> write(List.of(user)));
+        failures.remove(email);
+        written++;
+      } catch (DataAccessException | TransactionException e) {
+        int failed = failures.merge(email, 1, Integer::sum);
+        if (failed >= maxAttempts) {
+          failures.remove(email);
+          log.error("dropping user {} after {} failed writes", email, failed, e);
+        } else {
+          retrying.putIfAbsent(email, user);
+          mostFailures = Math.max(mostFailures, failed);
+        }
+      }
+    }
+    if (mostFailures > 0) {
+      retryAt = now + backoff(mostFailures).toNanos();
+    }
+    return written;
+  }
+
+  private Duration backoff(int failed) {
+    Duration backoff = retryBackoff.multipliedBy(1L << Math.min(failed - 1, 30));
+    return backoff.compareTo(MAX_RETRY_BACKOFF) > 0 ? MAX_RETRY_BACKOFF : backoff;
+  }
+
+  private void write(List<User> batch) {
+    Map<String, User> existing = userRepository.findByEmailIn(batch.stream().map(User::getEmail).toList())
+        .stream()
+        .collect(Collectors.toMap(User::getEmail, Function.identity(), (first, second) -> first));
+
+    List<User> changed = new ArrayList<>();
+    for (User user : batch) {
+      User stored = existing.get(user.getEmail());
+      if (stored == null) {
+        changed.add(user);
+      } else if (user.getAdmin() && !stored.getAdmin()) {
+        stored.setAdmin(true);
+        changed.add(stored);
+      }
+    }
+    userRepository.saveAll(changed);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    flush(true);
+  }
+}
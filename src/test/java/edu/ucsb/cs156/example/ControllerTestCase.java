@@ -9,8 +9,16 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.services.AccessLogWriter;
+import edu.ucsb.cs156.example.services.AdminStatusCache;
+import edu.ucsb.cs156.example.services.CrudService;
+import edu.ucsb.cs156.example.services.CurrentUserCache;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.NdjsonStreamingService;
+import edu.ucsb.cs156.example.services.QueryStatsReporter;
+import edu.ucsb.cs156.example.services.UserWriteBehind;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.springframework.test.web.servlet.MvcResult;
@@ -19,7 +27,7 @@ import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
 @ActiveProfiles("test")
-@Import(TestConfig.class)
+@Import({ TestConfig.class, CrudService.class })
 public abstract class ControllerTestCase {
   @Autowired
   public CurrentUserService currentUserService;
@@ -36,6 +44,27 @@ public abstract class ControllerTestCase {
   @MockBean
   WiremockService mockWiremockService;
 
+  @MockBean
+  public NdjsonStreamingService ndjsonStreamingService;
+
+  @MockBean
+  public CurrentUserCache currentUserCache;
+
+  @MockBean
+  public AdminStatusCache adminStatusCache;
+
+  @MockBean
+  public UserWriteBehind userWriteBehind;
+
+  @MockBean
+  public AccessLogWriter accessLogWriter;
+
+  @MockBean
+  public QueryStatsReporter queryStatsReporter;
+
+  @MockBean
+  public CollectionVersionRepository collectionVersionRepository;
+
   protected Map<String, Object> responseToJson(MvcResult result) throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.example.controllers.RestaurantsController;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.interceptors.CollectionEtag;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.services.SecondLevelCacheInvalidator;
+
+class CollectionEtagAspectTests {
+
+  private static final CollectionEtag UCSB_DATES = new CollectionEtag() {
+    @Override
+    public Class<?> value() {
+      return UCSBDate.class;
+    }
+
+    @Override
+    public Class<CollectionEtag> annotationType() {
+      return CollectionEtag.class;
+    }
+  };
+
+  private CollectionEtagAspect aspect;
+  private CollectionVersionRepository repository;
+  private SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+  private ProceedingJoinPoint joinPoint;
+  private MethodSignature signature;
+  private MockHttpServletResponse response;
+
+  @BeforeEach
+  void setup() throws Throwable {
+    repository = mock(CollectionVersionRepository.class);
+    aspect = new CollectionEtagAspect();
+    secondLevelCacheInvalidator = mock(SecondLevelCacheInvalidator.class);
+    ReflectionTestUtils.setField(aspect, "collectionVersionRepository", repository);
+    ReflectionTestUtils.setField(aspect, "secondLevelCacheInvalidator", secondLevelCacheInvalidator);
+    joinPoint = mock(ProceedingJoinPoint.class);
+    signature = mock(MethodSignature.class);
+    when(joinPoint.getSignature()).thenReturn(signature);
+    when(signature.getMethod())
+        .thenReturn(UCSBDatesController.class.getMethod("allUCSBDates", Long.class, Integer.class));
+    when(joinPoint.proceed()).thenReturn("dates");
+    response = new MockHttpServletResponse();
+    when(repository.findVersionByName("ucsbdates")).thenReturn(Optional.of(12L));
+  }
+
+  @AfterEach
+  void teardown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private MockHttpServletRequest request(String method, String ifNoneMatch) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/ucsbdates/all");
+    if (ifNoneMatch != null) {
+      request.addHeader("If-None-Match", ifNoneMatch);
+    }
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    return request;
+  }
+
+  @Test
+  void a_collection_get_carries_the_collection_version_as_its_etag() throws Throwable {
+    MockHttpServletRequest request = request("GET", null);
+
+    assertEquals("dates", aspect.conditionalGet(joinPoint, UCSB_DATES));
+
+    assertEquals("\"ucsbdates-12\"", response.getHeader("ETag"));
+    assertEquals(12L, request.getAttribute(CollectionEtagAspect.VERSION_ATTRIBUTE));
+    verify(secondLevelCacheInvalidator).versionSeen("ucsbdates", 12L);
+    assertEquals(200, response.getStatus());
+  }
+
+  @Test
+  void a_collection_get_with_the_current_etag_is_not_modified() throws Throwable {
+    request("GET", "\"ucsbdates-12\"");
+
+    ResponseEntity<?> result = (ResponseEntity<?>) aspect.conditionalGet(joinPoint, UCSB_DATES);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+    assertEquals("\"ucsbdates-12\"", result.getHeaders().getETag());
+    verify(joinPoint, never()).proceed();
+  }
+
+  @Test
+  void a_collection_get_with_an_old_etag_runs_the_handler() throws Throwable {
+    request("GET", "\"ucsbdates-11\"");
+
+    assertEquals("dates", aspect.conditionalGet(joinPoint, UCSB_DATES));
+
+    assertEquals(200, response.getStatus());
+    assertEquals("\"ucsbdates-12\"", response.getHeader("ETag"));
+  }
+
+  @Test
+  void other_methods_and_calls_outside_a_request_are_not_looked_at() throws Throwable {
+    request("HEAD", "\"ucsbdates-12\"");
+    assertEquals("dates", aspect.conditionalGet(joinPoint, UCSB_DATES));
+    RequestContextHolder.resetRequestAttributes();
+    assertEquals("dates", aspect.conditionalGet(joinPoint, UCSB_DATES));
+
+    assertNull(response.getHeader("ETag"));
+    verify(repository, never()).findVersionByName(anyString());
+  }
+
+  @Test
+  void a_cached_response_sent_as_gzip_has_its_own_etag() throws Throwable {
+    CollectionEtag restaurants = RestaurantsController.class.getMethod("allRestaurants", Long.class, Integer.class)
+        .getAnnotation(CollectionEtag.class);
+    when(signature.getMethod())
+        .thenReturn(RestaurantsController.class.getMethod("allRestaurants", Long.class, Integer.class));
+    when(repository.findVersionByName("restaurants")).thenReturn(Optional.of(5L));
+    MockHttpServletRequest request = request("GET", "\"restaurants-5\"");
+    request.addHeader("Accept-Encoding", "gzip");
+
+    assertEquals("dates", aspect.conditionalGet(joinPoint, restaurants));
+    assertEquals("\"restaurants-5-gzip\"", response.getHeader("ETag"));
+
+    response = new MockHttpServletResponse();
+    request = request("GET", "\"restaurants-5-gzip\"");
+    request.addHeader("Accept-Encoding", "gzip");
+    ResponseEntity<?> result = (ResponseEntity<?>) aspect.conditionalGet(joinPoint, restaurants);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+    assertEquals("\"restaurants-5-gzip\"", result.getHeaders().getETag());
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
+
+class CollectionVersionAspectTests {
+
+  private CollectionVersionAspect aspect;
+  private CollectionVersionRepository collectionVersionRepository;
+  private ResponseCache responseCache;
+
+  @BeforeEach
+  void setup() {
+    collectionVersionRepository = mock(CollectionVersionRepository.class);
+    aspect = new CollectionVersionAspect();
+    responseCache = mock(ResponseCache.class);
+    ReflectionTestUtils.setField(aspect, "collectionVersionRepository", collectionVersionRepository);
+    ReflectionTestUtils.setField(aspect, "responseCache", responseCache);
+  }
+
+  private <T> T advised(T target) {
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.addAspect(aspect);
+    return factory.getProxy();
+  }
+
+  @Test
+  void saves_deletes_and_modifying_queries_bump_the_collection() {
+    UCSBDateRepository repository = advised(mock(UCSBDateRepository.class));
+    UCSBDate date = UCSBDate.builder().name("firstDayOfClasses").localDateTime(LocalDateTime.now()).build();
+
+    repository.save(date);
+    repository.saveAll(List.of(date));
+    repository.delete(date);
+    repository.deleteByIdIn(List.of(1L, 2L));
+    repository.deleteByQuarterYYYYQ("20241");
+
+    verify(collectionVersionRepository, times(5)).increment("ucsbdates");
+    verify(responseCache, times(5)).evict("ucsbdates");
+  }
+
+  @Test
+  void writes_in_a_transaction_bump_each_collection_once_just_before_it_commits() {
+    UCSBDateRepository dates = advised(mock(UCSBDateRepository.class));
+    RestaurantRepository restaurants = advised(mock(RestaurantRepository.class));
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      dates.deleteByQuarterYYYYQ("20241");
+      restaurants.deleteAll();
+      dates.deleteByQuarterYYYYQ("20242");
+
+      verify(collectionVersionRepository, never()).increment(anyString());
+
+      List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+      assertEquals(1, synchronizations.size());
+      synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+      InOrder inOrder = inOrder(collectionVersionRepository);
+      inOrder.verify(collectionVersionRepository).increment("restaurants");
+      inOrder.verify(collectionVersionRepository).increment("ucsbdates");
+      verify(collectionVersionRepository).increment("ucsbdates");
+      verify(responseCache, never()).evict(anyString());
+
+      synchronizations.forEach(TransactionSynchronization::afterCommit);
+      synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+      verify(responseCache).evict("ucsbdates");
+      verify(responseCache).evict("restaurants");
+      assertNull(TransactionSynchronizationManager.getResource(aspect));
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void reads_do_not_bump_the_collection() {
+    UCSBDateRepository repository = advised(mock(UCSBDateRepository.class));
+
+    repository.findById(1L);
+    repository.findAll();
+    repository.findByQuarterYYYYQOrderByLocalDateTimeAsc("20241");
+
+    verify(collectionVersionRepository, never()).increment(anyString());
+  }
+
+  @Test
+  void collections_of_entities_without_a_version_are_not_counted() {
+    MenuItemRatingRollupRepository repository = advised(mock(MenuItemRatingRollupRepository.class));
+
+    repository.save(MenuItemRatingRollup.builder().itemId(7).build());
+    repository.deleteOrphans();
+
+    verify(collectionVersionRepository, never()).increment(anyString());
+    verify(responseCache, never()).evict(anyString());
+  }
+
+  @Test
+  void collection_names_are_entity_names() {
+    assertEquals(Optional.of("ucsbdates"), CollectionVersion.nameOf(UCSBDate.class));
+    assertEquals(Optional.empty(), CollectionVersion.nameOf(MenuItemRatingRollup.class));
+    assertEquals(Optional.empty(), CollectionVersion.nameOf(String.class));
+    assertEquals(Optional.empty(), CollectionVersion.nameOf(null));
+  }
+}
@@ -0,0 +1,128 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestCoalescingAspectTests {
+
+  private static final Authentication USER = new TestingAuthenticationToken("cgaucho", null, "ROLE_USER");
+  private static final Authentication OTHER_USER = new TestingAuthenticationToken("ldelplaya", null, "ROLE_USER");
+  private static final Authentication ADMIN = new TestingAuthenticationToken("phtcon", null, "ROLE_USER", "ROLE_ADMIN");
+
+  @Test
+  void the_key_is_the_route_sorted_parameters_version_and_sorted_roles() {
+    Map<String, String[]> parameters = new LinkedHashMap<>();
+    parameters.put("limit", new String[] { "10" });
+    parameters.put("after", new String[] { "5" });
+
+    assertEquals("GET /api/ucsbdates/all?after=[5]&limit=[10]@12|ROLE_ADMIN,ROLE_USER",
+        RequestCoalescingAspect.key("/api/ucsbdates/all", parameters, 12L, ADMIN, false));
+    assertEquals("GET /api/ucsbdates/all?|",
+        RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), null, null, false));
+  }
+
+  @Test
+  void users_with_the_same_roles_share_a_key_unless_it_is_per_principal() {
+    assertEquals(RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), 12L, USER, false),
+        RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), 12L, OTHER_USER, false));
+    assertNotEquals(RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), 12L, USER, false),
+        RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), 12L, ADMIN, false));
+    assertNotEquals(RequestCoalescingAspect.key("/api/currentUser", Map.of(), null, USER, true),
+        RequestCoalescingAspect.key("/api/currentUser", Map.of(), null, OTHER_USER, true));
+  }
+
+  @Test
+  void requests_that_read_different_versions_do_not_share_a_key() {
+    assertNotEquals(RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), 12L, USER, false),
+        RequestCoalescingAspect.key("/api/ucsbdates/all", Map.of(), 13L, USER, false));
+  }
+
+  private static Object call(RequestCoalescingAspect aspect, ProceedingJoinPoint joinPoint, Coalesced coalesced,
+      long version) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+    request.setAttribute(CollectionEtagAspect.VERSION_ATTRIBUTE, version);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+    try {
+      return aspect.coalesce(joinPoint, coalesced);
+    } catch (Exception | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
+  private static String body(Object response) {
+    return new String((byte[]) ((ResponseEntity<?>) response).getBody(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void a_request_at_a_newer_version_does_not_share_the_body_of_a_leader_at_an_older_one() throws Throwable {
+    RequestCoalescer requestCoalescer = new RequestCoalescer();
+    ReflectionTestUtils.setField(requestCoalescer, "mapper", new ObjectMapper());
+    ReflectionTestUtils.setField(requestCoalescer, "meterRegistry", new SimpleMeterRegistry());
+    RequestCoalescingAspect aspect = new RequestCoalescingAspect();
+    ReflectionTestUtils.setField(aspect, "requestCoalescer", requestCoalescer);
+    Coalesced coalesced = UCSBDatesController.class.getMethod("allUCSBDates", Long.class, Integer.class)
+        .getAnnotation(Coalesced.class);
+
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ProceedingJoinPoint leaderCall = mock(ProceedingJoinPoint.class);
+    when(leaderCall.proceed()).thenAnswer(invocation -> {
+      reading.countDown();
+      release.await();
+      return List.of("dates at 12");
+    });
+    ProceedingJoinPoint followerCall = mock(ProceedingJoinPoint.class);
+    when(followerCall.proceed()).thenReturn(List.of("dates at 13"));
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      // the leader read version 12 and is reading the rows
+      Future<Object> leader = executor.submit(() -> call(aspect, leaderCall, coalesced, 12));
+      reading.await(5, TimeUnit.SECONDS);
+
+      // a write commits, and the next request reads version 13 while the leader is still in flight;
+      // it must not wait for the leader
+      Future<Object> follower = executor.submit(() -> call(aspect, followerCall, coalesced, 13));
+
+      assertEquals("[\"dates at 13\"]", body(follower.get(5, TimeUnit.SECONDS)));
+      release.countDown();
+      assertEquals("[\"dates at 12\"]", body(leader.get(5, TimeUnit.SECONDS)));
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class ResponseCacheAspectTests {
+
+  private static MockHttpServletRequest request(String acceptEncoding) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/restaurants/all");
+    if (acceptEncoding != null) {
+      request.addHeader("Accept-Encoding", acceptEncoding);
+    }
+    return request;
+  }
+
+  @Test
+  void gzip_is_used_when_the_client_accepts_it() {
+    assertTrue(ResponseCacheAspect.acceptsGzip(request("gzip")));
+    assertTrue(ResponseCacheAspect.acceptsGzip(request("br, GZIP;q=0.8, deflate")));
+  }
+
+  @Test
+  void gzip_is_not_used_when_the_client_does_not_accept_it() {
+    assertFalse(ResponseCacheAspect.acceptsGzip(request(null)));
+    assertFalse(ResponseCacheAspect.acceptsGzip(request("identity")));
+    assertFalse(ResponseCacheAspect.acceptsGzip(request("gzip;q=0")));
+    assertFalse(ResponseCacheAspect.acceptsGzip(request("gzip; q=0.0, br")));
+  }
+}
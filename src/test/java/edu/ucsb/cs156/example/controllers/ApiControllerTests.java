@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.CrudService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ApiControllerTests {
+
+  private ApiController controller;
+
+  private List<Limit> limitsRequested;
+
+  private final List<Long> all = Arrays.asList(1L, 2L, 3L);
+
+  @BeforeEach
+  public void setup() {
+    controller = new ApiController() {};
+    ReflectionTestUtils.setField(controller, "defaultPageLimit", 2);
+    ReflectionTestUtils.setField(controller, "maxPageLimit", 5);
+    ReflectionTestUtils.setField(controller, "allowUnpaged", true);
+    ReflectionTestUtils.setField(controller, "crudService", new CrudService());
+    ReflectionTestUtils.setField(controller, "maxBulkDeleteIds", 3);
+    ReflectionTestUtils.setField(controller, "maxBatchGetIds", 3);
+    limitsRequested = new ArrayList<>();
+  }
+
+  private Object page(Long after, Integer limit) {
+    return controller.keysetPage(after, limit, 0L,
+        () -> all,
+        (cursor, l) -> {
+          limitsRequested.add(l);
+          return all.stream().filter(id -> id > cursor).limit(l.max()).toList();
+        },
+        id -> id);
+  }
+
+  @Test
+  public void keysetPage_returns_everything_when_no_paging_parameters_are_given() {
+    assertSame(all, page(null, null));
+    assertEquals(0, limitsRequested.size());
+  }
+
+  @Test
+  public void keysetPage_uses_the_default_limit_when_unpaged_reads_are_disabled() {
+    ReflectionTestUtils.setField(controller, "allowUnpaged", false);
+
+    KeysetPage<?> result = (KeysetPage<?>) page(null, null);
+
+    assertEquals(Arrays.asList(1L, 2L), result.getItems());
+    assertEquals(2L, result.getNextCursor());
+    assertEquals(List.of(Limit.of(3)), limitsRequested);
+  }
+
+  @Test
+  public void keysetPage_continues_after_the_cursor() {
+    KeysetPage<?> result = (KeysetPage<?>) page(1L, null);
+
+    assertEquals(Arrays.asList(2L, 3L), result.getItems());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  public void keysetPage_clamps_the_limit_to_the_allowed_range() {
+    page(null, 100);
+    page(null, 0);
+
+    assertEquals(List.of(Limit.of(6), Limit.of(2)), limitsRequested);
+  }
+
+  @Test
+  public void bulkDelete_deletes_each_id_once_in_a_single_statement() {
+    List<Collection<Long>> deletes = new ArrayList<>();
+
+    BulkDeleteResult result = controller.bulkDelete(List.of(1L, 2L, 1L, 3L), ids -> {
+      deletes.add(ids);
+      return 2;
+    });
+
+    assertEquals(List.of(List.of(1L, 2L, 3L)), deletes.stream().map(List::copyOf).toList());
+    assertEquals(new BulkDeleteResult(3, 2), result);
+  }
+
+  @Test
+  public void bulkDelete_of_no_ids_runs_no_statement() {
+    BulkDeleteResult result = controller.bulkDelete(List.of(), ids -> {
+      throw new AssertionError("no statement should run");
+    });
+
+    assertEquals(new BulkDeleteResult(0, 0), result);
+  }
+
+  @Test
+  public void bulkDelete_rejects_more_ids_than_the_limit() {
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> controller.bulkDelete(List.of(1L, 2L, 3L, 4L), ids -> 4));
+    assertEquals("at most 3 ids can be deleted at once, not 4", e.getMessage());
+  }
+
+  @Test
+  public void batchGet_returns_rows_in_request_order_and_lists_the_missing_ids() {
+    List<Collection<Long>> queries = new ArrayList<>();
+
+    BatchResult<Long, Long> result = controller.batchGet(List.of(3L, 5L, 1L, 3L), ids -> {
+      queries.add(ids);
+      return List.of(1L, 3L);
+    }, row -> row);
+
+    assertEquals(List.of(List.of(3L, 5L, 1L)), queries.stream().map(List::copyOf).toList());
+    assertEquals(List.of(3L, 1L), result.getItems());
+    assertEquals(List.of(5L), result.getMissing());
+  }
+
+  @Test
+  public void batchGet_of_no_ids_runs_no_query() {
+    BatchResult<Long, Long> result = controller.batchGet(List.<Long>of(), ids -> {
+      throw new AssertionError("no query should run");
+    }, row -> row);
+
+    assertEquals(List.of(), result.getItems());
+    assertEquals(List.of(), result.getMissing());
+  }
+
+  @Test
+  public void batchGet_rejects_more_ids_than_the_limit() {
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> controller.batchGet(List.of(1L, 2L, 3L, 4L), ids -> List.<Long>of(), row -> row));
+    assertEquals("at most 3 ids can be fetched at once, not 4", e.getMessage());
+  }
+
+  @Test
+  public void ifMatchVersion_reads_the_version_from_strong_and_weak_etags() {
+    assertNull(controller.ifMatchVersion(null));
+    assertNull(controller.ifMatchVersion("*"));
+    assertEquals(3L, controller.ifMatchVersion("\"3\""));
+    assertEquals(3L, controller.ifMatchVersion(" W/\"3\" "));
+    assertThrows(PreconditionFailedException.class, () -> controller.ifMatchVersion("3"));
+  }
+
+  @Test
+  public void a_concurrent_modification_is_a_failed_precondition() {
+    Map<?, ?> json = (Map<?, ?>) controller.handleConcurrentModification(
+        new ObjectOptimisticLockingFailureException(UCSBDate.class, 5L));
+
+    assertEquals("UCSBDate with id 5 was modified by another request", json.get("message"));
+    assertEquals("the entity was modified by another request",
+        ((Map<?, ?>) controller.handleConcurrentModification(new OptimisticLockingFailureException("stale"))).get("message"));
+  }
+}
@@ -16,6 +16,14 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
+import edu.ucsb.cs156.example.services.ArticleSearchIndex;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +32,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,6 +51,9 @@ public class ArticlesControllerTests extends ControllerTestCase{
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    ArticleSearchIndex articleSearchIndex;
+
     // Authorization tests for /api/ucsbdates/admin/all
 
     @Test
@@ -335,5 +347,256 @@ public class ArticlesControllerTests extends ControllerTestCase{
             assertEquals("Article with id 67 not found", json.get("message"));
 
     }
-    
-}
\ No newline at end of file
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_page_of_articles() throws Exception {
+
+        // arrange
+
+        Article first = Article.builder().id(1L).build();
+        Article second = Article.builder().id(2L).build();
+        Article third = Article.builder().id(3L).build();
+
+        when(articleRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                .thenReturn(Arrays.asList(first, second, third));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/articles/all?limit=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(articleRepository, times(0)).findAll();
+        KeysetPage<Article> expectedPage = KeysetPage.<Article>builder()
+                .items(Arrays.asList(first, second))
+                .nextCursor(2L)
+                .build();
+        String expectedJson = mapper.writeValueAsString(expectedPage);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_the_last_page_of_articles() throws Exception {
+
+        // arrange
+
+        Article third = Article.builder().id(3L).build();
+
+        when(articleRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                .thenReturn(Arrays.asList(third));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/articles/all?after=2&limit=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        KeysetPage<Article> expectedPage = KeysetPage.<Article>builder()
+                .items(Arrays.asList(third))
+                .nextCursor(null)
+                .build();
+        String expectedJson = mapper.writeValueAsString(expectedPage);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @Test
+    public void logged_out_users_cannot_stream_all_articles() throws Exception {
+        mockMvc.perform(get("/api/articles/all").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_stream_all_articles_as_ndjson() throws Exception {
+
+        // arrange
+
+        // the body waits until the request has left the filter chain so that
+        // writing it does not race the security headers on the mock response
+        CountDownLatch released = new CountDownLatch(1);
+        StreamingResponseBody body = out -> {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.write("{\"id\":1}\n".getBytes());
+        };
+        when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+        // act
+        MvcResult started = mockMvc.perform(get("/api/articles/all").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        released.countDown();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // assert
+
+        verify(ndjsonStreamingService, times(1)).stream(any());
+        assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+    }
+
+    // Tests for the search index and /api/articles/search
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void posting_an_article_adds_it_to_the_search_index() throws Exception {
+        // arrange
+        Article article = Article.builder()
+                .id(3L)
+                .title("Gauchos win")
+                .url("https://example.org/gauchos")
+                .explanation("basketball")
+                .email("cgaucho@ucsb.edu")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                .build();
+        when(articleRepository.save(any())).thenReturn(article);
+
+        // act
+        mockMvc.perform(post("/api/articles/post?title=Gauchos win&url=https://example.org/gauchos&explanation=basketball&email=cgaucho@ucsb.edu&dateAdded=2022-01-03T00:00:00")
+                .with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(articleSearchIndex, times(1)).index(article);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void editing_an_article_reindexes_it() throws Exception {
+        // arrange
+        LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+        Article original = Article.builder().id(3L).title("Old").url("u").explanation("e").email("m").dateAdded(ldt).build();
+        Article edited = Article.builder().id(3L).title("New").url("u").explanation("e").email("m").dateAdded(ldt).build();
+        when(articleRepository.findById(eq("3"))).thenReturn(Optional.of(original));
+
+        // act
+        mockMvc.perform(put("/api/articles?id=3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(articleSearchIndex, times(1)).index(edited);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void deleting_an_article_removes_it_from_the_search_index() throws Exception {
+        // arrange
+        Article article = Article.builder().id(3L).title("Old").url("u").explanation("e").email("m")
+                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+        when(articleRepository.findById(eq("3"))).thenReturn(Optional.of(article));
+
+        // act
+        mockMvc.perform(delete("/api/articles?id=3").with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(articleSearchIndex, times(1)).remove(3L);
+    }
+
+    @Test
+    public void logged_out_users_cannot_search() throws Exception {
+        mockMvc.perform(get("/api/articles/search?q=gauchos"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_search_articles() throws Exception {
+        // arrange
+        LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+        Article first = Article.builder().id(5L).title("Gauchos win").url("u").explanation("e").email("m").dateAdded(ldt).build();
+        Article second = Article.builder().id(2L).title("Gauchos lose").url("u").explanation("e").email("m").dateAdded(ldt).build();
+        when(articleSearchIndex.search("gauchos", 10)).thenReturn(List.of(
+                new ArticleSearchIndex.Hit(5L, 2.5),
+                new ArticleSearchIndex.Hit(9L, 2.0),
+                new ArticleSearchIndex.Hit(2L, 1.5)));
+        when(articleRepository.findByIdIn(List.of(5L, 9L, 2L))).thenReturn(List.of(second, first));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/articles/search?q=gauchos"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        String expectedJson = mapper.writeValueAsString(List.of(
+                new ArticleSearchHit(first, 2.5),
+                new ArticleSearchHit(second, 1.5)));
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void search_limit_is_kept_between_1_and_100() throws Exception {
+        mockMvc.perform(get("/api/articles/search?q=gauchos&limit=500")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/articles/search?q=gauchos&limit=0")).andExpect(status().isOk());
+
+        verify(articleSearchIndex, times(1)).search("gauchos", 100);
+        verify(articleSearchIndex, times(1)).search("gauchos", 1);
+    }
+
+    @Test
+    public void logged_out_users_cannot_bulk_delete() throws Exception {
+            mockMvc.perform(delete("/api/articles/bulk?ids=1,2").with(csrf()))
+                            .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+            mockMvc.perform(delete("/api/articles/bulk?ids=1,2").with(csrf()))
+                            .andExpect(status().is(403));
+            verify(articleRepository, times(0)).deleteByIdIn(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_delete_many_articles_and_they_leave_the_search_index() throws Exception {
+            // arrange
+            when(articleRepository.deleteByIdIn(eq(Set.of(3L, 4L)))).thenReturn(1);
+
+            // act
+            MvcResult response = mockMvc.perform(
+                            delete("/api/articles/bulk?ids=3,4")
+                                            .with(csrf()))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+            verify(articleSearchIndex, times(1)).remove(3L);
+            verify(articleSearchIndex, times(1)).remove(4L);
+            Map<String, Object> json = responseToJson(response);
+            assertEquals(2, json.get("requested"));
+            assertEquals(1, json.get("deleted"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+        // arrange
+        Article first = Article.builder().id(3L).title("first").build();
+        Article second = Article.builder().id(1L).title("second").build();
+        when(articleRepository.findByIdIn(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/articles?ids=3,2,1,3"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(articleRepository, times(1)).findByIdIn(eq(Set.of(3L, 2L, 1L)));
+        verify(articleRepository, times(0)).findById(any());
+        String expectedJson = mapper.writeValueAsString(BatchResult.<Article, Long>builder()
+                .items(List.of(first, second))
+                .missing(List.of(2L))
+                .build());
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+}
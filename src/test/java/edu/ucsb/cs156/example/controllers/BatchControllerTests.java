@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.SubResponse;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SubRequestDispatcher;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = BatchController.class)
+public class BatchControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  SubRequestDispatcher subRequestDispatcher;
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void a_batch_returns_the_response_of_each_get_in_order() throws Exception {
+    // arrange
+    List<SubResponse> responses = List.of(
+        SubResponse.builder().url("/api/systemInfo").status(200).headers(Map.of()).body(Map.of("springH2ConsoleEnabled", true)).build(),
+        SubResponse.builder().url("/api/ucsbdates?id=7").status(404).headers(Map.of()).body(null).build());
+    when(subRequestDispatcher.dispatch(any(), eq(List.of("/api/systemInfo", "/api/ucsbdates?id=7")))).thenReturn(responses);
+
+    // act
+    MvcResult response = mockMvc.perform(post("/api/batch").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"url\":\"/api/systemInfo\"},{\"url\":\"/api/ucsbdates?id=7\"}]"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(responses), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void a_batch_needs_the_csrf_token() throws Exception {
+    mockMvc.perform(post("/api/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"url\":\"/api/systemInfo\"}]"))
+        .andExpect(status().is(403));
+    verify(subRequestDispatcher, never()).dispatch(any(), any());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void a_batch_of_too_many_gets_is_rejected() throws Exception {
+    String body = IntStream.range(0, 21).mapToObj(i -> "{\"url\":\"/api/ucsbdates?id=" + i + "\"}")
+        .collect(Collectors.joining(",", "[", "]"));
+
+    MvcResult response = mockMvc.perform(post("/api/batch").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(body))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    assertEquals("at most 20 requests can be batched, not 21", responseToJson(response).get("message"));
+    verify(subRequestDispatcher, never()).dispatch(any(), any());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void only_gets_under_api_can_be_batched() throws Exception {
+    for (String url : new String[] { "/oauth2/authorization/google", "/api/batch", "null" }) {
+      String item = "null".equals(url) ? "{}" : "{\"url\":\"" + url + "\"}";
+      mockMvc.perform(post("/api/batch").with(csrf())
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("[{\"url\":\"/api/systemInfo\"}," + item + "]"))
+          .andExpect(status().isBadRequest());
+    }
+    verify(subRequestDispatcher, never()).dispatch(any(), any());
+  }
+}
@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.DashboardPanel;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DashboardService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = DashboardController.class)
+public class DashboardControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  DashboardService dashboardService;
+
+  @Test
+  public void logged_out_users_cannot_get_the_dashboard() throws Exception {
+    mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().is(403));
+    verify(dashboardService, never()).getDashboard();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_users_get_the_dashboard() throws Exception {
+    // arrange
+    HelpRequest help = HelpRequest.builder()
+        .id(1)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId("s22-5pm-3")
+        .tableOrBreakoutRoom("7")
+        .requestTime(LocalDateTime.parse("2022-04-20T17:35:00"))
+        .explanation("Need help with Swagger-ui")
+        .build();
+    Dashboard dashboard = Dashboard.builder()
+        .openHelpRequests(DashboardPanel.<HelpRequest>builder().count(1L).items(List.of(help)).millis(1.5).build())
+        .newestArticles(DashboardPanel.<Article>builder().millis(500).error("timed out after 500 ms").build())
+        .millis(502)
+        .build();
+    when(dashboardService.getDashboard()).thenReturn(dashboard);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(dashboard), response.getResponse().getContentAsString());
+  }
+}
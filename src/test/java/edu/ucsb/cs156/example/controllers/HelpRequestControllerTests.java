@@ -16,6 +16,11 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,9 +29,13 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -358,4 +367,265 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         //                         .andExpect(status().is(200)); // logged
         //         when(HelpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
         // }
-}
\ No newline at end of file
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_help_requests() throws Exception {
+
+                // arrange
+
+                HelpRequest first = HelpRequest.builder().id(1L).build();
+                HelpRequest second = HelpRequest.builder().id(2L).build();
+                HelpRequest third = HelpRequest.builder().id(3L).build();
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequest/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(0)).findAll();
+                KeysetPage<HelpRequest> expectedPage = KeysetPage.<HelpRequest>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor(2L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_help_requests() throws Exception {
+
+                // arrange
+
+                HelpRequest third = HelpRequest.builder().id(3L).build();
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequest/all?after=2&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<HelpRequest> expectedPage = KeysetPage.<HelpRequest>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_help_requests() throws Exception {
+                mockMvc.perform(get("/api/helprequest/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_help_requests_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/helprequest/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_patch_solved() throws Exception {
+                mockMvc.perform(patch("/api/helprequest/solved?id=15&solved=true").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_patch_solved() throws Exception {
+                mockMvc.perform(patch("/api/helprequest/solved?id=15&solved=true").with(csrf()))
+                                .andExpect(status().is(403));
+                verify(helpRequestRepository, times(0)).updateSolved(anyLong(), anyBoolean());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_mark_a_help_request_solved_without_loading_it() throws Exception {
+                // arrange
+                when(helpRequestRepository.updateSolved(15L, true)).thenReturn(1);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/helprequest/solved?id=15&solved=true")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).updateSolved(15L, true);
+                verify(helpRequestRepository, times(0)).findById(any());
+                verify(helpRequestRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("HelpRequest with id 15 updated (solved=true)", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_solved_on_a_help_request_that_does_not_exist() throws Exception {
+                // arrange
+                when(helpRequestRepository.updateSolved(15L, false)).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/helprequest/solved?id=15&solved=false")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("HelpRequest with id 15 not found", json.get("message"));
+        }
+
+        @Test
+        public void logged_out_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/helprequest/bulk?ids=1,2").with(csrf()))
+                                .andExpect(status().is(403));
+                mockMvc.perform(delete("/api/helprequest/solved?before=2022-01-03T00:00:00").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/helprequest/bulk?ids=1,2").with(csrf()))
+                                .andExpect(status().is(403));
+                mockMvc.perform(delete("/api/helprequest/solved?before=2022-01-03T00:00:00").with(csrf()))
+                                .andExpect(status().is(403));
+                verify(helpRequestRepository, times(0)).deleteByIdIn(any());
+                verify(helpRequestRepository, times(0)).deleteSolvedBefore(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_many_help_requests_by_id_in_one_statement() throws Exception {
+                // arrange
+                when(helpRequestRepository.deleteByIdIn(eq(Set.of(15L, 16L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/helprequest/bulk?ids=15,16")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(0)).findById(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("requested"));
+                assertEquals(2, json.get("deleted"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_solved_help_requests_made_before_a_time() throws Exception {
+                // arrange
+                LocalDateTime before = LocalDateTime.parse("2022-01-03T00:00:00");
+                when(helpRequestRepository.deleteSolvedBefore(before)).thenReturn(7);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/helprequest/solved?before=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).deleteSolvedBefore(before);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(7, json.get("deleted"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_patch_solved_at_the_version_they_read() throws Exception {
+                // arrange
+                when(helpRequestRepository.updateSolved(15L, true, 4L)).thenReturn(1);
+
+                // act
+                mockMvc.perform(patch("/api/helprequest/solved?id=15&solved=true").header("If-Match", "\"4\"").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(helpRequestRepository, times(1)).updateSolved(15L, true, 4L);
+                verify(helpRequestRepository, times(0)).updateSolved(anyLong(), anyBoolean());
+                verify(helpRequestRepository, times(0)).existsById(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_solved_on_a_help_request_that_changed_since_they_read_it() throws Exception {
+                // arrange
+                when(helpRequestRepository.updateSolved(15L, true, 4L)).thenReturn(0);
+                when(helpRequestRepository.existsById(15L)).thenReturn(true);
+                when(helpRequestRepository.updateSolved(16L, true, 4L)).thenReturn(0);
+                when(helpRequestRepository.existsById(16L)).thenReturn(false);
+
+                // act
+                MvcResult response = mockMvc.perform(patch("/api/helprequest/solved?id=15&solved=true").header("If-Match", "\"4\"").with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+                mockMvc.perform(patch("/api/helprequest/solved?id=16&solved=true").header("If-Match", "\"4\"").with(csrf()))
+                                .andExpect(status().isNotFound());
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("HelpRequest with id 15 has been modified since version 4", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(3L).requesterEmail("first@ucsb.edu").build();
+                HelpRequest second = HelpRequest.builder().id(1L).requesterEmail("second@ucsb.edu").build();
+                when(helpRequestRepository.findAllById(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/helprequest?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllById(eq(Set.of(3L, 2L, 1L)));
+                verify(helpRequestRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<HelpRequest, Long>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of(2L))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+}
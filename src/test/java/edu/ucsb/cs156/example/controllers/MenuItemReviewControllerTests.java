@@ -15,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -22,12 +23,23 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingRebuildJob;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,20 +47,33 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyLong;
 
 
 
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, MenuItemRatingService.class })
 public class MenuItemReviewControllerTests extends ControllerTestCase{
 
     @MockBean
     MenuItemReviewsRepository menuItemReviewsRepository;
 
+    @MockBean
+    MenuItemRatingRollupRepository menuItemRatingRollupRepository;
+
+    @MockBean
+    MenuItemRatingRebuildJob menuItemRatingRebuildJob;
+
     @MockBean
     UserRepository userRepository;
 
+    @BeforeEach
+    void every_item_has_an_empty_rollup_unless_a_test_says_otherwise() {
+        when(menuItemRatingRollupRepository.findLockedByItemId(anyLong()))
+                .thenAnswer(invocation -> Optional.of(MenuItemRatingRollup.builder().itemId(invocation.getArgument(0)).build()));
+    }
+
     @Test
     public void logged_out_users_cannot_get_all() throws Exception {
         mockMvc.perform(get("/api/menuitemreview/all"))
@@ -317,9 +342,278 @@ public class MenuItemReviewControllerTests extends ControllerTestCase{
             assertEquals("MenuItemReviews with id 67 not found", json.get("message"));
         }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_page_of_menu_item_reviews() throws Exception {
+
+        // arrange
+
+        MenuItemReviews first = MenuItemReviews.builder().id(1L).build();
+        MenuItemReviews second = MenuItemReviews.builder().id(2L).build();
+        MenuItemReviews third = MenuItemReviews.builder().id(3L).build();
 
+        when(menuItemReviewsRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                .thenReturn(Arrays.asList(first, second, third));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?limit=2"))
+                .andExpect(status().isOk()).andReturn();
 
+        // assert
+
+        verify(menuItemReviewsRepository, times(0)).findAll();
+        KeysetPage<MenuItemReviews> expectedPage = KeysetPage.<MenuItemReviews>builder()
+                .items(Arrays.asList(first, second))
+                .nextCursor(2L)
+                .build();
+        String expectedJson = mapper.writeValueAsString(expectedPage);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_the_last_page_of_menu_item_reviews() throws Exception {
+
+        // arrange
+
+        MenuItemReviews third = MenuItemReviews.builder().id(3L).build();
+
+        when(menuItemReviewsRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                .thenReturn(Arrays.asList(third));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/all?after=2&limit=2"))
+                .andExpect(status().isOk()).andReturn();
 
+        // assert
 
+        KeysetPage<MenuItemReviews> expectedPage = KeysetPage.<MenuItemReviews>builder()
+                .items(Arrays.asList(third))
+                .nextCursor(null)
+                .build();
+        String expectedJson = mapper.writeValueAsString(expectedPage);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @Test
+    public void logged_out_users_cannot_stream_all_menu_item_reviews() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/all").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_stream_all_menu_item_reviews_as_ndjson() throws Exception {
+
+        // arrange
+
+        // the body waits until the request has left the filter chain so that
+        // writing it does not race the security headers on the mock response
+        CountDownLatch released = new CountDownLatch(1);
+        StreamingResponseBody body = out -> {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.write("{\"id\":1}\n".getBytes());
+        };
+        when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+        // act
+        MvcResult started = mockMvc.perform(get("/api/menuitemreview/all").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        released.countDown();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // assert
+
+        verify(ndjsonStreamingService, times(1)).stream(any());
+        assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+    }
+
+    // Tests for the rating rollups
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void posting_a_review_adds_it_to_the_item_rating() throws Exception {
+        // arrange
+        MenuItemRatingRollup rollup = MenuItemRatingRollup.builder()
+                .itemId(7L).reviewCount(1).starsSum(5).stars5(1).build();
+        when(menuItemRatingRollupRepository.findLockedByItemId(7L)).thenReturn(Optional.of(rollup));
+
+        // act
+        mockMvc.perform(post("/api/menuitemreview/post")
+                .param("itemId", "7")
+                .param("reviewEmail", "cgaucho@ucsb.edu")
+                .param("stars", "3")
+                .param("dateReviewed", "2022-01-03T00:00:00")
+                .param("comments", "fine")
+                .with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(menuItemRatingRollupRepository, times(1)).save(MenuItemRatingRollup.builder()
+                .itemId(7L).reviewCount(2).starsSum(8).stars3(1).stars5(1).build());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void editing_the_stars_of_a_review_moves_it_between_buckets() throws Exception {
+        // arrange
+        LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+        MenuItemReviews original = MenuItemReviews.builder()
+                .id(10L).itemId(7L).reviewEmail("cgaucho@ucsb.edu").stars(2).dateReviewed(ldt).comments("meh").build();
+        MenuItemReviews edited = MenuItemReviews.builder()
+                .id(10L).itemId(7L).reviewEmail("cgaucho@ucsb.edu").stars(4).dateReviewed(ldt).comments("better").build();
+        MenuItemRatingRollup rollup = MenuItemRatingRollup.builder()
+                .itemId(7L).reviewCount(1).starsSum(2).stars2(1).build();
+        when(menuItemReviewsRepository.findById(10L)).thenReturn(Optional.of(original));
+        when(menuItemRatingRollupRepository.findLockedByItemId(7L)).thenReturn(Optional.of(rollup));
+
+        // act
+        mockMvc.perform(put("/api/menuitemreview?id=10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        assertEquals(MenuItemRatingRollup.builder().itemId(7L).reviewCount(1).starsSum(4).stars4(1).build(), rollup);
+        verify(menuItemRatingRollupRepository, times(2)).save(rollup);
+    }
 
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void editing_only_the_comments_of_a_review_leaves_the_rating_alone() throws Exception {
+        // arrange
+        LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+        MenuItemReviews original = MenuItemReviews.builder()
+                .id(10L).itemId(7L).reviewEmail("cgaucho@ucsb.edu").stars(2).dateReviewed(ldt).comments("meh").build();
+        MenuItemReviews edited = MenuItemReviews.builder()
+                .id(10L).itemId(7L).reviewEmail("cgaucho@ucsb.edu").stars(2).dateReviewed(ldt).comments("still meh").build();
+        when(menuItemReviewsRepository.findById(10L)).thenReturn(Optional.of(original));
+
+        // act
+        mockMvc.perform(put("/api/menuitemreview?id=10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(menuItemRatingRollupRepository, times(0)).findLockedByItemId(anyLong());
+        verify(menuItemRatingRollupRepository, times(0)).save(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void deleting_a_review_removes_it_from_the_item_rating() throws Exception {
+        // arrange
+        MenuItemReviews review = MenuItemReviews.builder()
+                .id(10L).itemId(7L).reviewEmail("cgaucho@ucsb.edu").stars(1)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00")).comments("cold").build();
+        MenuItemRatingRollup rollup = MenuItemRatingRollup.builder()
+                .itemId(7L).reviewCount(2).starsSum(6).stars1(1).stars5(1).build();
+        when(menuItemReviewsRepository.findById(10L)).thenReturn(Optional.of(review));
+        when(menuItemRatingRollupRepository.findLockedByItemId(7L)).thenReturn(Optional.of(rollup));
+
+        // act
+        mockMvc.perform(delete("/api/menuitemreview?id=10").with(csrf()))
+                .andExpect(status().isOk());
+
+        // assert
+        verify(menuItemRatingRollupRepository, times(1)).save(MenuItemRatingRollup.builder()
+                .itemId(7L).reviewCount(1).starsSum(5).stars5(1).build());
+    }
+
+    @Test
+    public void logged_out_users_cannot_get_ratings() throws Exception {
+        mockMvc.perform(get("/api/menuitemreview/ratings?itemId=7"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_the_rating_of_an_item() throws Exception {
+        // arrange
+        MenuItemRatingRollup rollup = MenuItemRatingRollup.builder()
+                .itemId(7L).reviewCount(2).starsSum(7).stars3(1).stars4(1).build();
+        when(menuItemRatingRollupRepository.findById(7L)).thenReturn(Optional.of(rollup));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/ratings?itemId=7"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(2, json.get("reviewCount"));
+        assertEquals(3.5, json.get("averageStars"));
+        assertEquals(mapper.writeValueAsString(rollup), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void an_item_without_reviews_has_an_empty_rating() throws Exception {
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview/ratings?itemId=8"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(menuItemRatingRollupRepository, times(1)).findById(8L);
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(8, json.get("itemId"));
+        assertEquals(0, json.get("reviewCount"));
+        assertEquals(0.0, json.get("averageStars"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_rebuild_ratings() throws Exception {
+        mockMvc.perform(post("/api/menuitemreview/ratings/rebuild").with(csrf()))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_can_rebuild_ratings() throws Exception {
+        // arrange
+        when(menuItemRatingRebuildJob.rebuild()).thenReturn(12);
+
+        // act
+        MvcResult response = mockMvc.perform(post("/api/menuitemreview/ratings/rebuild").with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(menuItemRatingRebuildJob, times(1)).rebuild();
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("Rebuilt rating summaries for 12 menu items", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+        // arrange
+        MenuItemReviews first = MenuItemReviews.builder().id(3L).comments("first").build();
+        MenuItemReviews second = MenuItemReviews.builder().id(1L).comments("second").build();
+        when(menuItemReviewsRepository.findAllById(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/menuitemreview?ids=3,2,1,3"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(menuItemReviewsRepository, times(1)).findAllById(eq(Set.of(3L, 2L, 1L)));
+        verify(menuItemReviewsRepository, times(0)).findById(any());
+        String expectedJson = mapper.writeValueAsString(BatchResult.<MenuItemReviews, Long>builder()
+                .items(List.of(first, second))
+                .missing(List.of(2L))
+                .build());
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
 }
@@ -18,6 +18,11 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,9 +31,13 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -340,6 +349,191 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 123 not found", json.get("message"));
         }
-    
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_recommendation_requests() throws Exception {
+
+                // arrange
+
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).build();
+                RecommendationRequest second = RecommendationRequest.builder().id(2L).build();
+                RecommendationRequest third = RecommendationRequest.builder().id(3L).build();
+
+                when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(recommendationRequestRepository, times(0)).findAll();
+                KeysetPage<RecommendationRequest> expectedPage = KeysetPage.<RecommendationRequest>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor(2L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_recommendation_requests() throws Exception {
+
+                // arrange
+
+                RecommendationRequest third = RecommendationRequest.builder().id(3L).build();
+
+                when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/all?after=2&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<RecommendationRequest> expectedPage = KeysetPage.<RecommendationRequest>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_recommendation_requests() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_recommendation_requests_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/RecommendationRequest/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void logged_out_users_cannot_patch_done() throws Exception {
+                mockMvc.perform(patch("/api/RecommendationRequest/done?id=15&done=true").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_patch_done() throws Exception {
+                mockMvc.perform(patch("/api/RecommendationRequest/done?id=15&done=true").with(csrf()))
+                                .andExpect(status().is(403));
+                verify(recommendationRequestRepository, times(0)).updateDone(anyLong(), anyBoolean());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_mark_a_recommendation_request_done_without_loading_it() throws Exception {
+                // arrange
+                when(recommendationRequestRepository.updateDone(15L, true)).thenReturn(1);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/RecommendationRequest/done?id=15&done=true")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).updateDone(15L, true);
+                verify(recommendationRequestRepository, times(0)).findById(any());
+                verify(recommendationRequestRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("RecommendationRequest with id 15 updated (done=true)", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_patch_done_on_a_help_request_that_does_not_exist() throws Exception {
+                // arrange
+                when(recommendationRequestRepository.updateDone(15L, false)).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                patch("/api/RecommendationRequest/done?id=15&done=false")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_only_patch_done_at_the_version_they_read() throws Exception {
+                // arrange
+                when(recommendationRequestRepository.updateDone(15L, true, 2L)).thenReturn(1);
+                when(recommendationRequestRepository.updateDone(15L, true, 1L)).thenReturn(0);
+                when(recommendationRequestRepository.existsById(15L)).thenReturn(true);
+
+                // act
+                mockMvc.perform(patch("/api/RecommendationRequest/done?id=15&done=true").header("If-Match", "\"2\"").with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(patch("/api/RecommendationRequest/done?id=15&done=true").header("If-Match", "\"1\"").with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).updateDone(15L, true, 2L);
+                verify(recommendationRequestRepository, times(1)).updateDone(15L, true, 1L);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(3L).requesterEmail("first@ucsb.edu").build();
+                RecommendationRequest second = RecommendationRequest.builder().id(1L).requesterEmail("second@ucsb.edu").build();
+                when(recommendationRequestRepository.findAllById(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).findAllById(eq(Set.of(3L, 2L, 1L)));
+                verify(recommendationRequestRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<RecommendationRequest, Long>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of(2L))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -16,12 +16,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -294,4 +301,121 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 assertEquals("Restaurant with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_restaurants() throws Exception {
+
+                // arrange
+
+                Restaurant first = Restaurant.builder().id(1L).build();
+                Restaurant second = Restaurant.builder().id(2L).build();
+                Restaurant third = Restaurant.builder().id(3L).build();
+
+                when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantRepository, times(0)).findAll();
+                KeysetPage<Restaurant> expectedPage = KeysetPage.<Restaurant>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor(2L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_restaurants() throws Exception {
+
+                // arrange
+
+                Restaurant third = Restaurant.builder().id(3L).build();
+
+                when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/all?after=2&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<Restaurant> expectedPage = KeysetPage.<Restaurant>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_restaurants() throws Exception {
+                mockMvc.perform(get("/api/restaurants/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_restaurants_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/restaurants/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+                // arrange
+                Restaurant first = Restaurant.builder().id(3L).name("Taco Bell").build();
+                Restaurant second = Restaurant.builder().id(1L).name("Freebirds").build();
+                when(restaurantRepository.findAllById(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(restaurantRepository, times(1)).findAllById(eq(Set.of(3L, 2L, 1L)));
+                verify(restaurantRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<Restaurant, Long>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of(2L))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
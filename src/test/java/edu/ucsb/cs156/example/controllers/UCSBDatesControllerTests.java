@@ -9,6 +9,7 @@ import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -16,6 +17,11 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +30,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -315,4 +322,290 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_ucsb_dates() throws Exception {
+
+                // arrange
+
+                UCSBDate first = UCSBDate.builder().id(1L).build();
+                UCSBDate second = UCSBDate.builder().id(2L).build();
+                UCSBDate third = UCSBDate.builder().id(3L).build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(0)).findAll();
+                KeysetPage<UCSBDate> expectedPage = KeysetPage.<UCSBDate>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor(2L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_ucsb_dates() throws Exception {
+
+                // arrange
+
+                UCSBDate third = UCSBDate.builder().id(3L).build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all?after=2&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<UCSBDate> expectedPage = KeysetPage.<UCSBDate>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_ucsb_dates() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_ucsb_dates_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/ucsbdates/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/ucsbdates/quarter and /api/ucsbdates/quarters
+
+        @Test
+        public void logged_out_users_cannot_get_dates_by_quarter() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20222"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20221&to=20224"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_in_a_quarter() throws Exception {
+
+                // arrange
+                UCSBDate firstDay = UCSBDate.builder()
+                                                .name("firstDayOfClasses")
+                                                .quarterYYYYQ("20222")
+                                                .localDateTime(LocalDateTime.parse("2022-03-28T00:00:00"))
+                                                .build();
+                UCSBDate lastDay = UCSBDate.builder()
+                                                .name("lastDayOfClasses")
+                                                .quarterYYYYQ("20222")
+                                                .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+                                                .build();
+                when(ucsbDateRepository.findByQuarterYYYYQOrderByLocalDateTimeAsc(eq("20222")))
+                                                .thenReturn(Arrays.asList(firstDay, lastDay));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20222"))
+                                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findByQuarterYYYYQOrderByLocalDateTimeAsc("20222");
+                String expectedJson = mapper.writeValueAsString(Arrays.asList(firstDay, lastDay));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_dates_in_a_range_of_quarters() throws Exception {
+
+                // arrange
+                UCSBDate winter = UCSBDate.builder()
+                                                .name("firstDayOfClasses")
+                                                .quarterYYYYQ("20241")
+                                                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                                .build();
+                UCSBDate fall = UCSBDate.builder()
+                                                .name("firstDayOfClasses")
+                                                .quarterYYYYQ("20244")
+                                                .localDateTime(LocalDateTime.parse("2024-09-26T00:00:00"))
+                                                .build();
+                when(ucsbDateRepository.findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc(eq("20241"), eq("20244")))
+                                                .thenReturn(Arrays.asList(winter, fall));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarters?from=20241&to=20244"))
+                                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc("20241", "20244");
+                String expectedJson = mapper.writeValueAsString(Arrays.asList(winter, fall));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_malformed_quarter_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=2022Q2"))
+                                                .andExpect(status().isBadRequest()).andReturn();
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20225&to=20231"))
+                                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdates/quarters?from=20221&to=2023"))
+                                                .andExpect(status().isBadRequest());
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("quarterYYYYQ must be a quarter in the format YYYYQ, e.g. 20241, not 2022Q2", json.get("message"));
+                verify(ucsbDateRepository, times(0)).findByQuarterYYYYQOrderByLocalDateTimeAsc(any());
+                verify(ucsbDateRepository, times(0)).findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc(any(), any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_range_that_ends_before_it_starts_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarters?from=20244&to=20241"))
+                                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("from (20244) is after to (20241)", json.get("message"));
+                verify(ucsbDateRepository, times(0)).findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc(any(), any());
+        }
+
+        @Test
+        public void logged_out_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/ucsbdates/bulk?ids=1,2").with(csrf()))
+                                .andExpect(status().is(403));
+                mockMvc.perform(delete("/api/ucsbdates/quarter?quarterYYYYQ=20222").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/ucsbdates/bulk?ids=1,2").with(csrf()))
+                                .andExpect(status().is(403));
+                mockMvc.perform(delete("/api/ucsbdates/quarter?quarterYYYYQ=20222").with(csrf()))
+                                .andExpect(status().is(403));
+                verify(ucsbDateRepository, times(0)).deleteByIdIn(any());
+                verify(ucsbDateRepository, times(0)).deleteByQuarterYYYYQ(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_many_dates_by_id_in_one_statement() throws Exception {
+                // arrange
+                when(ucsbDateRepository.deleteByIdIn(eq(Set.of(1L, 2L, 3L)))).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdates/bulk?ids=1,2,3,2")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).deleteByIdIn(eq(Set.of(1L, 2L, 3L)));
+                verify(ucsbDateRepository, times(0)).findById(any());
+                verify(ucsbDateRepository, times(0)).delete(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(3, json.get("requested"));
+                assertEquals(2, json.get("deleted"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_every_date_in_a_quarter() throws Exception {
+                // arrange
+                when(ucsbDateRepository.deleteByQuarterYYYYQ("20222")).thenReturn(5);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdates/quarter?quarterYYYYQ=20222")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).deleteByQuarterYYYYQ("20222");
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(5, json.get("deleted"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_delete_a_malformed_quarter() throws Exception {
+                // act
+                mockMvc.perform(delete("/api/ucsbdates/quarter?quarterYYYYQ=2022Q2").with(csrf()))
+                                .andExpect(status().isBadRequest());
+
+                // assert
+                verify(ucsbDateRepository, times(0)).deleteByQuarterYYYYQ(any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(3L).name("firstDayOfClasses").build();
+                UCSBDate second = UCSBDate.builder().id(1L).name("lastDayOfClasses").build();
+                when(ucsbDateRepository.findAllById(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllById(eq(Set.of(3L, 2L, 1L)));
+                verify(ucsbDateRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<UCSBDate, Long>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of(2L))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -16,16 +16,25 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -202,6 +211,26 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_cannot_post_a_commons_whose_code_is_taken() throws Exception {
+                // arrange
+
+                when(ucsbDiningCommonsRepository.existsById(eq("ortega"))).thenReturn(true);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsbdiningcommons/post?name=Ortega&code=ortega&hasSackMeal=true&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.410987&longitude=-119.84709")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, never()).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityAlreadyExistsException", json.get("type"));
+                assertEquals("UCSBDiningCommons with id ortega already exists", json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_can_delete_a_date() throws Exception {
@@ -332,4 +361,222 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_commons() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons second = UCSBDiningCommons.builder().code("dlg").build();
+                UCSBDiningCommons third = UCSBDiningCommons.builder().code("ortega").build();
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(0)).findAll();
+                KeysetPage<UCSBDiningCommons> expectedPage = KeysetPage.<UCSBDiningCommons>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor("dlg")
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_commons() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons third = UCSBDiningCommons.builder().code("ortega").build();
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq("dlg"), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all?after=dlg&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<UCSBDiningCommons> expectedPage = KeysetPage.<UCSBDiningCommons>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_commons() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_commons_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommons/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        private UCSBDiningCommons carrilloAtVersion(long version) {
+                return UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .version(version)
+                                .build();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_id_returns_the_version_as_the_etag() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloAtVersion(3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals("\"3\"", response.getResponse().getHeader("ETag"));
+                assertFalse(response.getResponse().getContentAsString().contains("version"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_edit_commons_at_the_version_they_read() throws Exception {
+                // arrange
+                UCSBDiningCommons carrillo = carrilloAtVersion(3);
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrillo));
+
+                // act
+                mockMvc.perform(
+                                put("/api/ucsbdiningcommons?code=carrillo")
+                                                .header("If-Match", "\"3\"")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(carrilloAtVersion(0)))
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).save(carrillo);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_commons_that_changed_since_they_read_it() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloAtVersion(3)));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ucsbdiningcommons?code=carrillo")
+                                                .header("If-Match", "\"2\"")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(carrilloAtVersion(0)))
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("PreconditionFailedException", json.get("type"));
+                assertEquals("UCSBDiningCommons with id carrillo has been modified since version 2", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_delete_commons_that_changed_since_they_read_it() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloAtVersion(3)));
+
+                // act
+                mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo").header("If-Match", "\"2\"").with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+                mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo").header("If-Match", "W/\"3\"").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_if_match_that_is_not_a_version_never_matches() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo").header("If-Match", "\"abc\"").with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(0)).delete(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("If-Match \"abc\" is not the ETag of an entity", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_code_in_request_order_in_one_query() throws Exception {
+                // arrange
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+                UCSBDiningCommons second = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+                when(ucsbDiningCommonsRepository.findAllById(eq(Set.of("ortega", "dlg", "carrillo")))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?codes=ortega,dlg,carrillo,ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findAllById(eq(Set.of("ortega", "dlg", "carrillo")));
+                verify(ucsbDiningCommonsRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<UCSBDiningCommons, String>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of("dlg"))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -18,6 +18,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.DiningCommonsMenu;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.models.MenuStation;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.models.BulkLoadFailure;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.services.MenuItemBulkLoadService;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,6 +39,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -44,6 +58,9 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        MenuItemBulkLoadService menuItemBulkLoadService;
+
         // Authorization tests for /api/ucsbdiningcommonsmenuitems/all
 
         @Test
@@ -211,4 +228,228 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 mockMvc.perform(delete("/api/ucsbdiningcommonsmenuitems?id=63").with(csrf()))
                                 .andExpect(status().isNotFound()).andReturn();
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_menu_items() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+                UCSBDiningCommonsMenuItem second = UCSBDiningCommonsMenuItem.builder().id(2L).build();
+                UCSBDiningCommonsMenuItem third = UCSBDiningCommonsMenuItem.builder().id(3L).build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+                KeysetPage<UCSBDiningCommonsMenuItem> expectedPage = KeysetPage.<UCSBDiningCommonsMenuItem>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor(2L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_menu_items() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommonsMenuItem third = UCSBDiningCommonsMenuItem.builder().id(3L).build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/all?after=2&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<UCSBDiningCommonsMenuItem> expectedPage = KeysetPage.<UCSBDiningCommonsMenuItem>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_menu_items() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_menu_items_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        // Tests for POST /api/ucsbdiningcommonsmenuitems/bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_load() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommonsmenuitems/bulk")
+                                .contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_load() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommonsmenuitems/bulk")
+                                .contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403)); // only admins can bulk load
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_load_menu_items() throws Exception {
+                // arrange
+
+                BulkLoadResult result = BulkLoadResult.builder()
+                                .received(2)
+                                .inserted(1)
+                                .failures(List.of(new BulkLoadFailure(1, "station is required")))
+                                .build();
+                when(menuItemBulkLoadService.load(any())).thenReturn(result);
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommonsmenuitems/bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"diningCommonsCode\":\"ortega\",\"name\":\"Tofu\",\"station\":\"Grill\"},{\"diningCommonsCode\":\"ortega\",\"name\":\"Soup\"}]")
+                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemBulkLoadService, times(1)).load(any());
+                String expectedJson = mapper.writeValueAsString(result);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_gets_bad_request_when_bulk_load_body_is_not_an_array() throws Exception {
+                // arrange
+
+                when(menuItemBulkLoadService.load(any())).thenThrow(new BadRequestException("expected a JSON array of menu items"));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommonsmenuitems/bulk")
+                                .contentType(MediaType.APPLICATION_JSON).content("{}").with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("expected a JSON array of menu items", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_id_in_request_order_in_one_query() throws Exception {
+                // arrange
+                UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(3L).name("Pizza").build();
+                UCSBDiningCommonsMenuItem second = UCSBDiningCommonsMenuItem.builder().id(1L).name("Salad").build();
+                when(ucsbDiningCommonsMenuItemRepository.findAllById(eq(Set.of(3L, 2L, 1L)))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllById(eq(Set.of(3L, 2L, 1L)));
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<UCSBDiningCommonsMenuItem, Long>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of(2L))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/ucsbdiningcommonsmenuitems/menu
+
+        @Test
+        public void logged_out_users_cannot_get_menu() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=portola"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_menu_grouped_by_station_from_one_query() throws Exception {
+                // arrange
+                MenuItemRating bowl = new MenuItemRating(4L, "Grill", "Tofu Bowl", 0L, 0.0);
+                MenuItemRating burger = new MenuItemRating(2L, "Grill", "Veggie Burger", 2L, 3.5);
+                MenuItemRating pizza = new MenuItemRating(1L, "North", "Cheese Pizza", 1L, 5.0);
+                when(ucsbDiningCommonsMenuItemRepository.findMenuWithRatings(eq("portola")))
+                                .thenReturn(List.of(bowl, burger, pizza));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=portola"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findMenuWithRatings(eq("portola"));
+                verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+                String expectedJson = mapper.writeValueAsString(new DiningCommonsMenu("portola", List.of(
+                                new MenuStation("Grill", List.of(bowl, burger)),
+                                new MenuStation("North", List.of(pizza)))));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void menu_of_commons_without_items_has_no_stations() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsMenuItemRepository.findMenuWithRatings(eq("carrillo"))).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=carrillo"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expectedJson = mapper.writeValueAsString(new DiningCommonsMenu("carrillo", List.of()));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -16,17 +16,25 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BatchResult;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.CountDownLatch;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -98,6 +106,26 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_admin_user_cannot_post_a_organization_whose_code_is_taken() throws Exception {
+                // arrange
+
+                when(ucsbOrganizationsRepository.existsById(eq("ZPR"))).thenReturn(true);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsborganizations/post?orgCode=ZPR&orgTranslationShort=ZETA PHI RHO&orgTranslation=ZETA PHI RHO&inactive=false")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationsRepository, never()).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityAlreadyExistsException", json.get("type"));
+                assertEquals("UCSBOrganizations with id ZPR already exists", json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_organization_with_inactive_true() throws Exception {
@@ -371,4 +399,121 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganizations with id ZPR not found", json.get("message"));
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_organizations() throws Exception {
+
+                // arrange
+
+                UCSBOrganizations first = UCSBOrganizations.builder().orgCode("KRC").build();
+                UCSBOrganizations second = UCSBOrganizations.builder().orgCode("OSLI").build();
+                UCSBOrganizations third = UCSBOrganizations.builder().orgCode("ZPR").build();
+
+                when(ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(""), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsborganizations/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbOrganizationsRepository, times(0)).findAll();
+                KeysetPage<UCSBOrganizations> expectedPage = KeysetPage.<UCSBOrganizations>builder()
+                                .items(Arrays.asList(first, second))
+                                .nextCursor("OSLI")
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_last_page_of_organizations() throws Exception {
+
+                // arrange
+
+                UCSBOrganizations third = UCSBOrganizations.builder().orgCode("ZPR").build();
+
+                when(ucsbOrganizationsRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("OSLI"), eq(Limit.of(3))))
+                                .thenReturn(Arrays.asList(third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsborganizations/all?after=OSLI&limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<UCSBOrganizations> expectedPage = KeysetPage.<UCSBOrganizations>builder()
+                                .items(Arrays.asList(third))
+                                .nextCursor(null)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @Test
+        public void logged_out_users_cannot_stream_all_organizations() throws Exception {
+                mockMvc.perform(get("/api/ucsborganizations/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_organizations_as_ndjson() throws Exception {
+
+                // arrange
+
+                // the body waits until the request has left the filter chain so that
+                // writing it does not race the security headers on the mock response
+                CountDownLatch released = new CountDownLatch(1);
+                StreamingResponseBody body = out -> {
+                        try {
+                                released.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        out.write("{\"id\":1}\n".getBytes());
+                };
+                when(ndjsonStreamingService.stream(any())).thenReturn(body);
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/ucsborganizations/all").accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted()).andReturn();
+                released.countDown();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn();
+
+                // assert
+
+                verify(ndjsonStreamingService, times(1)).stream(any());
+                assertEquals("{\"id\":1}\n", response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_many_by_org_code_in_request_order_in_one_query() throws Exception {
+                // arrange
+                UCSBOrganizations first = UCSBOrganizations.builder().orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").build();
+                UCSBOrganizations second = UCSBOrganizations.builder().orgCode("SKY").orgTranslationShort("SKYDIVING CLUB").build();
+                when(ucsbOrganizationsRepository.findAllById(eq(Set.of("ZPR", "OSLI", "SKY")))).thenReturn(List.of(second, first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsborganizations?orgCodes=ZPR,OSLI,SKY,ZPR"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbOrganizationsRepository, times(1)).findAllById(eq(Set.of("ZPR", "OSLI", "SKY")));
+                verify(ucsbOrganizationsRepository, times(0)).findById(any());
+                String expectedJson = mapper.writeValueAsString(BatchResult.<UCSBOrganizations, String>builder()
+                                .items(List.of(first, second))
+                                .missing(List.of("OSLI"))
+                                .build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 }
@@ -13,14 +13,20 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
 
 @WebMvcTest(controllers = UsersController.class)
 @Import(TestConfig.class)
@@ -70,4 +76,54 @@ public class UsersControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
 
   }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void toggleAdmin__user_logged_in() throws Exception {
+    mockMvc.perform(put("/api/admin/users/toggleAdmin?id=7").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void toggleAdmin__admin_can_toggle_a_user_and_the_cached_user_is_invalidated() throws Exception {
+
+    // arrange
+
+    User before = User.builder().id(7L).email("cgaucho@ucsb.edu").admin(false).build();
+    User after = User.builder().id(7L).email("cgaucho@ucsb.edu").admin(true).build();
+    when(userRepository.findById(eq(7L))).thenReturn(Optional.of(before));
+
+    // act
+
+    MvcResult response = mockMvc.perform(put("/api/admin/users/toggleAdmin?id=7").with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).save(after);
+    verify(adminStatusCache, times(1)).put("cgaucho@ucsb.edu", true);
+    verify(currentUserCache, times(1)).invalidate("cgaucho@ucsb.edu");
+    assertEquals(mapper.writeValueAsString(after), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void toggleAdmin__admin_gets_404_for_a_user_that_does_not_exist() throws Exception {
+
+    // arrange
+
+    when(userRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+    // act
+
+    MvcResult response = mockMvc.perform(put("/api/admin/users/toggleAdmin?id=7").with(csrf()))
+        .andExpect(status().isNotFound()).andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("User with id 7 not found", json.get("message"));
+    verify(currentUserCache, never()).invalidate(any());
+  }
 }
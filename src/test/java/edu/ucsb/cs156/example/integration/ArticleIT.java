@@ -17,6 +17,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -83,4 +84,40 @@ public class ArticleIT {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void articles_posted_through_the_api_can_be_searched() throws Exception {
+                // arrange
+                mockMvc.perform(post("/api/articles/post")
+                                .param("title", "Ortega reopens")
+                                .param("url", "https://example.org/ortega")
+                                .param("explanation", "The dining commons at Ortega is open again")
+                                .param("email", "cgaucho@ucsb.edu")
+                                .param("dateAdded", "2022-01-03T00:00:00")
+                                .with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(post("/api/articles/post")
+                                .param("title", "Basketball")
+                                .param("url", "https://example.org/hoops")
+                                .param("explanation", "Gauchos win at home")
+                                .param("email", "cgaucho@ucsb.edu")
+                                .param("dateAdded", "2022-01-04T00:00:00")
+                                .with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(delete("/api/articles?id=2").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // act
+                MvcResult ortega = mockMvc.perform(get("/api/articles/search?q=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult gauchos = mockMvc.perform(get("/api/articles/search?q=gauchos"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                JsonNode hits = mapper.readTree(ortega.getResponse().getContentAsString());
+                assertEquals(1, hits.size());
+                assertEquals("Ortega reopens", hits.get(0).get("article").get("title").asText());
+                assertEquals("[]", gauchos.getResponse().getContentAsString());
+        }
+
 }
@@ -0,0 +1,129 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.time.LocalDateTime;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class BatchIT {
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        ObjectMapper mapper;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private JsonNode batch(String... urls) throws Exception {
+                StringBuilder body = new StringBuilder("[");
+                for (String url : urls) {
+                        body.append(body.length() > 1 ? "," : "").append("{\"url\":\"").append(url).append("\"}");
+                }
+                String response = mockMvc.perform(post("/api/batch").with(csrf())
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(body.append("]").toString()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                return mapper.readTree(response);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void each_get_runs_through_the_handler_chain_as_the_user() throws Exception {
+                // arrange
+                UCSBDate date = ucsbDateRepository.save(UCSBDate.builder()
+                                .quarterYYYYQ("20241")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                .build());
+
+                // act
+                JsonNode responses = batch(
+                                "/api/ucsbdates?id=" + date.getId(),
+                                "/api/ucsbdates?id=" + (date.getId() + 100),
+                                "/api/ucsbdates/all?limit=10",
+                                "/api/ucsbdates/quarters?from=20241&to=20244",
+                                "/api/admin/users",
+                                "/api/systemInfo");
+
+                // assert
+                assertEquals(6, responses.size());
+
+                assertEquals(200, responses.get(0).get("status").asInt());
+                assertEquals("firstDayOfClasses", responses.get(0).get("body").get("name").asText());
+                // the ETag comes from the response advice, as it does for a GET on its own
+                assertEquals("\"0\"", responses.get(0).get("headers").get("ETag").asText());
+
+                assertEquals(404, responses.get(1).get("status").asInt());
+                assertEquals("EntityNotFoundException", responses.get(1).get("body").get("type").asText());
+
+                assertEquals(200, responses.get(2).get("status").asInt());
+                assertEquals("firstDayOfClasses", responses.get(2).get("body").get("items").get(0).get("name").asText());
+
+                assertEquals(200, responses.get(3).get("status").asInt());
+                assertEquals(1, responses.get(3).get("body").size());
+
+                assertEquals(403, responses.get(4).get("status").asInt());
+
+                assertEquals(200, responses.get(5).get("status").asInt());
+                assertNotNull(responses.get(5).get("body").get("oauthLogin"));
+        }
+
+        @Test
+        public void gets_an_anonymous_user_may_not_make_are_forbidden() throws Exception {
+                // act
+                JsonNode responses = batch("/api/systemInfo", "/api/ucsbdates/all");
+
+                // assert
+                assertEquals(200, responses.get(0).get("status").asInt());
+                assertEquals(403, responses.get(1).get("status").asInt());
+                assertEquals("AuthorizationDeniedException", responses.get(1).get("body").get("type").asText());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_get_with_no_handler_is_not_found() throws Exception {
+                // act
+                JsonNode responses = batch("/api/nothing/here");
+
+                // assert
+                assertEquals(404, responses.get(0).get("status").asInt());
+        }
+}
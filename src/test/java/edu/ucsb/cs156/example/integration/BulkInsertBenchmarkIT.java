@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk insert throughput with and without JDBC batching.
+ *
+ * Batch size 1 is what every insert looked like under IDENTITY ids (one
+ * round trip per row); the configured batch size is what the pooled
+ * sequences allow now. Not part of the normal build; run with
+ *
+ * <pre>
+ * mvn test-compile failsafe:integration-test -Dbenchmark=true -Dit.test=BulkInsertBenchmarkIT
+ * </pre>
+ *
+ * and add -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/db
+ * -Dbenchmark.jdbc.username=... -Dbenchmark.jdbc.password=... to run it
+ * against a local Postgres instead of H2.
+ */
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BulkInsertBenchmarkIT {
+
+        private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000);
+        private static final int ROUNDS = 3;
+
+        @DynamicPropertySource
+        static void datasource(DynamicPropertyRegistry registry) {
+                String url = System.getProperty("benchmark.jdbc.url");
+                if (url != null) {
+                        registry.add("spring.datasource.url", () -> url);
+                        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.jdbc.username", "postgres"));
+                        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.jdbc.password", ""));
+                        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+                }
+        }
+
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        @Autowired
+        SessionFactory sessionFactory;
+
+        @PersistenceContext
+        EntityManager entityManager;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @AfterEach
+        void cleanup() {
+                new TransactionTemplate(transactionManager).executeWithoutResult(
+                                status -> entityManager.createQuery("delete from ucsbdates").executeUpdate());
+        }
+
+        @Test
+        public void compare_bulk_insert_throughput_by_batch_size() {
+                int configured = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize();
+
+                insert(1, 500);
+                insert(configured, 500);
+
+                long unbatched = Long.MAX_VALUE;
+                long batched = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                        unbatched = Math.min(unbatched, insert(1, ROWS));
+                        batched = Math.min(batched, insert(configured, ROWS));
+                }
+
+                log.info("bulk insert of {} rows: batch size 1 {} ms ({} rows/s), batch size {} {} ms ({} rows/s)",
+                                ROWS, unbatched / 1_000_000, rowsPerSecond(unbatched),
+                                configured, batched / 1_000_000, rowsPerSecond(batched));
+        }
+
+        private long insert(int batchSize, int rows) {
+                Statistics statistics = sessionFactory.getStatistics();
+                statistics.setStatisticsEnabled(true);
+                statistics.clear();
+
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                long start = System.nanoTime();
+                transaction.executeWithoutResult(status -> {
+                        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                        LocalDateTime now = LocalDateTime.now();
+                        for (int i = 0; i < rows; i++) {
+                                entityManager.persist(UCSBDate.builder()
+                                                .quarterYYYYQ("20241")
+                                                .name("benchmark-" + i)
+                                                .localDateTime(now)
+                                                .build());
+                                if ((i + 1) % 500 == 0) {
+                                        entityManager.flush();
+                                        entityManager.clear();
+                                }
+                        }
+                });
+                long elapsed = System.nanoTime() - start;
+
+                assertEquals(rows, statistics.getEntityInsertCount());
+                log.info("batch size {}: {} rows, {} statements prepared, {} ms",
+                                batchSize, rows, statistics.getPrepareStatementCount(), elapsed / 1_000_000);
+                statistics.setStatisticsEnabled(false);
+                cleanup();
+                return elapsed;
+        }
+
+        private static long rowsPerSecond(long nanos) {
+                return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+        }
+}
@@ -0,0 +1,184 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.aop.CollectionEtagAspect;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.LocalDateTime;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ConditionalGetIT {
+        @Autowired
+        UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+        @Autowired
+        HelpRequestRepository helpRequestRepository;
+
+        @Autowired
+        CollectionVersionRepository collectionVersionRepository;
+
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private void saveCommons(String code) {
+                ucsbDiningCommonsRepository.save(UCSBDiningCommons.builder()
+                                .code(code)
+                                .name(code)
+                                .latitude(34.4)
+                                .longitude(-119.8)
+                                .build());
+        }
+
+        private String etag(String url) throws Exception {
+                return mockMvc.perform(get(url))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("ETag"))
+                                .andReturn().getResponse().getHeader("ETag");
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_unchanged_collection_is_not_modified_without_reading_its_table() throws Exception {
+                // arrange
+                saveCommons("ortega");
+                saveCommons("carrillo");
+                String etag = etag("/api/ucsbdiningcommons/all");
+
+                // act
+                MockHttpServletResponse response = mockMvc.perform(get("/api/ucsbdiningcommons/all")
+                                                .header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andReturn().getResponse();
+
+                // assert
+                // the first request read the two commons and the version; the second only the version
+                assertEquals("", response.getContentAsString());
+                assertEquals(etag, response.getHeader("ETag"));
+                DistributionSummary rows = meterRegistry.get("db.request.rows")
+                                .tag("uri", "/api/ucsbdiningcommons/all").summary();
+                assertEquals(2, rows.count());
+                assertEquals(4.0, rows.totalAmount());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void posts_and_puts_change_the_etag_of_the_collection() throws Exception {
+                // arrange
+                String before = etag("/api/ucsbdiningcommons/all");
+
+                // act
+                mockMvc.perform(post("/api/ucsbdiningcommons/post?code=ortega&name=Ortega&hasSackMeal=true"
+                                + "&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.4&longitude=-119.8").with(csrf()))
+                                .andExpect(status().isOk());
+                String afterPost = mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", before))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(1))
+                                .andReturn().getResponse().getHeader("ETag");
+                mockMvc.perform(put("/api/ucsbdiningcommons?code=ortega").with(csrf())
+                                                .contentType("application/json")
+                                                .content("{\"code\":\"ortega\",\"name\":\"Ortega Commons\",\"latitude\":34.4,\"longitude\":-119.8}"))
+                                .andExpect(status().isOk());
+                String afterPut = etag("/api/ucsbdiningcommons/all");
+
+                // assert
+                assertNotEquals(before, afterPost);
+                assertNotEquals(afterPost, afterPut);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void a_patch_without_loading_the_entity_changes_the_etag_of_the_collection() throws Exception {
+                // arrange
+                HelpRequest helpRequest = helpRequestRepository.save(HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2024-04-01T17:00:00"))
+                                .explanation("merge conflict")
+                                .solved(false)
+                                .build());
+                String before = etag("/api/helprequest/all");
+
+                // act
+                mockMvc.perform(patch("/api/helprequest/solved?id=" + helpRequest.getId() + "&solved=true").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                mockMvc.perform(get("/api/helprequest/all").header("If-None-Match", before))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].solved").value(true));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_write_on_another_node_changes_the_etag_of_the_collection() throws Exception {
+                // arrange
+                String before = etag("/api/ucsbdiningcommons/all");
+
+                // act
+                collectionVersionRepository.increment("ucsbdiningcommons");
+
+                // assert
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", before))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag("/api/ucsbdiningcommons/all")))
+                                .andExpect(status().isNotModified());
+        }
+
+        @Test
+        public void a_logged_out_conditional_get_is_forbidden_without_an_etag() throws Exception {
+                // arrange
+                String etag = CollectionEtagAspect.etag("helprequest",
+                                collectionVersionRepository.findVersionByName("helprequest").orElse(0L));
+
+                // act
+                MockHttpServletResponse response = mockMvc.perform(get("/api/helprequest/all")
+                                                .header("If-None-Match", etag))
+                                .andExpect(status().isForbidden())
+                                .andReturn().getResponse();
+
+                // assert
+                assertNull(response.getHeader("ETag"));
+        }
+}
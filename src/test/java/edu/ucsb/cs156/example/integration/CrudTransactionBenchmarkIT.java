@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CrudService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Round trips and allocations per update and per read, before and after
+ * CrudService.
+ *
+ * "Before" is what the controllers did: findById and save as two
+ * repository calls, each in its own transaction, so the save merges a
+ * detached entity (an extra SELECT). "After" is one CrudService
+ * transaction. For reads, a read-write transaction is compared with a
+ * read-only one. Not part of the normal build; run with
+ *
+ * <pre>
+ * mvn test-compile failsafe:integration-test -Dbenchmark=true -Dit.test=CrudTransactionBenchmarkIT
+ * </pre>
+ */
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CrudTransactionBenchmarkIT {
+
+        private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000);
+        private static final int OPERATIONS = Integer.getInteger("benchmark.operations", 2_000);
+        private static final int ROUNDS = 3;
+
+        private static final com.sun.management.ThreadMXBean THREADS =
+                        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        CrudService crudService;
+
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private List<Long> ids;
+
+        // every update writes a new name, so none of them is skipped as unchanged
+        private int updates;
+
+        private record Result(int statements, long bytes, long nanos) {
+        }
+
+        @BeforeEach
+        void setup() {
+                List<UCSBDate> dates = new ArrayList<>();
+                for (int i = 0; i < ROWS; i++) {
+                        dates.add(UCSBDate.builder()
+                                        .quarterYYYYQ("20241")
+                                        .name("benchmark-" + i)
+                                        .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                        .build());
+                }
+                ids = new ArrayList<>();
+                ucsbDateRepository.saveAll(dates).forEach(date -> ids.add(date.getId()));
+        }
+
+        @AfterEach
+        void cleanup() {
+                ucsbDateRepository.deleteAll();
+        }
+
+        @Test
+        public void compare_round_trips_and_allocations_per_update() {
+                measure("update, separate transactions", this::updateSeparately);
+                measure("update, one transaction", this::updateInOneTransaction);
+
+                Result before = best("update, separate transactions", this::updateSeparately);
+                Result after = best("update, one transaction", this::updateInOneTransaction);
+
+                // each update also bumps the collection version (see CollectionVersionAspect)
+                assertEquals(4 * OPERATIONS, before.statements());
+                assertEquals(3 * OPERATIONS, after.statements());
+        }
+
+        @Test
+        public void compare_allocations_per_read() {
+                TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+                Runnable readAllReadWrite = () -> readWrite.execute(status -> ucsbDateRepository.findAll());
+                Runnable readAllReadOnly = () -> crudService.read(ucsbDateRepository::findAll);
+
+                measure("read all, read-write", readAllReadWrite);
+                measure("read all, read-only", readAllReadOnly);
+
+                best("read all, read-write", readAllReadWrite);
+                best("read all, read-only", readAllReadOnly);
+        }
+
+        private void updateSeparately() {
+                for (int i = 0; i < OPERATIONS; i++) {
+                        long id = ids.get(i % ids.size());
+                        UCSBDate date = ucsbDateRepository.findById(id)
+                                        .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+                        date.setName("updated-" + updates++);
+                        ucsbDateRepository.save(date);
+                }
+        }
+
+        private void updateInOneTransaction() {
+                for (int i = 0; i < OPERATIONS; i++) {
+                        String name = "updated-" + updates++;
+                        crudService.update(ucsbDateRepository, UCSBDate.class, ids.get(i % ids.size()),
+                                        date -> date.setName(name));
+                }
+        }
+
+        private Result best(String label, Runnable operations) {
+                Result best = null;
+                for (int round = 0; round < ROUNDS; round++) {
+                        Result result = measure(label, operations);
+                        if (best == null || result.nanos() < best.nanos()) {
+                                best = result;
+                        }
+                }
+                log.info("{}: {} statements, {} KB allocated, {} ms", label,
+                                best.statements(), best.bytes() / 1024, best.nanos() / 1_000_000);
+                return best;
+        }
+
+        private Result measure(String label, Runnable operations) {
+                QueryStats stats = new QueryStats();
+                long thread = Thread.currentThread().threadId();
+                QueryStats.bind(stats);
+                long bytes = THREADS.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                try {
+                        operations.run();
+                } finally {
+                        QueryStats.unbind();
+                }
+                return new Result(stats.getStatements(), THREADS.getThreadAllocatedBytes(thread) - bytes,
+                                System.nanoTime() - start);
+        }
+}
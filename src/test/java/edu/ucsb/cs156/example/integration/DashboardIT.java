@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.time.LocalDateTime;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class DashboardIT {
+        @Autowired
+        HelpRequestRepository helpRequestRepository;
+
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        MenuItemRatingRollupRepository menuItemRatingRollupRepository;
+
+        @Autowired
+        ObjectMapper mapper;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private HelpRequest helpRequest(String time, boolean solved) {
+                return HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse(time))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(solved)
+                                .build();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_dashboard_has_every_panel() throws Exception {
+                // arrange
+                helpRequestRepository.save(helpRequest("2022-04-20T17:35:00", false));
+                helpRequestRepository.save(helpRequest("2022-04-21T17:35:00", false));
+                helpRequestRepository.save(helpRequest("2022-04-22T17:35:00", true));
+                ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20221").name("past")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build());
+                ucsbDateRepository.save(UCSBDate.builder().quarterYYYYQ("20991").name("future")
+                                .localDateTime(LocalDateTime.parse("2099-01-03T00:00:00")).build());
+                menuItemRatingRollupRepository.save(MenuItemRatingRollup.builder().itemId(1).reviewCount(2).starsSum(6).build());
+                menuItemRatingRollupRepository.save(MenuItemRatingRollup.builder().itemId(2).reviewCount(1).starsSum(5).build());
+                menuItemRatingRollupRepository.save(MenuItemRatingRollup.builder().itemId(3).reviewCount(0).starsSum(0).build());
+
+                // act
+                String response = mockMvc.perform(get("/api/dashboard"))
+                                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                JsonNode dashboard = mapper.readTree(response);
+
+                // assert
+                JsonNode help = dashboard.get("openHelpRequests");
+                assertEquals(2, help.get("count").asLong());
+                assertEquals("2022-04-21T17:35:00", help.get("items").get(0).get("requestTime").asText());
+                assertTrue(help.get("error").isNull());
+                assertTrue(help.get("millis").asDouble() > 0);
+
+                assertEquals(0, dashboard.get("pendingRecommendationRequests").get("count").asLong());
+                assertEquals(0, dashboard.get("newestArticles").get("items").size());
+
+                JsonNode dates = dashboard.get("upcomingDates");
+                assertEquals(1, dates.get("count").asLong());
+                assertEquals("future", dates.get("items").get(0).get("name").asText());
+
+                JsonNode menuItems = dashboard.get("topRatedMenuItems");
+                assertEquals(2, menuItems.get("count").asLong());
+                assertEquals(2, menuItems.get("items").get(0).get("itemId").asLong());
+                assertEquals(1, menuItems.get("items").get(1).get("itemId").asLong());
+        }
+}
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
@@ -30,6 +31,8 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -122,4 +125,40 @@ public class HelpRequestIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
-}
\ No newline at end of file
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void test_that_logged_in_user_can_page_through_help_requests() throws Exception {
+                // arrange
+
+                LocalDateTime time1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                for (int i = 0; i < 3; i++) {
+                        helpRequestRepository.save(HelpRequest.builder()
+                                        .requesterEmail("student%d@ucsb.edu".formatted(i))
+                                        .teamId("5")
+                                        .tableOrBreakoutRoom("5")
+                                        .requestTime(time1)
+                                        .explanation("explanation")
+                                        .solved(false)
+                                        .build());
+                }
+
+                // act
+
+                MvcResult firstPage = mockMvc.perform(get("/api/helprequest/all?limit=2"))
+                                .andExpect(status().isOk()).andReturn();
+                Map<String, Object> firstJson = mapper.readValue(firstPage.getResponse().getContentAsString(), Map.class);
+                Object cursor = firstJson.get("nextCursor");
+
+                MvcResult secondPage = mockMvc.perform(get("/api/helprequest/all?limit=2&after=" + cursor))
+                                .andExpect(status().isOk()).andReturn();
+                Map<String, Object> secondJson = mapper.readValue(secondPage.getResponse().getContentAsString(), Map.class);
+
+                // assert
+
+                assertEquals(2, ((List<?>) firstJson.get("items")).size());
+                assertEquals(1, ((List<?>) secondJson.get("items")).size());
+                assertNull(secondJson.get("nextCursor"));
+        }
+}
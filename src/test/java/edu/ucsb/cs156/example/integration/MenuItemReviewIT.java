@@ -28,9 +28,19 @@ import edu.ucsb.cs156.example.repositories.MenuItemReviewsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import org.springframework.data.domain.Limit;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -48,6 +58,9 @@ public class MenuItemReviewIT {
         @Autowired
         MenuItemReviewsRepository menuItemReviewsRepository;
 
+        @Autowired
+        MenuItemRatingService menuItemRatingService;
+
         @Autowired
         public MockMvc mockMvc;
 
@@ -108,4 +121,129 @@ public class MenuItemReviewIT {
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
         }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void ratings_follow_review_changes_and_can_be_rebuilt() throws Exception {
+                // arrange
+
+                for (int stars : new int[] { 5, 4, 4 }) {
+                        mockMvc.perform(post("/api/menuitemreview/post?itemId=6&reviewEmail=test@ucsb.edu&stars=" + stars
+                                        + "&dateReviewed=2022-01-03T00:00&comments=ok").with(csrf()))
+                                        .andExpect(status().isOk());
+                }
+                long firstId = menuItemReviewsRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(1)).get(0).getId();
+                mockMvc.perform(delete("/api/menuitemreview?id=" + firstId).with(csrf()))
+                                .andExpect(status().isOk());
+
+                // act
+
+                MvcResult afterDelete = mockMvc.perform(get("/api/menuitemreview/ratings?itemId=6"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // a review written behind the API's back is only picked up by a rebuild
+                menuItemReviewsRepository.save(MenuItemReviews.builder()
+                                .itemId(6L)
+                                .reviewEmail("test@ucsb.edu")
+                                .stars(1)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00"))
+                                .comments("cold")
+                                .build());
+                mockMvc.perform(post("/api/menuitemreview/ratings/rebuild").with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult afterRebuild = mockMvc.perform(get("/api/menuitemreview/ratings?itemId=6"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                assertEquals(mapper.writeValueAsString(MenuItemRatingRollup.builder()
+                                .itemId(6L).reviewCount(2).starsSum(8).stars4(2).build()),
+                                afterDelete.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(MenuItemRatingRollup.builder()
+                                .itemId(6L).reviewCount(3).starsSum(9).stars1(1).stars4(2).build()),
+                                afterRebuild.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void concurrent_first_reviews_of_an_item_all_count() throws Exception {
+                // arrange
+                int reviewers = 8;
+                CountDownLatch start = new CountDownLatch(1);
+                ExecutorService pool = Executors.newFixedThreadPool(reviewers);
+                List<Future<MenuItemReviews>> results = new ArrayList<>();
+
+                // act
+                for (int i = 0; i < reviewers; i++) {
+                        int stars = 1 + i % 5;
+                        results.add(pool.submit(() -> {
+                                start.await();
+                                return menuItemRatingService.create(MenuItemReviews.builder()
+                                                .itemId(9L)
+                                                .reviewEmail("test@ucsb.edu")
+                                                .stars(stars)
+                                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00"))
+                                                .comments("ok")
+                                                .build());
+                        }));
+                }
+                start.countDown();
+                for (Future<MenuItemReviews> result : results) {
+                        result.get(30, TimeUnit.SECONDS);
+                }
+                pool.shutdown();
+
+                // assert
+                assertEquals(MenuItemRatingRollup.builder()
+                                .itemId(9L).reviewCount(8).starsSum(1 + 2 + 3 + 4 + 5 + 1 + 2 + 3)
+                                .stars1(2).stars2(2).stars3(2).stars4(1).stars5(1).build(),
+                                menuItemRatingService.rollupFor(9L));
+        }
+
+        private static MenuItemReviews review(long itemId, int stars) {
+                return MenuItemReviews.builder()
+                                .itemId(itemId)
+                                .reviewEmail("test@ucsb.edu")
+                                .stars(stars)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00"))
+                                .comments("ok")
+                                .build();
+        }
+
+        @Test
+        public void concurrent_creates_and_rating_changes_on_an_item_do_not_deadlock() throws Exception {
+                // arrange
+                int writers = 6;
+                List<MenuItemReviews> existing = new ArrayList<>();
+                for (int i = 0; i < writers; i++) {
+                        existing.add(menuItemRatingService.create(review(9L, 1)));
+                }
+                CountDownLatch start = new CountDownLatch(1);
+                ExecutorService pool = Executors.newFixedThreadPool(2 * writers);
+                List<Future<MenuItemReviews>> results = new ArrayList<>();
+
+                // act
+                // creates lock the counter and then the rollup if the counter is bumped when the review is
+                // saved, while rating changes lock the rollup first
+                for (MenuItemReviews review : existing) {
+                        results.add(pool.submit(() -> {
+                                start.await();
+                                return menuItemRatingService.create(review(9L, 5));
+                        }));
+                        results.add(pool.submit(() -> {
+                                start.await();
+                                return menuItemRatingService.update(review.getId(), null, review(9L, 3));
+                        }));
+                }
+                start.countDown();
+                for (Future<MenuItemReviews> result : results) {
+                        result.get(30, TimeUnit.SECONDS);
+                }
+                pool.shutdown();
+
+                // assert
+                assertEquals(MenuItemRatingRollup.builder()
+                                .itemId(9L).reviewCount(2 * writers).starsSum(writers * (3 + 5))
+                                .stars3(writers).stars5(writers).build(),
+                                menuItemRatingService.rollupFor(9L));
+        }
 }
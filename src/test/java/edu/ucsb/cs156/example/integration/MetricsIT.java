@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.metrics.scrape.password=scrape-secret")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class MetricsIT {
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void routes_get_latency_histograms_and_status_counts_in_prometheus_format() throws Exception {
+                // arrange
+                mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk());
+                mockMvc.perform(get("/api/ucsbdates?id=12345")).andExpect(status().isNotFound());
+
+                // act
+                String body = mockMvc.perform(get("/actuator/prometheus"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                // assert
+                assertTrue(body.matches("(?s).*http_server_requests_seconds_bucket\\{[^}]*status=\"200\"[^}]*uri=\"/api/ucsbdates/all\"[^}]*}.*"), body);
+                assertTrue(body.matches("(?s).*http_server_requests_seconds_count\\{[^}]*status=\"404\"[^}]*uri=\"/api/ucsbdates\"[^}]*}.*"), body);
+        }
+
+        @Test
+        public void prometheus_can_scrape_with_the_scrape_credential() throws Exception {
+                // arrange
+                mockMvc.perform(get("/api/ucsbdates/all"));
+
+                // act
+                String body = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "scrape-secret")))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                // assert
+                assertTrue(body.contains("http_server_requests_seconds_bucket"), body);
+        }
+
+        @Test
+        public void the_scrape_credential_only_opens_the_prometheus_endpoint() throws Exception {
+                mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "wrong")))
+                                .andExpect(status().isUnauthorized());
+                mockMvc.perform(get("/actuator/metrics").with(httpBasic("prometheus", "scrape-secret")))
+                                .andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/mappings").with(httpBasic("prometheus", "scrape-secret")))
+                                .andExpect(status().isForbidden());
+        }
+
+        @Test
+        public void logged_out_users_cannot_read_actuator_endpoints() throws Exception {
+                mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+                mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void users_who_are_not_admins_cannot_read_actuator_endpoints() throws Exception {
+                mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+                mockMvc.perform(get("/actuator/mappings")).andExpect(status().isForbidden());
+        }
+}
@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.time.LocalDateTime;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class OptimisticLockingIT {
+        @Autowired
+        UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+        @Autowired
+        HelpRequestRepository helpRequestRepository;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @Autowired
+        public ObjectMapper mapper;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private UCSBDiningCommons carrillo(String name) {
+                return UCSBDiningCommons.builder()
+                                .code("carrillo")
+                                .name(name)
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+        }
+
+        private String etag(String url) throws Exception {
+                return mockMvc.perform(get(url))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader("ETag");
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void the_second_of_two_edits_from_the_same_version_fails() throws Exception {
+                // arrange
+                ucsbDiningCommonsRepository.save(carrillo("Carrillo"));
+                String first = etag("/api/ucsbdiningcommons?code=carrillo");
+                String second = etag("/api/ucsbdiningcommons?code=carrillo");
+                assertEquals("\"0\"", first);
+
+                // act
+                mockMvc.perform(put("/api/ucsbdiningcommons?code=carrillo")
+                                                .header("If-Match", first)
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(mapper.writeValueAsString(carrillo("Carrillo Dining Commons")))
+                                                .with(csrf()))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"1\""));
+                mockMvc.perform(put("/api/ucsbdiningcommons?code=carrillo")
+                                                .header("If-Match", second)
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(mapper.writeValueAsString(carrillo("Carrillo Hall")))
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+                mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo")
+                                                .header("If-Match", second)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+
+                // assert
+                UCSBDiningCommons saved = ucsbDiningCommonsRepository.findById("carrillo").get();
+                assertEquals("Carrillo Dining Commons", saved.getName());
+                assertEquals(1, saved.getVersion());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void a_patch_moves_the_version_on() throws Exception {
+                // arrange
+                HelpRequest helpRequest = helpRequestRepository.save(HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2024-04-01T17:00:00"))
+                                .explanation("merge conflict")
+                                .solved(false)
+                                .build());
+                String url = "/api/helprequest?id=" + helpRequest.getId();
+                String before = etag(url);
+
+                // act
+                mockMvc.perform(patch("/api/helprequest/solved?id=" + helpRequest.getId() + "&solved=true")
+                                                .header("If-Match", before)
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(patch("/api/helprequest/solved?id=" + helpRequest.getId() + "&solved=false")
+                                                .header("If-Match", before)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed());
+
+                // assert
+                assertEquals("\"1\"", etag(url));
+                assertTrue(helpRequestRepository.findById(helpRequest.getId()).get().getSolved());
+        }
+}
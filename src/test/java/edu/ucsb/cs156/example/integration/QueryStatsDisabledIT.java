@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.interceptors.QueryStatsHeaderAdvice;
+import edu.ucsb.cs156.example.interceptors.QueryStatsInterceptor;
+import edu.ucsb.cs156.example.jdbc.QueryCountingDataSource;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import javax.sql.DataSource;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = { "app.query-stats.enabled=false", "app.query-stats.header=true" })
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class QueryStatsDisabledIT {
+        @Autowired
+        ApplicationContext context;
+
+        @Autowired
+        DataSource dataSource;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void when_disabled_the_pool_is_used_directly_and_nothing_is_counted() throws Exception {
+                // act
+                String header = mockMvc.perform(get("/api/ucsbdates/all"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+
+                // assert
+                assertFalse(dataSource instanceof QueryCountingDataSource);
+                assertTrue(context.getBeansOfType(QueryStatsInterceptor.class).isEmpty());
+                assertNull(header);
+        }
+}
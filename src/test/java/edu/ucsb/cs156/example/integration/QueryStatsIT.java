@@ -0,0 +1,179 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.contains;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.interceptors.QueryStatsHeaderAdvice;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.LocalDateTime;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.query-stats.header=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class QueryStatsIT {
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        HelpRequestRepository helpRequestRepository;
+
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void responses_carry_the_statements_and_rows_of_the_request() throws Exception {
+                // arrange
+                for (String name : new String[] { "firstDayOfClasses", "lastDayOfClasses" }) {
+                        ucsbDateRepository.save(UCSBDate.builder()
+                                        .quarterYYYYQ("20241")
+                                        .name(name)
+                                        .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                        .build());
+                }
+
+                // act
+                String header = mockMvc.perform(get("/api/ucsbdates/all"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+
+                // assert
+                // the two dates, and the version of the collection (see CollectionEtagAspect)
+                assertTrue(header.matches("statements=[1-9]\\d*; rows=3; db-ms=\\d+\\.\\d{3}"), header);
+                assertEquals(1, meterRegistry.get("db.request.rows").tag("uri", "/api/ucsbdates/all")
+                                .summary().count());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void an_update_is_one_select_one_update_and_a_version_bump() throws Exception {
+                // arrange
+                UCSBDate date = ucsbDateRepository.save(UCSBDate.builder()
+                                .quarterYYYYQ("20241")
+                                .name("firstDayOfClasses")
+                                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                .build());
+                String body = "{\"quarterYYYYQ\":\"20242\",\"name\":\"firstDayOfClasses\",\"localDateTime\":\"2024-04-01T00:00:00\"}";
+
+                // act
+                String header = mockMvc.perform(put("/api/ucsbdates?id=" + date.getId()).with(csrf())
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(body))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+
+                // assert
+                // the collection version is bumped in the same transaction (see CollectionVersionAspect)
+                assertTrue(header.startsWith("statements=3; "), header);
+                assertEquals("20242", ucsbDateRepository.findById(date.getId()).get().getQuarterYYYYQ());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void a_patch_is_a_single_update_and_a_version_bump() throws Exception {
+                // arrange
+                HelpRequest helpRequest = helpRequestRepository.save(HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s24-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2024-04-01T17:00:00"))
+                                .explanation("merge conflict")
+                                .solved(false)
+                                .build());
+
+                // act
+                String header = mockMvc.perform(patch("/api/helprequest/solved?id=" + helpRequest.getId() + "&solved=true")
+                                                .with(csrf()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+
+                // assert
+                assertTrue(header.startsWith("statements=2; "), header);
+                assertTrue(helpRequestRepository.findById(helpRequest.getId()).get().getSolved());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void a_bulk_delete_is_a_single_delete_and_a_version_bump() throws Exception {
+                // arrange
+                for (String quarter : new String[] { "20241", "20241", "20241", "20242" }) {
+                        ucsbDateRepository.save(UCSBDate.builder()
+                                        .quarterYYYYQ(quarter)
+                                        .name("firstDayOfClasses")
+                                        .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                        .build());
+                }
+
+                // act
+                String header = mockMvc.perform(delete("/api/ucsbdates/quarter?quarterYYYYQ=20241")
+                                                .with(csrf()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.deleted").value(3))
+                                .andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+
+                // assert
+                assertTrue(header.startsWith("statements=2; "), header);
+                assertEquals(1, ucsbDateRepository.count());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_batch_get_is_a_single_select() throws Exception {
+                // arrange
+                long[] ids = new long[3];
+                for (int i = 0; i < ids.length; i++) {
+                        ids[i] = ucsbDateRepository.save(UCSBDate.builder()
+                                        .quarterYYYYQ("20241")
+                                        .name("date" + i)
+                                        .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                        .build()).getId();
+                }
+                long missing = ids[2] + 100;
+
+                // act
+                String header = mockMvc.perform(get("/api/ucsbdates?ids=%d,%d,%d,%d".formatted(ids[2], missing, ids[0], ids[1])))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items[*].name").value(contains("date2", "date0", "date1")))
+                                .andExpect(jsonPath("$.missing[0]").value(missing))
+                                .andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+
+                // assert
+                assertTrue(header.startsWith("statements=1; rows=3; "), header);
+        }
+}
@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class RequestCoalescingIT {
+        private static final int REQUESTS = 50;
+
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private double coalesced(String uri, String role) {
+                var counter = meterRegistry.find("http.server.requests.coalesced").tags("uri", uri, "role", role).counter();
+                return counter == null ? 0 : counter.count();
+        }
+
+        @Test
+        public void concurrent_requests_for_all_dates_get_the_same_response() throws Exception {
+                // arrange
+                for (String name : new String[] { "firstDayOfClasses", "lastDayOfClasses" }) {
+                        ucsbDateRepository.save(UCSBDate.builder()
+                                        .quarterYYYYQ("20241")
+                                        .name(name)
+                                        .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                        .build());
+                }
+                String expected = mockMvc.perform(get("/api/ucsbdates/all").with(user("cgaucho").roles("USER")))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                // act
+                ExecutorService executor = Executors.newFixedThreadPool(16);
+                List<Future<String>> responses = new ArrayList<>();
+                try {
+                        for (int i = 0; i < REQUESTS; i++) {
+                                String student = "student" + i;
+                                Callable<String> request = () -> mockMvc.perform(get("/api/ucsbdates/all")
+                                                                .with(user(student).roles("USER")))
+                                                .andExpect(status().isOk())
+                                                .andReturn().getResponse().getContentAsString();
+                                responses.add(executor.submit(request));
+                        }
+
+                        // assert
+                        for (Future<String> response : responses) {
+                                assertEquals(expected, response.get());
+                        }
+                } finally {
+                        executor.shutdownNow();
+                }
+                assertEquals(REQUESTS + 1, coalesced("/api/ucsbdates/all", "leader")
+                                + coalesced("/api/ucsbdates/all", "follower"));
+        }
+
+        @Test
+        public void the_current_user_is_coalesced_per_user() throws Exception {
+                mockMvc.perform(get("/api/currentUser").with(user("cgaucho@ucsb.edu").roles("USER")))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.roles[0].authority").value("ROLE_USER"));
+
+                assertEquals(1.0, coalesced("/api/currentUser", "leader"));
+        }
+}
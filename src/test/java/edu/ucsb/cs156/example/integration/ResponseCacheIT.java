@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ResponseCacheIT {
+        @Autowired
+        UCSBOrganizationsRepository ucsbOrganizationsRepository;
+
+        @Autowired
+        ResponseCache responseCache;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private void saveOrganization(String orgCode) {
+                ucsbOrganizationsRepository.save(UCSBOrganizations.builder()
+                                .orgCode(orgCode)
+                                .orgTranslationShort(orgCode)
+                                .orgTranslation(orgCode)
+                                .build());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_cached_response_is_sent_as_json_or_gzip() throws Exception {
+                // arrange
+                saveOrganization("ZPR");
+                saveOrganization("SKY");
+                String json = mockMvc.perform(get("/api/ucsborganizations/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Type", "application/json"))
+                                .andExpect(jsonPath("$.length()").value(2))
+                                .andReturn().getResponse().getContentAsString();
+
+                // act
+                MockHttpServletResponse gzipped = mockMvc.perform(get("/api/ucsborganizations/all")
+                                                .header("Accept-Encoding", "gzip, deflate"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip"))
+                                .andExpect(header().string("Vary", "Accept-Encoding"))
+                                .andReturn().getResponse();
+
+                // assert
+                String etag = mockMvc.perform(get("/api/ucsborganizations/all"))
+                                .andReturn().getResponse().getHeader("ETag");
+                assertNotEquals(etag, gzipped.getHeader("ETag"));
+                mockMvc.perform(get("/api/ucsborganizations/all").header("Accept-Encoding", "gzip")
+                                                .header("If-None-Match", gzipped.getHeader("ETag")))
+                                .andExpect(status().isNotModified());
+                mockMvc.perform(get("/api/ucsborganizations/all").header("If-None-Match", gzipped.getHeader("ETag")))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", etag));
+                try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+                        assertEquals(json, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                assertTrue(responseCache.size() > json.length(), "size " + responseCache.size());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void a_write_invalidates_the_cached_response() throws Exception {
+                // arrange
+                saveOrganization("ZPR");
+                mockMvc.perform(get("/api/ucsborganizations/all")).andExpect(jsonPath("$.length()").value(1));
+
+                // act
+                mockMvc.perform(post("/api/ucsborganizations/post?orgCode=SKY&orgTranslationShort=SKYDIVING"
+                                + "&orgTranslation=SKYDIVING CLUB&inactive=false").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                mockMvc.perform(get("/api/ucsborganizations/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(2));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void pages_are_cached_separately() throws Exception {
+                // arrange
+                saveOrganization("ZPR");
+                saveOrganization("SKY");
+                saveOrganization("OSLI");
+
+                // act and assert
+                mockMvc.perform(get("/api/ucsborganizations/all"))
+                                .andExpect(jsonPath("$.length()").value(3));
+                mockMvc.perform(get("/api/ucsborganizations/all?limit=2"))
+                                .andExpect(jsonPath("$.items.length()").value(2))
+                                .andExpect(jsonPath("$.nextCursor").value("SKY"));
+                mockMvc.perform(get("/api/ucsborganizations/all?after=SKY&limit=2"))
+                                .andExpect(jsonPath("$.items[0].orgCode").value("ZPR"));
+        }
+
+        @Test
+        public void cached_responses_are_not_sent_to_users_who_may_not_read_them() throws Exception {
+                // arrange
+                saveOrganization("ZPR");
+                mockMvc.perform(get("/api/ucsborganizations/all")
+                                                .with(user("cgaucho").roles("USER")))
+                                .andExpect(status().isOk());
+
+                // act and assert
+                mockMvc.perform(get("/api/ucsborganizations/all"))
+                                .andExpect(status().isForbidden());
+        }
+}
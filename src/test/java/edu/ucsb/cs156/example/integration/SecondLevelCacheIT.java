@@ -0,0 +1,179 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.interceptors.QueryStatsHeaderAdvice;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
+import edu.ucsb.cs156.example.services.SecondLevelCacheInvalidator;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+                "app.query-stats.header=true", "app.l2-cache.version-check-interval-ms=600000" })
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class SecondLevelCacheIT {
+        @Autowired
+        RestaurantRepository restaurantRepository;
+
+        @Autowired
+        CollectionVersionRepository collectionVersionRepository;
+
+        @Autowired
+        SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        ResponseCache responseCache;
+
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private Restaurant saveRestaurant(String name) {
+                return restaurantRepository.save(Restaurant.builder().name(name).description("tacos").build());
+        }
+
+        private static String stats(ResultActions result) {
+                return result.andReturn().getResponse().getHeader(QueryStatsHeaderAdvice.HEADER);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_second_get_by_id_does_not_touch_the_database() throws Exception {
+                // arrange
+                Restaurant restaurant = saveRestaurant("Freebirds");
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId())).andExpect(status().isOk());
+
+                // act
+                String stats = stats(mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.name").value("Freebirds")));
+
+                // assert
+                // the save put the restaurant in the cache, so both gets were hits
+                assertTrue(stats.startsWith("statements=0; rows=0; "), stats);
+                assertEquals(2.0, meterRegistry.get("hibernate.second.level.cache.requests")
+                                .tags("region", "restaurants", "result", "hit").functionCounter().count());
+                assertTrue(meterRegistry.get("hibernate.second.level.cache.hit.ratio")
+                                .tag("region", "restaurants").gauge().value() > 0);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_second_get_of_all_only_reads_the_collection_version() throws Exception {
+                // arrange
+                saveRestaurant("Freebirds");
+                saveRestaurant("Woodstock's");
+                mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk());
+                // so that the handler runs again, and its query is answered by the query cache
+                responseCache.evict("restaurants");
+
+                // act
+                String stats = stats(mockMvc.perform(get("/api/restaurants/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(2)));
+
+                // assert
+                assertTrue(stats.startsWith("statements=1; rows=1; "), stats);
+                assertEquals(1.0, meterRegistry.get("hibernate.second.level.cache.requests")
+                                .tags("region", "default-query-results-region", "result", "hit").functionCounter().count());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void posts_puts_and_deletes_are_seen_by_the_next_read() throws Exception {
+                // arrange
+                Restaurant restaurant = saveRestaurant("Freebirds");
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId())).andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants/all")).andExpect(jsonPath("$.length()").value(1));
+
+                // act and assert
+                mockMvc.perform(put("/api/restaurants?id=" + restaurant.getId()).with(csrf())
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content("{\"name\":\"Freebirds World Burrito\",\"description\":\"burritos\"}"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId()))
+                                .andExpect(jsonPath("$.name").value("Freebirds World Burrito"));
+                mockMvc.perform(get("/api/restaurants/all"))
+                                .andExpect(jsonPath("$[0].name").value("Freebirds World Burrito"));
+
+                mockMvc.perform(post("/api/restaurants/post?name=Woodstock's&description=pizza").with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants/all"))
+                                .andExpect(jsonPath("$.length()").value(2));
+
+                mockMvc.perform(delete("/api/restaurants?id=" + restaurant.getId()).with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId()))
+                                .andExpect(status().isNotFound());
+                mockMvc.perform(get("/api/restaurants/all"))
+                                .andExpect(jsonPath("$.length()").value(1))
+                                .andExpect(jsonPath("$[0].name").value("Woodstock's"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_write_on_another_node_is_seen_once_the_collection_version_moves() throws Exception {
+                // arrange
+                Restaurant restaurant = saveRestaurant("Freebirds");
+                mockMvc.perform(get("/api/restaurants/all")).andExpect(jsonPath("$[0].name").value("Freebirds"));
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId())).andExpect(status().isOk());
+
+                // act
+                // what another node's PUT leaves in the shared database
+                jdbcTemplate.update("update restaurants set name = 'Freebirds World Burrito' where id = ?", restaurant.getId());
+                collectionVersionRepository.increment("restaurants");
+
+                // assert
+                // a get by id does not read the version, so it is served from the cache until the next check
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId()))
+                                .andExpect(jsonPath("$.name").value("Freebirds"));
+                secondLevelCacheInvalidator.checkVersions();
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId()))
+                                .andExpect(jsonPath("$.name").value("Freebirds World Burrito"));
+
+                jdbcTemplate.update("update restaurants set name = 'Freebirds' where id = ?", restaurant.getId());
+                collectionVersionRepository.increment("restaurants");
+                // a get of all reads the version first
+                mockMvc.perform(get("/api/restaurants/all")).andExpect(jsonPath("$[0].name").value("Freebirds"));
+                mockMvc.perform(get("/api/restaurants?id=" + restaurant.getId()))
+                                .andExpect(jsonPath("$.name").value("Freebirds"));
+        }
+}
@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UCSBDatesIT {
+        @Autowired
+        UCSBDateRepository ucsbDateRepository;
+
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        public MockMvc mockMvc;
+
+        @Autowired
+        public ObjectMapper mapper;
+
+        @MockBean
+        UserRepository userRepository;
+
+        private UCSBDate date(String quarterYYYYQ, String name, String localDateTime) {
+                return ucsbDateRepository.save(UCSBDate.builder()
+                                .quarterYYYYQ(quarterYYYYQ)
+                                .name(name)
+                                .localDateTime(LocalDateTime.parse(localDateTime))
+                                .build());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_the_dates_in_a_range_of_quarters_in_date_order() throws Exception {
+                // arrange
+                UCSBDate fallLast = date("20244", "lastDayOfClasses", "2024-12-06T00:00:00");
+                date("20234", "firstDayOfClasses", "2023-09-28T00:00:00");
+                UCSBDate winterFirst = date("20241", "firstDayOfClasses", "2024-01-08T00:00:00");
+                UCSBDate springFirst = date("20242", "firstDayOfClasses", "2024-04-01T00:00:00");
+                date("20251", "firstDayOfClasses", "2025-01-06T00:00:00");
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarters?from=20241&to=20244"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expectedJson = mapper.writeValueAsString(List.of(winterFirst, springFirst, fallLast));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @Test
+        public void the_quarter_range_query_uses_the_quarter_date_index() {
+                // arrange: capture the SQL that Hibernate generates for the query
+                QueryStats stats = new QueryStats();
+                QueryStats.bind(stats);
+                try {
+                        ucsbDateRepository.findByQuarterYYYYQBetweenOrderByLocalDateTimeAsc("20241", "20244");
+                } finally {
+                        QueryStats.unbind();
+                }
+                assertEquals(1, stats.getStatements());
+                String sql = stats.getMostRepeatedShape();
+
+                // act
+                String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, "20241", "20244");
+
+                // assert
+                assertTrue(plan.contains("UCSBDATES_QUARTER_DATE_IDX"), sql + "\n" + plan);
+        }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -23,13 +25,24 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import edu.ucsb.cs156.example.entities.MenuItemReviews;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.BulkLoadFailure;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.models.DiningCommonsMenu;
+import edu.ucsb.cs156.example.models.MenuItemRating;
+import edu.ucsb.cs156.example.models.MenuStation;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
@@ -46,6 +59,9 @@ public class UCSBDiningCommonsMenuItemsIT {
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemsRepository;
 
+    @Autowired
+    MenuItemRatingService menuItemRatingService;
+
     @Autowired
     public MockMvc mockMvc;
 
@@ -106,4 +122,90 @@ public class UCSBDiningCommonsMenuItemsIT {
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    public void admin_can_bulk_load_items() throws Exception {
+        // arrange
+        String body = """
+                [
+                  {"diningCommonsCode": "portola", "name": "Cheese Pizza", "station": "North"},
+                  {"diningCommonsCode": "portola", "name": "Salad"},
+                  {"diningCommonsCode": "ortega", "name": "Tofu Bowl", "station": "Grill"}
+                ]
+                """;
+
+        // act
+        MvcResult response = mockMvc
+                .perform(post("/api/ucsbdiningcommonsmenuitems/bulk")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // assert
+        BulkLoadResult expected = BulkLoadResult.builder()
+                .received(3)
+                .inserted(2)
+                .failures(List.of(new BulkLoadFailure(1, "station is required")))
+                .build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        assertEquals(2, ucsbDiningCommonsMenuItemsRepository.count());
+    }
+
+    @Test
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    public void a_bulk_load_body_that_is_not_json_is_a_bad_request() throws Exception {
+        for (String body : List.of("xyz", "{{")) {
+            // act
+            MvcResult response = mockMvc
+                    .perform(post("/api/ucsbdiningcommonsmenuitems/bulk")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isBadRequest())
+                    .andReturn();
+
+            // assert
+            Map<String, Object> json = mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+            assertEquals("BadRequestException", json.get("type"));
+            assertTrue(((String) json.get("message")).startsWith("expected a JSON array of menu items"));
+        }
+        assertEquals(0, ucsbDiningCommonsMenuItemsRepository.count());
+    }
+
+    @Test
+    @WithMockUser(roles = { "USER" })
+    public void users_can_get_menu_with_ratings() throws Exception {
+        // arrange
+        UCSBDiningCommonsMenuItem pizza = ucsbDiningCommonsMenuItemsRepository.save(UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("portola").name("Cheese Pizza").station("North").build());
+        UCSBDiningCommonsMenuItem bowl = ucsbDiningCommonsMenuItemsRepository.save(UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("portola").name("Tofu Bowl").station("Grill").build());
+        UCSBDiningCommonsMenuItem burger = ucsbDiningCommonsMenuItemsRepository.save(UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("portola").name("Burger").station("Grill").build());
+        ucsbDiningCommonsMenuItemsRepository.save(UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("ortega").name("Salad").station("Deli").build());
+
+        LocalDateTime reviewed = LocalDateTime.parse("2024-10-01T12:00:00");
+        menuItemRatingService.create(MenuItemReviews.builder().itemId(burger.getId()).reviewEmail("a@ucsb.edu").stars(3).dateReviewed(reviewed).comments("ok").build());
+        menuItemRatingService.create(MenuItemReviews.builder().itemId(burger.getId()).reviewEmail("b@ucsb.edu").stars(4).dateReviewed(reviewed).comments("good").build());
+        menuItemRatingService.create(MenuItemReviews.builder().itemId(pizza.getId()).reviewEmail("a@ucsb.edu").stars(5).dateReviewed(reviewed).comments("great").build());
+
+        // act
+        MvcResult response = mockMvc
+                .perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=portola"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // assert
+        DiningCommonsMenu expected = new DiningCommonsMenu("portola", List.of(
+                new MenuStation("Grill", List.of(
+                        new MenuItemRating(burger.getId(), "Grill", "Burger", 2, 3.5),
+                        new MenuItemRating(bowl.getId(), "Grill", "Tofu Bowl", 0, 0.0))),
+                new MenuStation("North", List.of(
+                        new MenuItemRating(pizza.getId(), "North", "Cheese Pizza", 1, 5.0)))));
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+}
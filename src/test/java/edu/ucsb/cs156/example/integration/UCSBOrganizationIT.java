@@ -30,6 +30,8 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
+import java.util.Map;
+
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
@@ -102,4 +104,31 @@ public class UCSBOrganizationIT {
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
     }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void posting_an_organization_whose_code_is_taken_is_a_conflict() throws Exception {
+        // arrange
+
+        UCSBOrganizations organization = UCSBOrganizations.builder()
+                .orgCode("SKY")
+                .orgTranslationShort("SKYDIVING CLUB")
+                .orgTranslation("SKYDIVING CLUB AT UCSB")
+                .inactive(false)
+                .build();
+
+        restaurantRepository.save(organization);
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/ucsborganizations/post?orgCode=SKY&orgTranslationShort=SKY&orgTranslation=SKY&inactive=true")
+                        .with(csrf()))
+                .andExpect(status().isConflict()).andReturn();
+
+        // assert
+        Map<String, Object> json = mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+        assertEquals("EntityAlreadyExistsException", json.get("type"));
+        assertEquals("UCSBOrganizations with id SKY already exists", json.get("message"));
+        assertEquals("SKYDIVING CLUB AT UCSB", restaurantRepository.findById("SKY").get().getOrgTranslation());
+    }
 }
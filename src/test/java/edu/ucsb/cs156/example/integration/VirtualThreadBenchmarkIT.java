@@ -0,0 +1,296 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.Filter;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput and latency of the CRUD endpoints of UCSBDates served on
+ * platform threads and on virtual threads, against a slow database.
+ *
+ * Each database connection checkout waits {@code benchmark.db-latency-ms}
+ * while holding the connection, as a slow database would. Clients send
+ * real HTTP requests (so Tomcat's threads are involved, which MockMvc
+ * bypasses): a GET by id, a PUT of the client's own row, and a GET of a
+ * page of /all, over and over. With platform threads at most
+ * {@code benchmark.tomcat-threads} requests run at once, and the rest wait
+ * for a thread even when connections are free; with virtual threads the
+ * Hikari pool ({@code benchmark.pool-size}) is the only limit. Virtual
+ * threads pinned to their carrier (blocking inside a synchronized block)
+ * are counted from JFR's jdk.VirtualThreadPinned events.
+ *
+ * A filter registered only here authenticates every request as an admin,
+ * in place of the OAuth login. Not part of the normal build; run with
+ *
+ * <pre>
+ * mvn test-compile failsafe:integration-test -Dbenchmark=true -Dit.test=VirtualThreadBenchmarkIT
+ * </pre>
+ */
+
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class VirtualThreadBenchmarkIT {
+
+        private static final int CLIENTS = Integer.getInteger("benchmark.clients", 64);
+        private static final long DB_LATENCY_MS = Long.getLong("benchmark.db-latency-ms", 20);
+        private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 3));
+        private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 10));
+
+        private static final Map<String, Result> RESULTS = new LinkedHashMap<>();
+
+        private record Result(long requests, long errors, double perSecond, double p50Millis, double p99Millis,
+                        long pinned) {
+        }
+
+        @TestConfiguration
+        static class BenchmarkConfig {
+                @Bean
+                static BeanPostProcessor slowDatabase() {
+                        return new BeanPostProcessor() {
+                                @Override
+                                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                        if (!(bean instanceof DataSource dataSource) || bean instanceof SlowDataSource) {
+                                                return bean;
+                                        }
+                                        return new SlowDataSource(dataSource);
+                                }
+                        };
+                }
+
+                @Bean
+                FilterRegistrationBean<Filter> benchmarkUser() {
+                        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                                SecurityContextHolder.getContext().setAuthentication(
+                                                new TestingAuthenticationToken("benchmark", null, "ROLE_USER", "ROLE_ADMIN"));
+                                try {
+                                        chain.doFilter(request, response);
+                                } finally {
+                                        SecurityContextHolder.clearContext();
+                                }
+                        });
+                        registration.addUrlPatterns("/api/*");
+                        return registration;
+                }
+        }
+
+        static class SlowDataSource extends DelegatingDataSource {
+                SlowDataSource(DataSource target) {
+                        super(target);
+                }
+
+                @Override
+                public Connection getConnection() throws SQLException {
+                        Connection connection = super.getConnection();
+                        try {
+                                Thread.sleep(DB_LATENCY_MS);
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        return connection;
+                }
+        }
+
+        /**
+         * The application under load. Each mode is a subclass with its own
+         * context; the outer class has none, so it does not start a third.
+         */
+        @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+                        "server.tomcat.threads.max=${benchmark.tomcat-threads:16}",
+                        "spring.datasource.hikari.maximum-pool-size=${benchmark.pool-size:32}",
+                        "spring.datasource.hikari.minimum-idle=${benchmark.pool-size:32}",
+                        "logging.level.sql=INFO",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+        })
+        @ActiveProfiles("integration")
+        @Import({ TestConfig.class, BenchmarkConfig.class })
+        abstract class Server {
+                @MockBean
+                UserRepository userRepository;
+
+                @Autowired
+                UCSBDateRepository ucsbDateRepository;
+
+                @LocalServerPort
+                int port;
+
+                final List<Long> ids = new ArrayList<>();
+
+                @BeforeEach
+                void setup() {
+                        ucsbDateRepository.deleteAll();
+                        for (int i = 0; i < CLIENTS; i++) {
+                                ids.add(ucsbDateRepository.save(UCSBDate.builder()
+                                                .quarterYYYYQ("20241")
+                                                .name("benchmark-" + i)
+                                                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                                                .build()).getId());
+                        }
+                }
+        }
+
+        @Nested
+        @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+        class PlatformThreads extends Server {
+                @Test
+                public void crud_load_on_platform_threads() throws Exception {
+                        RESULTS.put("platform threads", load(port, ids));
+                }
+        }
+
+        @Nested
+        @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+        class VirtualThreads extends Server {
+                @Test
+                public void crud_load_on_virtual_threads() throws Exception {
+                        RESULTS.put("virtual threads", load(port, ids));
+                }
+        }
+
+        @AfterAll
+        static void compare() {
+                RESULTS.forEach((mode, result) -> log.info(
+                                "{}: {} requests ({} errors), {} requests/s, p50 {} ms, p99 {} ms, {} pinned virtual threads",
+                                mode, result.requests(), result.errors(), String.format("%.0f", result.perSecond()),
+                                String.format("%.1f", result.p50Millis()), String.format("%.1f", result.p99Millis()),
+                                result.pinned()));
+        }
+
+        private static Result load(int port, List<Long> ids) throws Exception {
+                HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                String base = "http://localhost:" + port;
+                String csrfToken = csrfToken(client, base);
+
+                AtomicLong pinned = new AtomicLong();
+                AtomicReference<String> firstPin = new AtomicReference<>();
+                try (RecordingStream pinning = new RecordingStream();
+                                ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                        pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+                        pinning.onEvent("jdk.VirtualThreadPinned", event -> {
+                                pinned.incrementAndGet();
+                                firstPin.compareAndSet(null, String.valueOf(event.getStackTrace()));
+                        });
+                        pinning.startAsync();
+
+                        long warmupEnds = System.nanoTime() + WARMUP.toNanos();
+                        long ends = warmupEnds + DURATION.toNanos();
+                        List<Future<long[]>> latencies = new ArrayList<>();
+                        AtomicLong errors = new AtomicLong();
+                        for (int c = 0; c < CLIENTS; c++) {
+                                long ownId = ids.get(c);
+                                latencies.add(clients.submit(() -> run(client, base, csrfToken, ids, ownId, warmupEnds, ends, errors)));
+                        }
+                        long[] all = new long[0];
+                        for (Future<long[]> latency : latencies) {
+                                long[] some = latency.get();
+                                long[] merged = Arrays.copyOf(all, all.length + some.length);
+                                System.arraycopy(some, 0, merged, all.length, some.length);
+                                all = merged;
+                        }
+                        pinning.stop();
+                        if (firstPin.get() != null) {
+                                log.info("first pinned virtual thread: {}", firstPin.get());
+                        }
+
+                        Arrays.sort(all);
+                        assertTrue(all.length > 0);
+                        assertEquals(0, errors.get());
+                        return new Result(all.length, errors.get(), all.length / (double) DURATION.toSeconds(),
+                                        all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6, pinned.get());
+                }
+        }
+
+        private static long[] run(HttpClient client, String base, String csrfToken, List<Long> ids, long ownId,
+                        long warmupEnds, long ends, AtomicLong errors) throws IOException, InterruptedException {
+                long[] latencies = new long[1024];
+                int count = 0;
+                for (int i = 0; System.nanoTime() < ends; i++) {
+                        long id = ids.get(i % ids.size());
+                        HttpRequest request = switch (i % 3) {
+                                case 0 -> HttpRequest.newBuilder(URI.create(base + "/api/ucsbdates?id=" + id)).GET().build();
+                                case 1 -> HttpRequest.newBuilder(URI.create(base + "/api/ucsbdates?id=" + ownId))
+                                                .header("Content-Type", "application/json")
+                                                .header("Cookie", "XSRF-TOKEN=" + csrfToken)
+                                                .header("X-XSRF-TOKEN", csrfToken)
+                                                .PUT(HttpRequest.BodyPublishers.ofString("{\"quarterYYYYQ\":\"20241\",\"name\":\"benchmark-"
+                                                                + i + "\",\"localDateTime\":\"2024-01-08T00:00:00\"}"))
+                                                .build();
+                                default -> HttpRequest.newBuilder(URI.create(base + "/api/ucsbdates/all?limit=20&after=" + id))
+                                                .GET().build();
+                        };
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        long end = System.nanoTime();
+                        if (start < warmupEnds) {
+                                continue;
+                        }
+                        if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = end - start;
+                }
+                return Arrays.copyOf(latencies, count);
+        }
+
+        private static String csrfToken(HttpClient client, String base) throws IOException, InterruptedException {
+                HttpResponse<Void> response = client.send(
+                                HttpRequest.newBuilder(URI.create(base + "/api/ucsbdates/all?limit=1")).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                return response.headers().allValues("Set-Cookie").stream()
+                                .filter(cookie -> cookie.startsWith("XSRF-TOKEN="))
+                                .map(cookie -> cookie.substring("XSRF-TOKEN=".length(), cookie.indexOf(';')))
+                                .findFirst()
+                                .orElseThrow();
+        }
+}
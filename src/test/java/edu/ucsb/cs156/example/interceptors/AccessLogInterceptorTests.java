@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.services.AccessLogWriter;
+
+class AccessLogInterceptorTests {
+
+  private AccessLogInterceptor interceptor;
+  private AccessLogWriter writer;
+  private HandlerMethod handler;
+
+  @BeforeEach
+  void setup() throws Exception {
+    writer = mock(AccessLogWriter.class);
+    interceptor = new AccessLogInterceptor();
+    ReflectionTestUtils.setField(interceptor, "accessLogWriter", writer);
+    ReflectionTestUtils.setField(interceptor, "routes", List.of("/api/**"));
+    ReflectionTestUtils.setField(interceptor, "sampleRate", 1.0);
+    handler = new HandlerMethod(new UCSBDatesController(), UCSBDatesController.class.getMethod("getById", Long.class));
+  }
+
+  private static MockHttpServletRequest request(String route) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ucsbdates");
+    if (route != null) {
+      request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route);
+    }
+    return request;
+  }
+
+  private void handle(MockHttpServletRequest request, int status) {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    response.setStatus(status);
+    assertTrue(interceptor.preHandle(request, response, handler));
+    interceptor.afterCompletion(request, response, handler, null);
+  }
+
+  @Test
+  void controller_requests_are_recorded_with_their_route_and_handler() {
+    handle(request("/api/ucsbdates"), 200);
+
+    verify(writer, times(1)).record(eq("GET"), eq("/api/ucsbdates"), eq(200), anyLong(),
+        eq("UCSBDatesController.getById"));
+  }
+
+  @Test
+  void the_request_uri_is_used_when_there_is_no_route_pattern() {
+    handle(request(null), 200);
+
+    verify(writer, times(1)).record(eq("GET"), eq("/api/ucsbdates"), eq(200), anyLong(), anyString());
+  }
+
+  @Test
+  void routes_that_are_not_listed_are_not_recorded() {
+    handle(request("/{path:^(?!api|oauth2|swagger-ui|h2-console).*}/**"), 200);
+    handle(request("/{path:^(?!api|oauth2|swagger-ui|h2-console).*}/**"), 200);
+
+    verify(writer, never()).record(anyString(), anyString(), anyInt(), anyLong(), anyString());
+  }
+
+  @Test
+  void requests_not_handled_by_a_controller_are_not_recorded() {
+    MockHttpServletRequest request = request("/api/ucsbdates");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    interceptor.preHandle(request, response, new Object());
+    interceptor.afterCompletion(request, response, new Object(), null);
+
+    assertNull(request.getAttribute(AccessLogInterceptor.START_ATTRIBUTE));
+    verify(writer, never()).record(anyString(), anyString(), anyInt(), anyLong(), anyString());
+  }
+
+  @Test
+  void an_async_dispatch_keeps_the_original_start_time() {
+    MockHttpServletRequest request = request("/api/ucsbdates");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    interceptor.preHandle(request, response, handler);
+    Object start = request.getAttribute(AccessLogInterceptor.START_ATTRIBUTE);
+    interceptor.preHandle(request, response, handler);
+
+    assertEquals(start, request.getAttribute(AccessLogInterceptor.START_ATTRIBUTE));
+  }
+
+  @Test
+  void sampling_skips_requests_but_never_server_errors() {
+    ReflectionTestUtils.setField(interceptor, "sampleRate", 0.0);
+
+    handle(request("/api/ucsbdates"), 200);
+    handle(request("/api/ucsbdates"), 404);
+    handle(request("/api/ucsbdates"), 500);
+
+    verify(writer, never()).record(anyString(), anyString(), eq(200), anyLong(), anyString());
+    verify(writer, never()).record(anyString(), anyString(), eq(404), anyLong(), anyString());
+    verify(writer, times(1)).record(anyString(), anyString(), eq(500), anyLong(), anyString());
+  }
+
+  @Test
+  void a_partial_sample_rate_keeps_some_requests() {
+    ReflectionTestUtils.setField(interceptor, "sampleRate", 0.5);
+
+    for (int i = 0; i < 200; i++) {
+      handle(request("/api/ucsbdates"), 200);
+    }
+
+    // the chance that none (or all) of 200 requests are kept is 2^-200
+    verify(writer, atLeastOnce()).record(anyString(), anyString(), anyInt(), anyLong(), anyString());
+    verify(writer, atMost(199)).record(anyString(), anyString(), anyInt(), anyLong(), anyString());
+  }
+}
@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+import edu.ucsb.cs156.example.services.QueryStatsReporter;
+
+class QueryStatsInterceptorTests {
+
+  private QueryStatsInterceptor interceptor;
+  private QueryStatsReporter reporter;
+  private HandlerMethod handler;
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @BeforeEach
+  void setup() throws Exception {
+    reporter = mock(QueryStatsReporter.class);
+    interceptor = new QueryStatsInterceptor();
+    ReflectionTestUtils.setField(interceptor, "queryStatsReporter", reporter);
+    handler = new HandlerMethod(new UCSBDatesController(), UCSBDatesController.class.getMethod("getById", Long.class));
+    request = new MockHttpServletRequest("GET", "/api/ucsbdates");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/ucsbdates");
+    response = new MockHttpServletResponse();
+  }
+
+  @AfterEach
+  void cleanup() {
+    QueryStats.unbind();
+  }
+
+  @Test
+  void stats_are_bound_while_the_controller_runs_and_reported_at_the_end() {
+    assertTrue(interceptor.preHandle(request, response, handler));
+    QueryStats stats = QueryStats.current();
+    assertNotNull(stats);
+
+    interceptor.afterCompletion(request, response, handler, null);
+
+    assertNull(QueryStats.current());
+    assertNull(request.getAttribute(QueryStatsInterceptor.STATS_ATTRIBUTE));
+    verify(reporter, times(1)).report("GET", "/api/ucsbdates", stats);
+  }
+
+  @Test
+  void an_async_dispatch_adds_to_the_same_stats_and_reports_once() {
+    interceptor.preHandle(request, response, handler);
+    QueryStats stats = QueryStats.current();
+    interceptor.afterConcurrentHandlingStarted(request, response, handler);
+    assertNull(QueryStats.current());
+
+    interceptor.preHandle(request, response, handler);
+    assertSame(stats, QueryStats.current());
+    interceptor.afterCompletion(request, response, handler, null);
+
+    verify(reporter, times(1)).report(anyString(), anyString(), any());
+  }
+
+  @Test
+  void requests_not_handled_by_a_controller_are_not_counted() {
+    interceptor.preHandle(request, response, new Object());
+    assertNull(QueryStats.current());
+
+    interceptor.afterCompletion(request, response, new Object(), null);
+
+    verify(reporter, never()).report(anyString(), anyString(), any());
+  }
+
+  @Test
+  void the_request_uri_is_used_when_there_is_no_route_pattern() {
+    request.removeAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+    interceptor.preHandle(request, response, handler);
+    interceptor.afterCompletion(request, response, handler, null);
+
+    verify(reporter, times(1)).report(eq("GET"), eq("/api/ucsbdates"), any());
+  }
+}
@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class QueryCountingDataSourceTests {
+
+  private DriverManagerDataSource target;
+  private QueryCountingDataSource dataSource;
+  private Connection connection;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    target = new DriverManagerDataSource("jdbc:h2:mem:querystats;DB_CLOSE_DELAY=-1");
+    dataSource = new QueryCountingDataSource(target);
+    connection = dataSource.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table items (id int primary key, name varchar(20))");
+      statement.execute("insert into items values (1, 'a'), (2, 'b'), (3, 'c')");
+    }
+  }
+
+  @AfterEach
+  void cleanup() throws SQLException {
+    QueryStats.unbind();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop table items");
+    }
+    connection.close();
+  }
+
+  @Test
+  void statements_and_rows_are_counted_while_stats_are_bound() throws SQLException {
+    QueryStats stats = new QueryStats();
+    QueryStats.bind(stats);
+
+    for (int id = 1; id <= 3; id++) {
+      try (PreparedStatement statement = connection.prepareStatement("select name from items where id = ?")) {
+        statement.setInt(1, id);
+        try (ResultSet rs = statement.executeQuery()) {
+          assertTrue(rs.next());
+          assertFalse(rs.next());
+        }
+      }
+    }
+    try (Statement statement = connection.createStatement()) {
+      assertTrue(statement.execute("select * from items"));
+      ResultSet rs = statement.getResultSet();
+      while (rs.next()) {
+      }
+    }
+
+    assertEquals(4, stats.getStatements());
+    assertEquals(6, stats.getRows());
+    assertEquals(3, stats.getMostRepeatedCount());
+    assertEquals("select name from items where id = ?", stats.getMostRepeatedShape());
+    assertTrue(stats.getNanos() > 0);
+  }
+
+  @Test
+  void nothing_is_counted_without_stats_bound() throws SQLException {
+    QueryStats stats = new QueryStats();
+
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("select * from items")) {
+      assertTrue(rs.next());
+    }
+
+    assertEquals(0, stats.getStatements());
+  }
+
+  @Test
+  void errors_from_the_driver_are_thrown_unchanged() {
+    QueryStats.bind(new QueryStats());
+
+    assertThrows(SQLException.class, () -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("select * from no_such_table");
+      }
+    });
+    assertEquals(1, QueryStats.current().getStatements());
+  }
+
+  @Test
+  void proxies_compare_by_identity_and_unwrap_to_the_target() throws SQLException {
+    Connection other = dataSource.getConnection("", "");
+
+    assertEquals(connection, connection);
+    assertNotEquals(connection, other);
+    assertSame(target, dataSource.unwrap(DriverManagerDataSource.class));
+    other.close();
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class QueryStatsTests {
+
+  @AfterEach
+  void cleanup() {
+    QueryStats.unbind();
+  }
+
+  @Test
+  void literals_and_in_lists_are_replaced_in_the_shape() {
+    assertEquals("select * from ucsbdates where id=? and name=? and x in (?)",
+        QueryStats.shape("select *\n  from ucsbdates where id=17 and name='it''s' and x in (1, 2,3)"));
+    assertEquals("select u1_0.id from users u1_0 where u1_0.email in (?)",
+        QueryStats.shape("select u1_0.id from users u1_0 where u1_0.email in (?,?,?)"));
+  }
+
+  @Test
+  void statements_rows_and_time_are_added_up() {
+    QueryStats stats = new QueryStats();
+    stats.statement("select * from articles where id=?", 1_000_000);
+    stats.statement("select * from articles where id=?", 2_500_000);
+    stats.statement("select * from users", 0);
+    stats.row();
+    stats.row();
+
+    assertEquals(3, stats.getStatements());
+    assertEquals(2, stats.getRows());
+    assertEquals(3_500_000, stats.getNanos());
+    assertEquals("select * from articles where id=?", stats.getMostRepeatedShape());
+    assertEquals(2, stats.getMostRepeatedCount());
+    assertEquals("statements=3; rows=2; db-ms=3.500", stats.toString());
+  }
+
+  @Test
+  void batches_without_sql_have_their_own_shape() {
+    QueryStats stats = new QueryStats();
+    stats.statement(null, 0);
+
+    assertEquals("(batch)", stats.getMostRepeatedShape());
+  }
+
+  @Test
+  void stats_are_bound_to_the_current_thread() {
+    QueryStats stats = new QueryStats();
+    assertNull(QueryStats.current());
+
+    QueryStats.bind(stats);
+    assertSame(stats, QueryStats.current());
+
+    QueryStats.unbind();
+    assertNull(QueryStats.current());
+  }
+}
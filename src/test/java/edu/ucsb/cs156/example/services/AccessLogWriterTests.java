@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AccessLogWriterTests {
+
+  private AccessLogWriter writer;
+  private SimpleMeterRegistry registry;
+  private List<String> lines;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    lines = new CopyOnWriteArrayList<>();
+    writer = new AccessLogWriter();
+    ReflectionTestUtils.setField(writer, "meterRegistry", registry);
+    ReflectionTestUtils.setField(writer, "bufferSize", 3);
+    writer.sink = lines::add;
+    writer.init();
+  }
+
+  @Test
+  void entries_are_written_as_key_value_pairs_in_order() {
+    assertTrue(writer.record("GET", "/api/ucsbdates", 200, 1_234_567, "UCSBDatesController.getById"));
+    assertTrue(writer.record("POST", "/api/ucsbdates/post", 403, 50_000, "UCSBDatesController.postUCSBDate"));
+
+    assertEquals(2, writer.drain());
+    assertEquals(0, writer.drain());
+
+    assertTrue(lines.get(0).matches(
+        "time=\\S+Z method=GET route=/api/ucsbdates status=200 durationMs=1\\.234 handler=UCSBDatesController\\.getById"),
+        lines.get(0));
+    assertTrue(lines.get(1).endsWith(
+        " method=POST route=/api/ucsbdates/post status=403 durationMs=0.050 handler=UCSBDatesController.postUCSBDate"),
+        lines.get(1));
+  }
+
+  @Test
+  void entries_are_dropped_and_counted_when_the_buffer_is_full() {
+    // a buffer size of 3 is rounded up to 4 slots
+    for (int i = 0; i < 4; i++) {
+      assertTrue(writer.record("GET", "/api/" + i, 200, 0, "h"));
+    }
+    assertFalse(writer.record("GET", "/api/4", 200, 0, "h"));
+    assertEquals(1, registry.get("accesslog.dropped").counter().count());
+
+    assertEquals(4, writer.drain());
+    assertTrue(writer.record("GET", "/api/5", 200, 0, "h"));
+    assertEquals(1, writer.drain());
+    assertTrue(lines.get(4).contains("route=/api/5 "));
+  }
+
+  @Test
+  void the_writer_thread_writes_entries_and_stopping_drains_the_rest() throws Exception {
+    writer.start();
+    writer.record("GET", "/api/currentUser", 200, 0, "UserInfoController.getCurrentUser");
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (lines.isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    writer.stop();
+    writer.record("GET", "/api/systemInfo", 200, 0, "SystemInfoController.getSystemInfo");
+    writer.stop();
+
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(1).contains("route=/api/systemInfo "));
+  }
+
+  @Test
+  void a_failing_sink_does_not_stop_the_writer_thread() throws Exception {
+    writer.sink = line -> {
+      if (line.contains("/api/bad")) {
+        throw new IllegalStateException("disk full");
+      }
+      lines.add(line);
+    };
+    writer.start();
+    writer.record("GET", "/api/bad", 200, 0, "h");
+    writer.record("GET", "/api/good", 200, 0, "h");
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (lines.isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    writer.stop();
+
+    assertEquals(1, lines.size());
+    assertTrue(lines.get(0).contains("route=/api/good "));
+  }
+}
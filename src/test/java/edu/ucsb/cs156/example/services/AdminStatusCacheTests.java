@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class AdminStatusCacheTests {
+
+  private AdminStatusCache cache;
+  private UserRepository repository;
+  private AtomicLong now;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UserRepository.class);
+    now = new AtomicLong();
+
+    cache = new AdminStatusCache();
+    ReflectionTestUtils.setField(cache, "userRepository", repository);
+    ReflectionTestUtils.setField(cache, "adminEmails", List.of("phtcon@ucsb.edu"));
+    ReflectionTestUtils.setField(cache, "ttl", Duration.ofSeconds(60));
+    cache.clock = now::get;
+    cache.init();
+  }
+
+  private void admin(String email, boolean admin) {
+    when(repository.findByEmail(email)).thenReturn(Optional.of(User.builder().email(email).admin(admin).build()));
+  }
+
+  @Test
+  void configured_admins_never_query_the_database() {
+    assertTrue(cache.isConfiguredAdmin("phtcon@ucsb.edu"));
+    assertTrue(cache.isAdmin("phtcon@ucsb.edu"));
+    assertFalse(cache.isConfiguredAdmin("cgaucho@ucsb.edu"));
+    verify(repository, never()).findByEmail(any());
+  }
+
+  @Test
+  void database_admin_status_is_cached_until_the_ttl_passes() {
+    admin("cgaucho@ucsb.edu", true);
+
+    assertTrue(cache.isAdmin("cgaucho@ucsb.edu"));
+    now.addAndGet(Duration.ofSeconds(59).toNanos());
+    assertTrue(cache.isAdmin("cgaucho@ucsb.edu"));
+    verify(repository, times(1)).findByEmail("cgaucho@ucsb.edu");
+
+    admin("cgaucho@ucsb.edu", false);
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertFalse(cache.isAdmin("cgaucho@ucsb.edu"));
+    verify(repository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  void unknown_users_are_not_admins_and_are_cached_too() {
+    when(repository.findByEmail("ldelplaya@ucsb.edu")).thenReturn(Optional.empty());
+
+    assertFalse(cache.isAdmin("ldelplaya@ucsb.edu"));
+    assertFalse(cache.isAdmin("ldelplaya@ucsb.edu"));
+    verify(repository, times(1)).findByEmail("ldelplaya@ucsb.edu");
+  }
+
+  @Test
+  void put_replaces_the_cached_status() {
+    admin("cgaucho@ucsb.edu", false);
+    assertFalse(cache.isAdmin("cgaucho@ucsb.edu"));
+
+    cache.put("cgaucho@ucsb.edu", true);
+
+    assertTrue(cache.isAdmin("cgaucho@ucsb.edu"));
+    verify(repository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+}
@@ -0,0 +1,205 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+class ArticleSearchIndexTests {
+
+  private ArticleSearchIndex index;
+  private ArticleRepository repository;
+  private EntityManager entityManager;
+  private SimpleMeterRegistry registry;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(ArticleRepository.class);
+    entityManager = mock(EntityManager.class);
+    registry = new SimpleMeterRegistry();
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+    index = new ArticleSearchIndex();
+    ReflectionTestUtils.setField(index, "articleRepository", repository);
+    ReflectionTestUtils.setField(index, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(index, "entityManager", entityManager);
+    ReflectionTestUtils.setField(index, "meterRegistry", registry);
+    index.registerMetrics();
+  }
+
+  private static Article article(long id, String title, String explanation) {
+    return Article.builder().id(id).title(title).explanation(explanation).build();
+  }
+
+  private static List<Long> ids(List<ArticleSearchIndex.Hit> hits) {
+    return hits.stream().map(ArticleSearchIndex.Hit::id).toList();
+  }
+
+  private double gauge(String name) {
+    return registry.get(name).gauge().value();
+  }
+
+  @Test
+  void tokenize_lower_cases_and_splits_on_punctuation() {
+    assertEquals(List.of("gauchos", "beat", "uc", "davis", "78", "65", "señor"),
+        ArticleSearchIndex.tokenize("Gauchos beat UC-Davis, 78–65! Señor"));
+    assertEquals(List.of(), ArticleSearchIndex.tokenize(null));
+    assertEquals(List.of(), ArticleSearchIndex.tokenize(" ... "));
+  }
+
+  @Test
+  void search_ranks_by_bm25() {
+    index.index(article(1, "Campus dining", "New menu at Ortega"));
+    index.index(article(2, "Ortega", "Ortega dining commons reopens"));
+    index.index(article(3, "Basketball", "Gauchos win at home"));
+
+    List<ArticleSearchIndex.Hit> hits = index.search("ortega dining", 10);
+
+    assertEquals(List.of(2L, 1L), ids(hits));
+    assertTrue(hits.get(0).score() > hits.get(1).score());
+  }
+
+  @Test
+  void search_matches_the_formula() {
+    index.index(article(1, null, "apple banana"));
+    index.index(article(2, null, "cherry"));
+
+    double idf = Math.log(1 + (2 - 1 + 0.5) / (1 + 0.5));
+    double averageLength = 1.5;
+    double expected = idf * 1 * (ArticleSearchIndex.K1 + 1)
+        / (1 + ArticleSearchIndex.K1 * (1 - ArticleSearchIndex.B + ArticleSearchIndex.B * 2 / averageLength));
+
+    assertEquals(expected, index.search("apple", 10).get(0).score(), 1e-12);
+  }
+
+  @Test
+  void title_words_count_more_than_explanation_words() {
+    index.index(article(1, "other", "gauchos"));
+    index.index(article(2, "gauchos", "other"));
+
+    assertEquals(List.of(2L, 1L), ids(index.search("gauchos", 10)));
+  }
+
+  @Test
+  void search_returns_only_the_top_k_with_ties_broken_by_id() {
+    for (long id = 1; id <= 5; id++) {
+      index.index(article(id, "same", "text"));
+    }
+
+    assertEquals(List.of(1L, 2L), ids(index.search("same", 2)));
+  }
+
+  @Test
+  void search_with_no_matching_or_no_words_is_empty() {
+    index.index(article(1, "Campus dining", "New menu"));
+
+    assertEquals(List.of(), index.search("nothing", 10));
+    assertEquals(List.of(), index.search("  ", 10));
+  }
+
+  @Test
+  void search_on_an_empty_index_is_empty() {
+    assertEquals(List.of(), index.search("anything", 10));
+  }
+
+  @Test
+  void reindexing_replaces_and_removing_deletes() {
+    index.index(article(1, "Campus dining", "New menu"));
+    index.index(article(1, "Basketball", "Gauchos win"));
+
+    assertEquals(List.of(), index.search("dining", 10));
+    assertEquals(List.of(1L), ids(index.search("basketball", 10)));
+
+    index.remove(1);
+    index.remove(42);
+
+    assertEquals(List.of(), index.search("basketball", 10));
+    assertEquals(0, gauge("articles.search.index.terms"));
+    assertEquals(0, gauge("articles.search.index.postings"));
+    assertEquals(0, gauge("articles.search.index.memory"));
+  }
+
+  @Test
+  void rebuild_reads_every_article_and_swaps_in_the_new_index() {
+    Article dining = article(1, "Campus dining", "New menu");
+    Article basketball = article(2, "Basketball", "Gauchos win");
+    index.index(article(9, "stale", "entry"));
+    when(repository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(dining, basketball));
+
+    index.rebuild();
+
+    assertEquals(List.of(), index.search("stale", 10));
+    assertEquals(List.of(1L), ids(index.search("menu", 10)));
+    verify(entityManager, times(1)).detach(dining);
+    verify(entityManager, times(1)).detach(basketball);
+  }
+
+  @Test
+  void updates_made_during_a_rebuild_are_not_lost() {
+    Article dining = article(1, "Campus dining", "New menu");
+    Article basketball = article(2, "Basketball", "Gauchos win");
+    // the table read sees the old versions; the updates land while it is running
+    when(repository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(dining, basketball).peek(article -> {
+      if (article.getId() == 2) {
+        index.index(article(3, "Soccer", "Gauchos draw"));
+        index.index(article(1, "Campus dining", "New menu at Carrillo"));
+        index.remove(2);
+      }
+    }));
+
+    index.rebuild();
+
+    assertEquals(List.of(3L), ids(index.search("gauchos", 10)));
+    assertEquals(List.of(1L), ids(index.search("carrillo", 10)));
+    assertEquals(2, gauge("articles.search.index.documents"));
+
+    // once the rebuild is over, updates are no longer recorded
+    index.index(article(4, "Tennis", "Gauchos serve"));
+    assertEquals(List.of(3L, 4L), ids(index.search("gauchos", 10)).stream().sorted().toList());
+  }
+
+  @Test
+  void a_failed_rebuild_keeps_the_old_index() {
+    index.index(article(1, "Campus dining", "New menu"));
+    when(repository.streamAllByOrderByIdAsc()).thenThrow(new IllegalStateException("database down"));
+
+    assertThrows(IllegalStateException.class, () -> index.rebuild());
+    index.index(article(2, "Basketball", "Gauchos win"));
+
+    assertEquals(List.of(1L), ids(index.search("menu", 10)));
+    assertEquals(List.of(2L), ids(index.search("gauchos", 10)));
+  }
+
+  @Test
+  void size_and_latency_are_published_as_metrics() {
+    index.index(article(1, "Campus dining", "dining menu"));
+
+    index.search("dining", 10);
+
+    assertEquals(1, gauge("articles.search.index.documents"));
+    assertEquals(3, gauge("articles.search.index.terms"));
+    assertEquals(3, gauge("articles.search.index.postings"));
+    assertEquals(3 * 96 + 16 + 3 * 64 + 128, gauge("articles.search.index.memory"));
+    assertEquals("bytes", registry.get("articles.search.index.memory").gauge().getId().getBaseUnit());
+    assertEquals(1, registry.get("articles.search.latency").timer().count());
+  }
+}
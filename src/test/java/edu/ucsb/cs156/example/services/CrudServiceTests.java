@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.EntityAlreadyExistsException;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+class CrudServiceTests {
+
+  private CrudService service;
+  private UCSBDateRepository repository;
+  private UCSBDate date;
+
+  @BeforeEach
+  void setup() {
+    service = new CrudService();
+    repository = mock(UCSBDateRepository.class);
+    date = UCSBDate.builder()
+        .id(7)
+        .quarterYYYYQ("20241")
+        .name("firstDayOfClasses")
+        .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+        .build();
+  }
+
+  @Test
+  void read_returns_the_result_of_the_query() {
+    when(repository.findByQuarterYYYYQOrderByLocalDateTimeAsc("20241")).thenReturn(List.of(date));
+
+    assertEquals(List.of(date), service.read(() -> repository.findByQuarterYYYYQOrderByLocalDateTimeAsc("20241")));
+  }
+
+  @Test
+  void create_saves_an_entity_whose_id_is_free() {
+    when(repository.existsById(7L)).thenReturn(false);
+    when(repository.save(date)).thenReturn(date);
+
+    assertSame(date, service.create(repository, UCSBDate.class, 7L, date));
+  }
+
+  @Test
+  void create_throws_when_the_id_is_taken() {
+    when(repository.existsById(7L)).thenReturn(true);
+
+    EntityAlreadyExistsException e = assertThrows(EntityAlreadyExistsException.class,
+        () -> service.create(repository, UCSBDate.class, 7L, date));
+    assertEquals("UCSBDate with id 7 already exists", e.getMessage());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void findById_throws_when_there_is_no_entity() {
+    when(repository.findById(7L)).thenReturn(Optional.empty());
+
+    EntityNotFoundException e = assertThrows(EntityNotFoundException.class,
+        () -> service.findById(repository, UCSBDate.class, 7L));
+    assertEquals("UCSBDate with id 7 not found", e.getMessage());
+  }
+
+  @Test
+  void update_applies_the_changes_and_saves_the_entity() {
+    when(repository.findById(7L)).thenReturn(Optional.of(date));
+
+    UCSBDate updated = service.update(repository, UCSBDate.class, 7L, d -> d.setName("lastDayOfClasses"));
+
+    assertSame(date, updated);
+    assertEquals("lastDayOfClasses", updated.getName());
+    verify(repository, times(1)).save(date);
+  }
+
+  @Test
+  void update_of_a_missing_entity_changes_nothing() {
+    when(repository.findById(7L)).thenReturn(Optional.empty());
+
+    assertThrows(EntityNotFoundException.class,
+        () -> service.update(repository, UCSBDate.class, 7L, d -> d.setName("lastDayOfClasses")));
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void delete_deletes_and_returns_the_entity() {
+    when(repository.findById(7L)).thenReturn(Optional.of(date));
+
+    assertSame(date, service.delete(repository, UCSBDate.class, 7L));
+    verify(repository, times(1)).delete(date);
+  }
+
+  @Test
+  void patch_runs_the_update_and_throws_when_no_row_changed() {
+    service.patch(UCSBDate.class, 7L, () -> 1);
+    EntityNotFoundException e = assertThrows(EntityNotFoundException.class,
+        () -> service.patch(UCSBDate.class, 8L, () -> 0));
+    assertEquals("UCSBDate with id 8 not found", e.getMessage());
+  }
+
+  @Test
+  void write_returns_the_number_of_rows_changed() {
+    assertEquals(4, service.write(() -> 4));
+  }
+
+  @Test
+  void a_versioned_update_or_delete_checks_the_version_first() {
+    date.setVersion(3);
+    when(repository.findById(7L)).thenReturn(Optional.of(date));
+
+    assertSame(date, service.update(repository, UCSBDate.class, 7L, 3L, d -> d.setName("lastDayOfClasses")));
+    assertSame(date, service.update(repository, UCSBDate.class, 7L, null, d -> d.setName("lastDayOfClasses")));
+    PreconditionFailedException e = assertThrows(PreconditionFailedException.class,
+        () -> service.update(repository, UCSBDate.class, 7L, 2L, d -> d.setName("stale")));
+    assertEquals("UCSBDate with id 7 has been modified since version 2", e.getMessage());
+    assertThrows(PreconditionFailedException.class, () -> service.delete(repository, UCSBDate.class, 7L, 2L));
+
+    assertEquals("lastDayOfClasses", date.getName());
+    verify(repository, times(2)).save(date);
+    verify(repository, never()).delete(any());
+
+    assertSame(date, service.delete(repository, UCSBDate.class, 7L, 3L));
+    verify(repository, times(1)).delete(date);
+  }
+
+  @Test
+  void a_versioned_patch_tells_a_stale_version_from_a_missing_entity() {
+    when(repository.existsById(7L)).thenReturn(true);
+    when(repository.existsById(8L)).thenReturn(false);
+
+    service.patch(repository, UCSBDate.class, 7L, 3L, () -> 1);
+    assertThrows(PreconditionFailedException.class, () -> service.patch(repository, UCSBDate.class, 7L, 3L, () -> 0));
+    assertThrows(EntityNotFoundException.class, () -> service.patch(repository, UCSBDate.class, 8L, 3L, () -> 0));
+    verify(repository, times(2)).existsById(any());
+  }
+}
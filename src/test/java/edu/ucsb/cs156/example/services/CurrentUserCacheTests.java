@@ -0,0 +1,174 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CurrentUserCacheTests {
+
+  private CurrentUserCache cache;
+  private SimpleMeterRegistry registry;
+  private AtomicInteger loads;
+  private AtomicLong now;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    cache = new CurrentUserCache();
+    ReflectionTestUtils.setField(cache, "meterRegistry", registry);
+    cache.registerMetrics();
+    now = new AtomicLong();
+    cache.clock = now::get;
+    loads = new AtomicInteger();
+  }
+
+  @AfterEach
+  void cleanup() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static void inSession(MockHttpSession session) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setSession(session);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  private Supplier<CurrentUser> loader(String email) {
+    return () -> {
+      loads.incrementAndGet();
+      return CurrentUser.builder().user(User.builder().email(email).build()).roles(List.of()).build();
+    };
+  }
+
+  private double count(String name) {
+    return registry.get(name).counter().count();
+  }
+
+  @Test
+  void the_user_is_loaded_once_per_session() {
+    inSession(new MockHttpSession());
+
+    CurrentUser first = cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    CurrentUser second = cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    assertSame(first, second);
+    assertEquals(1, loads.get());
+    assertEquals(1, count("currentuser.cache.hits"));
+    assertEquals(1, count("currentuser.cache.misses"));
+  }
+
+  @Test
+  void sessions_do_not_share_snapshots() {
+    inSession(new MockHttpSession());
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    inSession(new MockHttpSession());
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidating_a_user_reloads_them_in_every_session() {
+    MockHttpSession one = new MockHttpSession();
+    MockHttpSession two = new MockHttpSession();
+    inSession(one);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    inSession(two);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    now.addAndGet(1);
+    cache.invalidate("cgaucho@ucsb.edu");
+    cache.invalidate("ldelplaya@ucsb.edu");
+    now.addAndGet(1);
+
+    inSession(one);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    inSession(two);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    assertEquals(4, loads.get());
+    assertEquals(1, count("currentuser.cache.hits"));
+  }
+
+  @Test
+  void a_snapshot_is_reloaded_once_it_is_older_than_the_ttl() {
+    inSession(new MockHttpSession());
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    now.addAndGet(Duration.ofSeconds(60).toNanos() - 1);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    assertEquals(1, loads.get());
+
+    now.addAndGet(1);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void a_snapshot_loaded_after_an_invalidation_is_used() {
+    inSession(new MockHttpSession());
+    cache.invalidate("cgaucho@ucsb.edu");
+    now.addAndGet(1);
+
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void invalidations_older_than_the_ttl_are_dropped() {
+    @SuppressWarnings("unchecked")
+    Map<String, Long> invalidatedAt = (Map<String, Long>) ReflectionTestUtils.getField(cache, "invalidatedAt");
+    cache.invalidate("cgaucho@ucsb.edu");
+    cache.invalidate("ldelplaya@ucsb.edu");
+
+    now.addAndGet(Duration.ofSeconds(60).toNanos());
+    cache.invalidate("pconrad@ucsb.edu");
+
+    assertEquals(Map.of("pconrad@ucsb.edu", now.get()), invalidatedAt);
+  }
+
+  @Test
+  void a_snapshot_of_a_different_user_is_not_used() {
+    MockHttpSession session = new MockHttpSession();
+    inSession(session);
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    CurrentUser other = cache.get("ldelplaya@ucsb.edu", loader("ldelplaya@ucsb.edu"));
+
+    assertEquals("ldelplaya@ucsb.edu", other.getUser().getEmail());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void without_a_request_the_user_is_always_loaded() {
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+    cache.get("cgaucho@ucsb.edu", loader("cgaucho@ucsb.edu"));
+
+    assertEquals(2, loads.get());
+    assertEquals(0, count("currentuser.cache.hits"));
+    assertEquals(2, count("currentuser.cache.misses"));
+  }
+}
@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+class DashboardServiceTests {
+
+  private DashboardService service;
+
+  @BeforeEach
+  void setup() {
+    service = new DashboardService();
+    service.helpRequestRepository = mock(HelpRequestRepository.class);
+    service.recommendationRequestRepository = mock(RecommendationRequestRepository.class);
+    service.articleRepository = mock(ArticleRepository.class);
+    service.ucsbDateRepository = mock(UCSBDateRepository.class);
+    service.menuItemRatingRollupRepository = mock(MenuItemRatingRollupRepository.class);
+    service.transactionManager = mock(PlatformTransactionManager.class);
+    service.entityManager = mock(EntityManager.class);
+    when(service.entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+    service.items = 2;
+    service.timeout = Duration.ofMillis(300);
+  }
+
+  @Test
+  void every_panel_has_its_count_and_first_rows() {
+    HelpRequest help = HelpRequest.builder().requesterEmail("cgaucho@ucsb.edu").build();
+    MenuItemRatingRollup rollup = MenuItemRatingRollup.builder().itemId(7).reviewCount(2).starsSum(9).build();
+    when(service.helpRequestRepository.countBySolvedFalse()).thenReturn(3L);
+    when(service.helpRequestRepository.findBySolvedFalseOrderByRequestTimeDesc(Limit.of(2))).thenReturn(List.of(help));
+    when(service.articleRepository.count()).thenReturn(4L);
+    when(service.ucsbDateRepository.countByLocalDateTimeGreaterThanEqual(any(LocalDateTime.class))).thenReturn(5L);
+    when(service.menuItemRatingRollupRepository.countByReviewCountGreaterThan(0)).thenReturn(1L);
+    when(service.menuItemRatingRollupRepository.findTopRated(Limit.of(2))).thenReturn(List.of(rollup));
+
+    Dashboard dashboard = service.getDashboard();
+
+    assertEquals(3L, dashboard.getOpenHelpRequests().getCount());
+    assertEquals(List.of(help), dashboard.getOpenHelpRequests().getItems());
+    assertNull(dashboard.getOpenHelpRequests().getError());
+    assertEquals(0L, dashboard.getPendingRecommendationRequests().getCount());
+    assertEquals(4L, dashboard.getNewestArticles().getCount());
+    assertEquals(List.<Article>of(), dashboard.getNewestArticles().getItems());
+    assertEquals(5L, dashboard.getUpcomingDates().getCount());
+    assertEquals(List.of(rollup), dashboard.getTopRatedMenuItems().getItems());
+    assertTrue(dashboard.getMillis() >= dashboard.getOpenHelpRequests().getMillis());
+  }
+
+  @Test
+  void a_slow_panel_is_left_out_without_holding_up_the_others() {
+    when(service.articleRepository.count()).thenAnswer(invocation -> {
+      Thread.sleep(5_000);
+      return 4L;
+    });
+    when(service.helpRequestRepository.countBySolvedFalse()).thenReturn(3L);
+
+    long start = System.nanoTime();
+    Dashboard dashboard = service.getDashboard();
+    long millis = (System.nanoTime() - start) / 1_000_000;
+
+    assertTrue(millis < 2_000, "took " + millis + " ms");
+    assertNull(dashboard.getNewestArticles().getCount());
+    assertNull(dashboard.getNewestArticles().getItems());
+    assertEquals("timed out after 300 ms", dashboard.getNewestArticles().getError());
+    assertTrue(dashboard.getNewestArticles().getMillis() >= 300);
+    assertEquals(3L, dashboard.getOpenHelpRequests().getCount());
+  }
+
+  @Test
+  void a_panel_that_misses_the_deadline_is_cancelled() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    when(service.articleRepository.count()).thenAnswer(invocation -> {
+      try {
+        Thread.sleep(5_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return 4L;
+    });
+
+    Dashboard dashboard = service.getDashboard();
+
+    assertEquals("timed out after 300 ms", dashboard.getNewestArticles().getError());
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void panels_share_the_dashboard_connections() {
+    service.timeout = Duration.ofSeconds(2);
+    service.setMaxConnections(2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger mostRunning = new AtomicInteger();
+    when(service.helpRequestRepository.countBySolvedFalse()).thenAnswer(invocation -> slowCount(running, mostRunning));
+    when(service.recommendationRequestRepository.countByDoneFalse()).thenAnswer(invocation -> slowCount(running, mostRunning));
+    when(service.articleRepository.count()).thenAnswer(invocation -> slowCount(running, mostRunning));
+    when(service.ucsbDateRepository.countByLocalDateTimeGreaterThanEqual(any(LocalDateTime.class)))
+        .thenAnswer(invocation -> slowCount(running, mostRunning));
+    when(service.menuItemRatingRollupRepository.countByReviewCountGreaterThan(0))
+        .thenAnswer(invocation -> slowCount(running, mostRunning));
+
+    Dashboard dashboard = service.getDashboard();
+
+    assertEquals(2, mostRunning.get());
+    assertEquals(1L, dashboard.getOpenHelpRequests().getCount());
+    assertEquals(1L, dashboard.getTopRatedMenuItems().getCount());
+  }
+
+  private static long slowCount(AtomicInteger running, AtomicInteger mostRunning) throws InterruptedException {
+    mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+    Thread.sleep(50);
+    running.decrementAndGet();
+    return 1L;
+  }
+
+  @Test
+  void a_panel_that_gets_no_connection_times_out() {
+    service.setMaxConnections(0);
+
+    Dashboard dashboard = service.getDashboard();
+
+    assertTrue(dashboard.getOpenHelpRequests().getError().startsWith("timed out"),
+        dashboard.getOpenHelpRequests().getError());
+    assertNull(dashboard.getOpenHelpRequests().getCount());
+  }
+
+  @Test
+  void a_failed_panel_says_why() {
+    when(service.ucsbDateRepository.countByLocalDateTimeGreaterThanEqual(any(LocalDateTime.class)))
+        .thenThrow(new IllegalStateException("no"));
+
+    Dashboard dashboard = service.getDashboard();
+
+    assertEquals("IllegalStateException", dashboard.getUpcomingDates().getError());
+    assertNull(dashboard.getUpcomingDates().getItems());
+    assertEquals(0L, dashboard.getOpenHelpRequests().getCount());
+  }
+}
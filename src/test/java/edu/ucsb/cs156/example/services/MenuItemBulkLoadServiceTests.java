@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BulkLoadFailure;
+import edu.ucsb.cs156.example.models.BulkLoadResult;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+class MenuItemBulkLoadServiceTests {
+
+  private MenuItemBulkLoadService service;
+  private UCSBDiningCommonsMenuItemRepository repository;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UCSBDiningCommonsMenuItemRepository.class);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+    service = new MenuItemBulkLoadService();
+    ReflectionTestUtils.setField(service, "mapper", new ObjectMapper());
+    ReflectionTestUtils.setField(service, "ucsbDiningCommonsMenuItemRepository", repository);
+    ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(service, "chunkSize", 2);
+  }
+
+  private BulkLoadResult load(String json) throws IOException {
+    return service.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String item(String name) {
+    return "{\"id\":17,\"diningCommonsCode\":\"ortega\",\"name\":\"%s\",\"station\":\"Grill\"}".formatted(name);
+  }
+
+  @Test
+  void valid_rows_are_inserted_in_chunks() throws Exception {
+    BulkLoadResult result = load("[" + item("a") + "," + item("b") + "," + item("c") + "]");
+
+    assertEquals(3, result.getReceived());
+    assertEquals(3, result.getInserted());
+    assertEquals(List.of(), result.getFailures());
+    verify(repository, times(2)).saveAll(anyIterable());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void ids_in_the_input_are_ignored() throws Exception {
+    load("[" + item("a") + "]");
+
+    verify(repository).saveAll(List.of(UCSBDiningCommonsMenuItem.builder()
+        .id(0).diningCommonsCode("ortega").name("a").station("Grill").build()));
+  }
+
+  @Test
+  void invalid_rows_are_reported_and_the_rest_loaded() throws Exception {
+    BulkLoadResult result = load("[" + item("a") + ","
+        + "{\"diningCommonsCode\":\"ortega\",\"station\":\"Grill\"},"
+        + "{\"name\":\"b\",\"station\":\"Grill\"},"
+        + "{\"diningCommonsCode\":\"ortega\",\"name\":\"c\",\"station\":\" \"},"
+        + "{\"id\":\"not a number\"},"
+        + "[1, 2],"
+        + item("d") + "]");
+
+    assertEquals(7, result.getReceived());
+    assertEquals(2, result.getInserted());
+    List<BulkLoadFailure> failures = result.getFailures();
+    assertEquals(5, failures.size());
+    assertEquals(new BulkLoadFailure(1, "name is required"), failures.get(0));
+    assertEquals(new BulkLoadFailure(2, "diningCommonsCode is required"), failures.get(1));
+    assertEquals(new BulkLoadFailure(3, "station is required"), failures.get(2));
+    assertEquals(4, failures.get(3).getRow());
+    assertTrue(failures.get(3).getMessage().contains("not a number"));
+    assertEquals(new BulkLoadFailure(5, "expected a JSON object"), failures.get(4));
+  }
+
+  @Test
+  void a_failed_chunk_is_retried_one_row_at_a_time() throws Exception {
+    when(repository.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("chunk"));
+    when(repository.save(any())).thenAnswer(invocation -> {
+      UCSBDiningCommonsMenuItem item = invocation.getArgument(0);
+      if (item.getName().equals("bad")) {
+        throw new DataIntegrityViolationException("value too long for column NAME");
+      }
+      return item;
+    });
+
+    BulkLoadResult result = load("[" + item("a") + "," + item("bad") + "]");
+
+    assertEquals(2, result.getReceived());
+    assertEquals(1, result.getInserted());
+    assertEquals(List.of(new BulkLoadFailure(1, "value too long for column NAME")), result.getFailures());
+    verify(repository, times(2)).save(any());
+  }
+
+  @Test
+  void malformed_json_keeps_the_rows_read_before_it() throws Exception {
+    BulkLoadResult result = load("[" + item("a") + ", {\"name\": ]");
+
+    assertEquals(2, result.getReceived());
+    assertEquals(1, result.getInserted());
+    assertEquals(1, result.getFailures().size());
+    assertEquals(1, result.getFailures().get(0).getRow());
+    verify(repository, times(1)).saveAll(anyIterable());
+  }
+
+  @Test
+  void truncated_input_is_reported() throws Exception {
+    BulkLoadResult result = load("[" + item("a"));
+
+    assertEquals(1, result.getInserted());
+    assertEquals(1, result.getFailures().size());
+    assertEquals(1, result.getFailures().get(0).getRow());
+    assertTrue(result.getFailures().get(0).getMessage().startsWith("malformed JSON: Unexpected end-of-input"));
+  }
+
+  @Test
+  void the_body_must_be_an_array() {
+    BadRequestException e = assertThrows(BadRequestException.class, () -> load(item("a")));
+
+    assertEquals("expected a JSON array of menu items", e.getMessage());
+  }
+
+  @Test
+  void a_body_that_is_not_json_is_a_bad_request() {
+    BadRequestException e = assertThrows(BadRequestException.class, () -> load("xyz"));
+
+    assertTrue(e.getMessage().startsWith("expected a JSON array of menu items: Unrecognized token 'xyz'"));
+    verify(repository, times(0)).saveAll(anyIterable());
+  }
+}
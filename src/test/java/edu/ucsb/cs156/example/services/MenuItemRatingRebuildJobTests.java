@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewsRepository;
+
+class MenuItemRatingRebuildJobTests {
+
+  private MenuItemRatingRebuildJob job;
+  private MenuItemReviewsRepository reviews;
+  private MenuItemRatingRollupRepository rollups;
+  private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setup() {
+    reviews = mock(MenuItemReviewsRepository.class);
+    rollups = mock(MenuItemRatingRollupRepository.class);
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+    job = new MenuItemRatingRebuildJob();
+    ReflectionTestUtils.setField(job, "menuItemReviewsRepository", reviews);
+    ReflectionTestUtils.setField(job, "menuItemRatingRollupRepository", rollups);
+    ReflectionTestUtils.setField(job, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(job, "chunkSize", 2);
+    ReflectionTestUtils.setField(job, "threads", 2);
+  }
+
+  @Test
+  void rebuild_aggregates_each_chunk_of_items_in_its_own_transaction() {
+    List<MenuItemRatingRollup> first = List.of(MenuItemRatingRollup.builder().itemId(1).reviewCount(1).build());
+    List<MenuItemRatingRollup> second = List.of(MenuItemRatingRollup.builder().itemId(5).reviewCount(3).build());
+    when(reviews.findDistinctItemIds()).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+    when(reviews.aggregateRatingsByItemIdIn(List.of(1L, 2L))).thenReturn(first);
+    when(reviews.aggregateRatingsByItemIdIn(List.of(3L, 4L))).thenReturn(List.of());
+    when(reviews.aggregateRatingsByItemIdIn(List.of(5L))).thenReturn(second);
+
+    assertEquals(5, job.rebuild());
+
+    verify(rollups, times(1)).deleteOrphans();
+    verify(rollups, times(1)).saveAll(first);
+    verify(rollups, times(1)).saveAll(second);
+    verify(transactionManager, times(4)).commit(any());
+  }
+
+  @Test
+  void rebuild_reports_a_failed_chunk() {
+    RuntimeException failure = new RuntimeException("boom");
+    when(reviews.findDistinctItemIds()).thenReturn(List.of(1L));
+    when(reviews.aggregateRatingsByItemIdIn(List.of(1L))).thenThrow(failure);
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> job.rebuild());
+
+    assertEquals("rebuilding the rating rollups failed", e.getMessage());
+    assertSame(failure, e.getCause());
+  }
+
+  @Test
+  void rebuild_stops_when_interrupted() {
+    when(reviews.findDistinctItemIds()).thenReturn(List.of(1L));
+    when(reviews.aggregateRatingsByItemIdIn(any())).thenAnswer(invocation -> {
+      Thread.sleep(10_000);
+      return List.of();
+    });
+
+    Thread.currentThread().interrupt();
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> job.rebuild());
+
+    assertEquals("rebuilding the rating rollups was interrupted", e.getMessage());
+    assertEquals(true, Thread.interrupted());
+  }
+}
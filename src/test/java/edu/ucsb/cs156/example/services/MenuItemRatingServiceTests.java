@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingRollup;
+import edu.ucsb.cs156.example.entities.MenuItemReviews;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRollupRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewsRepository;
+
+class MenuItemRatingServiceTests {
+
+  private MenuItemRatingService service;
+  private MenuItemReviewsRepository reviews;
+  private MenuItemRatingRollupRepository rollups;
+
+  @BeforeEach
+  void setup() {
+    reviews = mock(MenuItemReviewsRepository.class);
+    rollups = mock(MenuItemRatingRollupRepository.class);
+    service = new MenuItemRatingService();
+    service.menuItemReviewsRepository = reviews;
+    service.menuItemRatingRollupRepository = rollups;
+  }
+
+  private static MenuItemReviews review(long itemId, int stars) {
+    return MenuItemReviews.builder()
+        .itemId(itemId)
+        .reviewEmail("cgaucho@ucsb.edu")
+        .stars(stars)
+        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .comments("ok")
+        .build();
+  }
+
+  @Test
+  void the_first_review_of_an_item_creates_its_rollup_before_locking_it() {
+    MenuItemReviews review = review(7, 5);
+    when(reviews.save(review)).thenReturn(review);
+    when(rollups.findLockedByItemId(7)).thenReturn(Optional.of(MenuItemRatingRollup.builder().itemId(7).build()));
+
+    assertEquals(review, service.create(review));
+
+    InOrder order = inOrder(rollups);
+    order.verify(rollups).insertIfAbsent(7);
+    order.verify(rollups).findLockedByItemId(7);
+    order.verify(rollups).save(MenuItemRatingRollup.builder().itemId(7).reviewCount(1).starsSum(5).stars5(1).build());
+  }
+
+  @Test
+  void stars_outside_one_to_five_count_but_have_no_bucket() {
+    when(rollups.findLockedByItemId(7)).thenReturn(Optional.of(MenuItemRatingRollup.builder().itemId(7).build()));
+
+    service.create(review(7, 0));
+
+    verify(rollups).save(MenuItemRatingRollup.builder().itemId(7).reviewCount(1).starsSum(0).build());
+  }
+
+  @Test
+  void a_rollup_that_cannot_be_locked_is_an_error() {
+    assertThrows(IllegalStateException.class, () -> service.create(review(7, 5)));
+    verify(rollups, never()).save(any());
+  }
+
+  @Test
+  void moving_a_review_to_another_item_updates_both_rollups() {
+    MenuItemReviews existing = review(7, 4);
+    MenuItemRatingRollup from = MenuItemRatingRollup.builder().itemId(7).reviewCount(1).starsSum(4).stars4(1).build();
+    MenuItemRatingRollup to = MenuItemRatingRollup.builder().itemId(8).reviewCount(1).starsSum(1).stars1(1).build();
+    when(reviews.findById(10L)).thenReturn(Optional.of(existing));
+    when(rollups.findLockedByItemId(7)).thenReturn(Optional.of(from));
+    when(rollups.findLockedByItemId(8)).thenReturn(Optional.of(to));
+
+    service.update(10L, null, review(8, 4));
+
+    assertEquals(MenuItemRatingRollup.builder().itemId(7).build(), from);
+    assertEquals(MenuItemRatingRollup.builder().itemId(8).reviewCount(2).starsSum(5).stars1(1).stars4(1).build(), to);
+  }
+
+  @Test
+  void moving_a_review_locks_the_rollups_in_item_id_order() {
+    MenuItemReviews existing = review(8, 4);
+    MenuItemRatingRollup from = MenuItemRatingRollup.builder().itemId(8).reviewCount(1).starsSum(4).stars4(1).build();
+    MenuItemRatingRollup to = MenuItemRatingRollup.builder().itemId(7).build();
+    when(reviews.findById(10L)).thenReturn(Optional.of(existing));
+    when(rollups.findLockedByItemId(7)).thenReturn(Optional.of(to));
+    when(rollups.findLockedByItemId(8)).thenReturn(Optional.of(from));
+
+    service.update(10L, null, review(7, 2));
+
+    InOrder order = inOrder(rollups);
+    order.verify(rollups).findLockedByItemId(7);
+    order.verify(rollups).findLockedByItemId(8);
+    assertEquals(MenuItemRatingRollup.builder().itemId(8).build(), from);
+    assertEquals(MenuItemRatingRollup.builder().itemId(7).reviewCount(1).starsSum(2).stars2(1).build(), to);
+  }
+
+  @Test
+  void changing_the_stars_of_a_review_locks_its_rollup_once() {
+    MenuItemReviews existing = review(7, 4);
+    MenuItemRatingRollup rollup = MenuItemRatingRollup.builder().itemId(7).reviewCount(1).starsSum(4).stars4(1).build();
+    when(reviews.findById(10L)).thenReturn(Optional.of(existing));
+    when(rollups.findLockedByItemId(7)).thenReturn(Optional.of(rollup));
+
+    service.update(10L, null, review(7, 2));
+
+    verify(rollups, times(1)).findLockedByItemId(7);
+    assertEquals(MenuItemRatingRollup.builder().itemId(7).reviewCount(1).starsSum(2).stars2(1).build(), rollup);
+  }
+
+  @Test
+  void updating_or_deleting_a_missing_review_throws() {
+    assertThrows(EntityNotFoundException.class, () -> service.update(10L, null, review(7, 1)));
+    assertThrows(EntityNotFoundException.class, () -> service.delete(10L, null));
+    verify(rollups, never()).save(any());
+  }
+
+  @Test
+  void rollupFor_returns_the_stored_rollup() {
+    MenuItemRatingRollup rollup = MenuItemRatingRollup.builder().itemId(7).reviewCount(4).starsSum(10).build();
+    when(rollups.findById(7L)).thenReturn(Optional.of(rollup));
+
+    MenuItemRatingRollup result = service.rollupFor(7);
+
+    assertEquals(rollup, result);
+    assertEquals(2.5, result.getAverageStars());
+    verify(rollups, times(1)).findById(7L);
+  }
+
+  @Test
+  void rollupFor_an_item_without_reviews_is_empty() {
+    MenuItemRatingRollup result = service.rollupFor(7);
+
+    assertEquals(MenuItemRatingRollup.builder().itemId(7).build(), result);
+    assertEquals(0.0, result.getAverageStars());
+  }
+
+  @Test
+  void a_stale_review_is_neither_updated_nor_deleted() {
+    MenuItemReviews existing = review(7, 4);
+    existing.setVersion(2);
+    when(reviews.findById(10L)).thenReturn(Optional.of(existing));
+
+    assertThrows(PreconditionFailedException.class, () -> service.update(10L, 1L, review(8, 4)));
+    assertThrows(PreconditionFailedException.class, () -> service.delete(10L, 1L));
+
+    verify(reviews, never()).save(any());
+    verify(reviews, never()).delete(any());
+    verify(rollups, never()).save(any());
+  }
+}
@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import jakarta.persistence.EntityManager;
+
+class NdjsonStreamingServiceTests {
+
+  private NdjsonStreamingService service;
+  private EntityManager entityManager;
+  private PlatformTransactionManager transactionManager;
+  private ObjectMapper mapper;
+
+  private final UCSBDate date1 = UCSBDate.builder()
+      .id(1L).quarterYYYYQ("20241").name("firstDayOfClasses")
+      .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00")).build();
+  private final UCSBDate date2 = UCSBDate.builder()
+      .id(2L).quarterYYYYQ("20241").name("lastDayOfClasses")
+      .localDateTime(LocalDateTime.parse("2024-03-15T00:00:00")).build();
+
+  @BeforeEach
+  void setup() {
+    mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    entityManager = mock(EntityManager.class);
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+    service = new NdjsonStreamingService();
+    ReflectionTestUtils.setField(service, "mapper", mapper);
+    ReflectionTestUtils.setField(service, "entityManager", entityManager);
+    ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(service, "flushEvery", 1);
+  }
+
+  @Test
+  void stream_writes_one_json_object_per_line_and_detaches_each_row() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    service.stream(() -> Stream.of(date1, date2)).writeTo(out);
+
+    String expected = mapper.writeValueAsString(date1) + "\n" + mapper.writeValueAsString(date2) + "\n";
+    assertEquals(expected, out.toString());
+    verify(entityManager, times(1)).detach(date1);
+    verify(entityManager, times(1)).detach(date2);
+  }
+
+  @Test
+  void stream_runs_in_a_read_only_transaction() throws Exception {
+    service.stream(() -> Stream.empty()).writeTo(new ByteArrayOutputStream());
+
+    verify(transactionManager, times(1)).getTransaction(
+        org.mockito.ArgumentMatchers.argThat(TransactionDefinition::isReadOnly));
+    verify(transactionManager, times(1)).commit(any());
+  }
+
+  @Test
+  void stream_closes_the_stream_when_done() throws Exception {
+    boolean[] closed = { false };
+
+    service.stream(() -> Stream.of(date1).onClose(() -> closed[0] = true)).writeTo(new ByteArrayOutputStream());
+
+    assertEquals(true, closed[0]);
+  }
+
+  @Test
+  void writeRows_wraps_io_errors() {
+    OutputStream broken = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("client went away");
+      }
+    };
+
+    assertThrows(UncheckedIOException.class, () -> service.writeRows(() -> Stream.of(date1), broken));
+  }
+}
@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.jdbc.QueryCountingDataSource;
+import edu.ucsb.cs156.example.jdbc.QueryStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QueryStatsReporterTests {
+
+  private QueryStatsReporter reporter;
+  private SimpleMeterRegistry registry;
+  private QueryCountingDataSource dataSource;
+
+  @BeforeEach
+  void setup() {
+    registry = new SimpleMeterRegistry();
+    reporter = new QueryStatsReporter();
+    ReflectionTestUtils.setField(reporter, "meterRegistry", registry);
+    ReflectionTestUtils.setField(reporter, "statementBudget", 3);
+    ReflectionTestUtils.setField(reporter, "repeatThreshold", 3);
+    dataSource = new QueryCountingDataSource(new DriverManagerDataSource("jdbc:h2:mem:querystatsreporter"));
+  }
+
+  @AfterEach
+  void cleanup() {
+    QueryStats.unbind();
+  }
+
+  private QueryStats run(String... queries) throws Exception {
+    QueryStats stats = new QueryStats();
+    QueryStats.bind(stats);
+    try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+      for (String query : queries) {
+        statement.execute(query);
+        try (ResultSet rs = statement.getResultSet()) {
+          while (rs.next()) {
+          }
+        }
+      }
+    }
+    QueryStats.unbind();
+    return stats;
+  }
+
+  @Test
+  void stats_are_recorded_per_route() throws Exception {
+    QueryStats stats = run("select 1", "select 'x'");
+
+    assertFalse(reporter.report("GET", "/api/ucsbdates", stats));
+
+    assertEquals(1, registry.get("db.request.statements").tag("uri", "/api/ucsbdates").summary().count());
+    assertEquals(2, registry.get("db.request.statements").tag("uri", "/api/ucsbdates").summary().totalAmount());
+    assertEquals(2, registry.get("db.request.rows").tag("uri", "/api/ucsbdates").summary().totalAmount());
+    assertEquals(stats.getNanos(),
+        registry.get("db.request.time").tag("uri", "/api/ucsbdates").timer().totalTime(TimeUnit.NANOSECONDS));
+    assertTrue(registry.find("db.request.flagged").counters().isEmpty());
+  }
+
+  @Test
+  void requests_over_the_statement_budget_are_flagged() throws Exception {
+    QueryStats stats = run("select 1", "select 'a'", "select 2 + 2", "select 'b' || 'c'");
+
+    assertTrue(reporter.report("GET", "/api/articles/all", stats));
+
+    assertEquals(1, registry.get("db.request.flagged").tags("uri", "/api/articles/all", "reason", "budget")
+        .counter().count());
+    assertTrue(registry.find("db.request.flagged").tag("reason", "repeated").counters().isEmpty());
+  }
+
+  @Test
+  void requests_repeating_a_statement_are_flagged_as_likely_n_plus_one() throws Exception {
+    QueryStats stats = run("select 1", "select 2", "select 3");
+
+    assertTrue(reporter.report("GET", "/api/menuitemreview/all", stats));
+
+    assertEquals(1, registry.get("db.request.flagged").tags("uri", "/api/menuitemreview/all", "reason", "repeated")
+        .counter().count());
+    assertTrue(registry.find("db.request.flagged").tag("reason", "budget").counters().isEmpty());
+  }
+}
@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestCoalescerTests {
+
+  private RequestCoalescer coalescer;
+  private MeterRegistry meterRegistry;
+  private AtomicInteger reads;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    coalescer = new RequestCoalescer();
+    ReflectionTestUtils.setField(coalescer, "mapper", new ObjectMapper());
+    ReflectionTestUtils.setField(coalescer, "meterRegistry", meterRegistry);
+    reads = new AtomicInteger();
+  }
+
+  private double count(String role) {
+    return meterRegistry.get("http.server.requests.coalesced").tags("uri", "/api/ucsbdates/all", "role", role)
+        .counter().count();
+  }
+
+  @Test
+  void concurrent_identical_reads_share_one_run_and_one_result() throws Exception {
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Future<byte[]> leader = executor.submit(() -> coalescer.coalesce("/api/ucsbdates/all", "key", () -> {
+        reads.incrementAndGet();
+        reading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return List.of("firstDayOfClasses");
+      }));
+      reading.await();
+      List<Future<byte[]>> followers = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+        followers.add(executor.submit(() -> coalescer.coalesce("/api/ucsbdates/all", "key", () -> {
+          reads.incrementAndGet();
+          return List.of("firstDayOfClasses");
+        })));
+      }
+      // give the followers time to find the read in flight before it finishes
+      Thread.sleep(100);
+      release.countDown();
+
+      byte[] json = leader.get(5, TimeUnit.SECONDS);
+      for (Future<byte[]> follower : followers) {
+        assertSame(json, follower.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals("[\"firstDayOfClasses\"]", new String(json, StandardCharsets.UTF_8));
+      assertEquals(1, reads.get());
+      assertEquals(1.0, count("leader"));
+      assertEquals(7.0, count("follower"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void reads_that_do_not_overlap_run_separately() {
+    byte[] first = coalescer.coalesce("/api/ucsbdates/all", "key", () -> reads.incrementAndGet());
+    byte[] second = coalescer.coalesce("/api/ucsbdates/all", "key", () -> reads.incrementAndGet());
+
+    assertArrayEquals("1".getBytes(StandardCharsets.UTF_8), first);
+    assertArrayEquals("2".getBytes(StandardCharsets.UTF_8), second);
+    assertEquals(2.0, count("leader"));
+  }
+
+  @Test
+  void a_failed_read_is_not_kept() {
+    assertThrows(EntityNotFoundException.class, () -> coalescer.coalesce("/api/ucsbdates/all", "key", () -> {
+      throw new EntityNotFoundException(UCSBDate.class, 7L);
+    }));
+
+    byte[] json = coalescer.coalesce("/api/ucsbdates/all", "key", () -> List.of());
+
+    assertArrayEquals("[]".getBytes(StandardCharsets.UTF_8), json);
+  }
+}
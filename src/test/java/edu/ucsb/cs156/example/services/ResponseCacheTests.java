@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ResponseCacheTests {
+
+  private ResponseCache cache;
+  private AtomicInteger builds;
+
+  private static final ResponseCache.Key COMMONS = new ResponseCache.Key("ucsbdiningcommons", "/api/ucsbdiningcommons/all");
+  private static final ResponseCache.Key RESTAURANTS = new ResponseCache.Key("restaurants", "/api/restaurants/all");
+
+  @BeforeEach
+  void setup() {
+    cache = new ResponseCache();
+    ReflectionTestUtils.setField(cache, "mapper", new ObjectMapper());
+    ReflectionTestUtils.setField(cache, "maxSize", DataSize.ofKilobytes(1));
+    builds = new AtomicInteger();
+  }
+
+  private ResponseCache.Entry get(ResponseCache.Key key, long version, Object body) {
+    return cache.get(key, version, () -> {
+      builds.incrementAndGet();
+      return body;
+    });
+  }
+
+  @Test
+  void a_response_is_built_once_per_version() throws Exception {
+    ResponseCache.Entry first = get(COMMONS, 1, List.of(Map.of("code", "ortega")));
+    ResponseCache.Entry second = get(COMMONS, 1, List.of(Map.of("code", "ortega")));
+    ResponseCache.Entry third = get(COMMONS, 2, List.of(Map.of("code", "carrillo")));
+
+    assertSame(first, second);
+    assertEquals(2, builds.get());
+    assertEquals("[{\"code\":\"carrillo\"}]", new String(third.json(), StandardCharsets.UTF_8));
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(third.gzip()))) {
+      assertArrayEquals(third.json(), gzip.readAllBytes());
+    }
+  }
+
+  @Test
+  void evicting_a_collection_drops_only_its_responses() {
+    get(COMMONS, 1, List.of("ortega"));
+    get(RESTAURANTS, 1, List.of("freebirds"));
+
+    cache.evict("ucsbdiningcommons");
+    get(COMMONS, 1, List.of("ortega"));
+    get(RESTAURANTS, 1, List.of("freebirds"));
+
+    assertEquals(3, builds.get());
+  }
+
+  @Test
+  void the_least_recently_used_responses_are_evicted_to_stay_under_the_size() {
+    // about 480 bytes each, JSON and gzip, so two fit in 1 KB
+    String body = "x".repeat(450);
+    get(new ResponseCache.Key("restaurants", "a"), 1, body);
+    get(new ResponseCache.Key("restaurants", "b"), 1, body);
+    get(new ResponseCache.Key("restaurants", "a"), 1, body);
+    get(new ResponseCache.Key("restaurants", "c"), 1, body);
+
+    get(new ResponseCache.Key("restaurants", "a"), 1, body);
+    get(new ResponseCache.Key("restaurants", "b"), 1, body);
+
+    // a was used after b, so b was evicted to make room for c
+    assertEquals(4, builds.get());
+    assertTrue(cache.size() <= 1024);
+  }
+
+  @Test
+  void a_response_bigger_than_the_cache_is_not_kept() {
+    String body = "x".repeat(2000);
+
+    get(RESTAURANTS, 1, body);
+    get(RESTAURANTS, 1, body);
+
+    assertEquals(2, builds.get());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void a_burst_of_misses_builds_the_response_once() throws Exception {
+    CountDownLatch building = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Future<ResponseCache.Entry> first = executor.submit(() -> cache.get(COMMONS, 3, () -> {
+        builds.incrementAndGet();
+        building.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return List.of("ortega");
+      }));
+      building.await();
+      List<Future<ResponseCache.Entry>> others = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+        others.add(executor.submit(() -> get(COMMONS, 3, List.of("ortega"))));
+      }
+      // give the others time to find the build in progress before it finishes
+      Thread.sleep(100);
+      release.countDown();
+
+      for (Future<ResponseCache.Entry> other : others) {
+        assertSame(first.get(5, TimeUnit.SECONDS), other.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, builds.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void a_failed_build_is_not_cached() {
+    assertThrows(IllegalArgumentException.class, () -> cache.get(COMMONS, 1, () -> {
+      throw new IllegalArgumentException("limit must be positive");
+    }));
+
+    get(COMMONS, 1, List.of("ortega"));
+
+    assertEquals(1, builds.get());
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.CollectionVersion;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.CollectionVersionRepository;
+
+class SecondLevelCacheInvalidatorTests {
+
+  private SecondLevelCacheInvalidator invalidator;
+  private CollectionVersionRepository repository;
+  private Cache cache;
+
+  private static EntityType<?> entityType(Class<?> javaType) {
+    EntityType<?> entityType = mock(EntityType.class);
+    doReturn(javaType).when(entityType).getJavaType();
+    return entityType;
+  }
+
+  @BeforeEach
+  void setup() {
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    Metamodel metamodel = mock(Metamodel.class);
+    SessionFactory sessionFactory = mock(SessionFactory.class);
+    cache = mock(Cache.class);
+    repository = mock(CollectionVersionRepository.class);
+    when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+    doReturn(Set.of(entityType(Restaurant.class), entityType(UCSBDate.class))).when(metamodel).getEntities();
+    when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getCache()).thenReturn(cache);
+
+    invalidator = new SecondLevelCacheInvalidator();
+    ReflectionTestUtils.setField(invalidator, "entityManagerFactory", entityManagerFactory);
+    ReflectionTestUtils.setField(invalidator, "collectionVersionRepository", repository);
+    invalidator.findCachedCollections();
+  }
+
+  @Test
+  void the_first_version_and_every_newer_one_evict_the_collection() {
+    invalidator.versionSeen("restaurants", 3);
+    invalidator.versionSeen("restaurants", 3);
+    invalidator.versionSeen("restaurants", 4);
+
+    verify(cache, times(2)).evictEntityData(Restaurant.class);
+    verify(cache, times(2)).evictDefaultQueryRegion();
+  }
+
+  @Test
+  void an_older_version_read_late_does_not_evict() {
+    invalidator.versionSeen("restaurants", 4);
+    invalidator.versionSeen("restaurants", 3);
+    invalidator.versionSeen("restaurants", 4);
+
+    verify(cache, times(1)).evictEntityData(Restaurant.class);
+  }
+
+  @Test
+  void collections_that_are_not_cached_are_not_looked_at() {
+    invalidator.versionSeen("ucsbdates", 1);
+    invalidator.versionSeen("ucsbdates", 2);
+
+    verify(cache, never()).evictEntityData(UCSBDate.class);
+    verify(cache, never()).evictDefaultQueryRegion();
+  }
+
+  @Test
+  void the_scheduled_check_reads_the_versions_of_the_cached_collections() {
+    when(repository.findAllById(Set.of("restaurants")))
+        .thenReturn(List.of(CollectionVersion.builder().name("restaurants").version(7).build()));
+
+    invalidator.checkVersions();
+    invalidator.checkVersions();
+
+    verify(cache, times(1)).evictEntityData(Restaurant.class);
+  }
+}
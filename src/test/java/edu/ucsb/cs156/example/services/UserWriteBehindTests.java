@@ -0,0 +1,227 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class UserWriteBehindTests {
+
+  private UserWriteBehind writeBehind;
+  private UserRepository repository;
+  private PlatformTransactionManager transactionManager;
+  private long now;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UserRepository.class);
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+    writeBehind = new UserWriteBehind();
+    ReflectionTestUtils.setField(writeBehind, "userRepository", repository);
+    ReflectionTestUtils.setField(writeBehind, "transactionManager", transactionManager);
+  }
+
+  private static User user(long id, String email, boolean admin) {
+    return User.builder().id(id).email(email).admin(admin).build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<User> saved() {
+    ArgumentCaptor<Iterable<User>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(repository).saveAll(captor.capture());
+    return (List<User>) captor.getValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<User> lastSaved() {
+    ArgumentCaptor<Iterable<User>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(repository, atLeastOnce()).saveAll(captor.capture());
+    return (List<User>) captor.getValue();
+  }
+
+  @Test
+  void an_empty_queue_does_nothing() {
+    assertEquals(0, writeBehind.flush());
+    verify(transactionManager, never()).getTransaction(any());
+  }
+
+  @Test
+  void queued_users_are_written_in_one_transaction() {
+    User cgaucho = user(0, "cgaucho@ucsb.edu", false);
+    User ldelplaya = user(0, "ldelplaya@ucsb.edu", true);
+    writeBehind.enqueue(cgaucho);
+    writeBehind.enqueue(ldelplaya);
+    assertSame(cgaucho, writeBehind.pending("cgaucho@ucsb.edu").get());
+
+    assertEquals(2, writeBehind.flush());
+
+    verify(transactionManager, times(1)).getTransaction(any());
+    verify(repository, times(1)).findByEmailIn(any());
+    assertEquals(Set.of(cgaucho, ldelplaya), Set.copyOf(saved()));
+    assertTrue(writeBehind.pending("cgaucho@ucsb.edu").isEmpty());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void users_that_already_exist_are_only_updated_to_become_admins() {
+    User promoted = user(1, "phtcon@ucsb.edu", false);
+    User unchanged = user(2, "cgaucho@ucsb.edu", true);
+    when(repository.findByEmailIn(any())).thenAnswer(invocation -> {
+      Collection<String> emails = invocation.getArgument(0);
+      assertEquals(Set.of("phtcon@ucsb.edu", "cgaucho@ucsb.edu"), Set.copyOf(emails));
+      return List.of(promoted, unchanged, user(3, "cgaucho@ucsb.edu", false));
+    });
+    writeBehind.enqueue(user(1, "phtcon@ucsb.edu", true));
+    writeBehind.enqueue(user(2, "cgaucho@ucsb.edu", false));
+
+    writeBehind.flush();
+
+    assertEquals(List.of(user(1, "phtcon@ucsb.edu", true)), saved());
+  }
+
+  @Test
+  void a_failed_batch_is_written_again_one_user_at_a_time() {
+    User cgaucho = user(0, "cgaucho@ucsb.edu", false);
+    User ldelplaya = user(0, "ldelplaya@ucsb.edu", false);
+    when(repository.saveAll(anyIterable()))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenReturn(List.of());
+    writeBehind.enqueue(cgaucho);
+    writeBehind.enqueue(ldelplaya);
+
+    assertEquals(2, writeBehind.flush());
+
+    verify(transactionManager, times(3)).getTransaction(any());
+    verify(repository, times(3)).saveAll(anyIterable());
+    assertTrue(writeBehind.pending("cgaucho@ucsb.edu").isEmpty());
+    assertTrue(writeBehind.pending("ldelplaya@ucsb.edu").isEmpty());
+  }
+
+  @Test
+  void a_user_that_cannot_be_written_does_not_hold_back_the_others() {
+    writeBehind.clock = () -> now;
+    when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+      Iterable<User> users = invocation.getArgument(0);
+      for (User user : users) {
+        if (user.getEmail().startsWith("bad")) {
+          throw new DataIntegrityViolationException("value too long");
+        }
+      }
+      return List.of();
+    });
+    writeBehind.enqueue(user(0, "bad@ucsb.edu", false));
+    writeBehind.enqueue(user(0, "cgaucho@ucsb.edu", false));
+
+    // the good user is written at once; the bad one waits out its backoff
+    assertEquals(1, writeBehind.flush());
+    assertTrue(writeBehind.pending("bad@ucsb.edu").isPresent());
+    writeBehind.enqueue(user(0, "ldelplaya@ucsb.edu", false));
+    now += Duration.ofMillis(999).toNanos();
+    assertEquals(1, writeBehind.flush());
+    assertTrue(writeBehind.pending("bad@ucsb.edu").isPresent());
+
+    // retries back off 1s, 2s, 4s, 8s; the fifth failure drops the user
+    for (long seconds : new long[] { 1, 2, 4 }) {
+      now += Duration.ofSeconds(seconds).toNanos();
+      assertEquals(0, writeBehind.flush());
+      assertTrue(writeBehind.pending("bad@ucsb.edu").isPresent());
+    }
+    now += Duration.ofSeconds(7).toNanos();
+    assertEquals(0, writeBehind.flush());
+    verify(repository, times(8)).saveAll(argThat(users -> users.iterator().next().getEmail().equals("bad@ucsb.edu")));
+    now += Duration.ofSeconds(1).toNanos();
+    assertEquals(0, writeBehind.flush());
+    verify(repository, times(10)).saveAll(argThat(users -> users.iterator().next().getEmail().equals("bad@ucsb.edu")));
+
+    assertTrue(writeBehind.pending("bad@ucsb.edu").isEmpty());
+    now += UserWriteBehind.MAX_RETRY_BACKOFF.toNanos();
+    assertEquals(0, writeBehind.flush());
+    verify(repository, times(10)).saveAll(argThat(users -> users.iterator().next().getEmail().equals("bad@ucsb.edu")));
+  }
+
+  @Test
+  void the_backoff_is_capped() {
+    writeBehind.clock = () -> now;
+    ReflectionTestUtils.setField(writeBehind, "maxAttempts", 100);
+    when(repository.saveAll(anyIterable())).thenThrow(new QueryTimeoutException("timeout"));
+    writeBehind.enqueue(user(0, "cgaucho@ucsb.edu", false));
+
+    for (int i = 0; i < 20; i++) {
+      writeBehind.flush();
+      now += UserWriteBehind.MAX_RETRY_BACKOFF.toNanos();
+    }
+
+    // every retry after the first few waited exactly the cap, so none was skipped: 20 batches, 20 single writes
+    verify(repository, times(40)).saveAll(anyIterable());
+  }
+
+  @Test
+  void a_newer_login_replaces_a_user_waiting_to_be_retried() {
+    writeBehind.clock = () -> now;
+    when(repository.saveAll(anyIterable()))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenReturn(List.of());
+    writeBehind.enqueue(user(0, "cgaucho@ucsb.edu", false));
+    assertEquals(0, writeBehind.flush());
+
+    writeBehind.enqueue(user(0, "cgaucho@ucsb.edu", true));
+    assertEquals(1, writeBehind.flush());
+
+    assertEquals(List.of(user(0, "cgaucho@ucsb.edu", true)), lastSaved());
+    assertTrue(writeBehind.pending("cgaucho@ucsb.edu").isEmpty());
+    assertEquals(0, writeBehind.flush());
+  }
+
+  @Test
+  void users_waiting_to_be_retried_are_written_on_shutdown() {
+    writeBehind.clock = () -> now;
+    when(repository.saveAll(anyIterable()))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenReturn(List.of());
+    writeBehind.enqueue(user(0, "cgaucho@ucsb.edu", false));
+    assertEquals(0, writeBehind.flush());
+
+    writeBehind.shutdown();
+
+    verify(repository, times(3)).saveAll(anyIterable());
+    assertTrue(writeBehind.pending("cgaucho@ucsb.edu").isEmpty());
+  }
+
+  @Test
+  void the_queue_is_flushed_on_shutdown() {
+    writeBehind.enqueue(user(0, "cgaucho@ucsb.edu", false));
+
+    writeBehind.shutdown();
+
+    verify(repository, times(1)).saveAll(anyIterable());
+  }
+}